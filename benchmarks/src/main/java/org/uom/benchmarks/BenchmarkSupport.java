@@ -0,0 +1,83 @@
+package org.uom.benchmarks;
+
+import org.uom.contracts.communication.Transport;
+import org.uom.contracts.processing.KeyedExecutor;
+import org.uom.domain.Node;
+import org.uom.model.message.Message;
+import org.uom.model.message.SocketMessage;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+final class BenchmarkSupport {
+    static final String LOGBACK_CONFIG = "-Dlogback.configurationFile=logback-bench.xml";
+    private static final String[] WORDS = {
+        "adventures", "tintin", "jack", "jill", "glee", "vampire", "diaries", "king", "arthur", "windows",
+        "harry", "potter", "kung", "fu", "panda", "lady", "gaga", "twilight", "mission", "impossible",
+        "turn", "up", "the", "music", "super", "mario", "american", "pickers", "microsoft", "office",
+        "happy", "feet", "modern", "family", "idol", "hacking", "for", "dummies", "season", "remastered"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Builds a reproducible catalog of multi-word file names drawn from the same vocabulary as the default
+     * shared files, so queries hit a realistic number of candidates.
+     */
+    static List<String> catalog(int size, long seed) {
+        Random random = new Random(seed);
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int wordCount = 2 + random.nextInt(3);
+            StringBuilder name = new StringBuilder();
+            for (int j = 0; j < wordCount; j++) {
+                if (j > 0) {
+                    name.append(' ');
+                }
+                name.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            name.append(' ').append(i);
+            names.add(name.toString());
+        }
+        return names;
+    }
+
+    static Node newNode(Transport transport) throws UnknownHostException {
+        KeyedExecutor inline = (key, task) -> task.run();
+        return new Node("127.0.0.1", 55555, transport, inline);
+    }
+
+    /**
+     * Transport that drops everything it is given, so node benchmarks measure routing and not I/O.
+     */
+    static final class NullTransport implements Transport {
+        private final int port;
+        long sent;
+
+        NullTransport(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public int getPort() {
+            return this.port;
+        }
+
+        @Override
+        public void start(Consumer<Message> messageConsumer) {
+        }
+
+        @Override
+        public void send(SocketMessage message) {
+            this.sent++;
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}
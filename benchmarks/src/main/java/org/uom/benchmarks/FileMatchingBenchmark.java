@@ -0,0 +1,49 @@
+package org.uom.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.uom.domain.File;
+import org.uom.domain.Node;
+import org.uom.utils.FileUtils;
+
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSupport.LOGBACK_CONFIG)
+public class FileMatchingBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    @Param({"harry potter", "office"})
+    public String query;
+
+    private List<String> catalog;
+    private Node node;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        this.catalog = BenchmarkSupport.catalog(this.catalogSize, 42);
+        this.node = BenchmarkSupport.newNode(new BenchmarkSupport.NullTransport(40000));
+        for (String fileName : this.catalog) {
+            this.node.shareFile(fileName);
+        }
+    }
+
+    @Benchmark
+    public void hasMatchingFileNameScan(Blackhole blackhole) {
+        for (String fileName : this.catalog) {
+            blackhole.consume(FileUtils.hasMatchingFileName(fileName, this.query));
+        }
+    }
+
+    @Benchmark
+    public List<File> getMatchingFiles() {
+        return this.node.getMatchingFiles(this.query);
+    }
+}
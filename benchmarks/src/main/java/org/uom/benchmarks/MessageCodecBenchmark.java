@@ -0,0 +1,102 @@
+package org.uom.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.communication.MessageCodec;
+import org.uom.model.message.Message;
+import org.uom.model.message.SearchMessage;
+import org.uom.model.message.SearchResponse;
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.Commands;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSupport.LOGBACK_CONFIG)
+public class MessageCodecBenchmark {
+    private Endpoint origin;
+    private SearchMessage search;
+    private SearchResponse response;
+    private ByteBuffer searchFrame;
+    private ByteBuffer responseFrame;
+    private ByteBuffer output;
+
+    @Setup
+    public void setup() {
+        this.origin = EndpointRegistry.getDefault().get("10.0.0.2", 50001);
+        Endpoint initiator = EndpointRegistry.getDefault().get("10.0.0.1", 50000);
+        this.search = new SearchMessage(initiator, "Microsoft Office 2010", 3, 0x1234_5678_9abc_def0L);
+        this.response = new SearchResponse(
+            2,
+            this.origin,
+            2,
+            new String[]{"Microsoft Office 2010", "Microsoft Office 2010 Remastered"});
+
+        this.searchFrame = encoded(this.search);
+        this.responseFrame = encoded(this.response);
+        this.output = ByteBuffer.allocate(1024);
+    }
+
+    @Benchmark
+    public Message decodeSearch() {
+        this.searchFrame.rewind();
+        return MessageCodec.decode(this.searchFrame, this.origin);
+    }
+
+    @Benchmark
+    public Message decodeSearchResponse() {
+        this.responseFrame.rewind();
+        return MessageCodec.decode(this.responseFrame, this.origin);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeSearch() {
+        this.output.clear();
+        MessageCodec.encode(this.search, this.output);
+        return this.output;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeSearchResponse() {
+        this.output.clear();
+        MessageCodec.encode(this.response, this.output);
+        return this.output;
+    }
+
+    @Benchmark
+    public String formatSearchCommand() {
+        return String.format(
+            Commands.SEARCH,
+            this.search.initiatorIp,
+            this.search.initiatorPort,
+            this.search.query,
+            this.search.hops,
+            this.search.searchId);
+    }
+
+    @Benchmark
+    public String formatSearchResponse() {
+        return String.format(
+            CommandResponses.SEROK,
+            this.response.fileCount,
+            this.response.fileHostIp,
+            this.response.fileHostPort,
+            this.response.hops,
+            String.join(", ", this.response.fileNames));
+    }
+
+    private static ByteBuffer encoded(Message message) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        MessageCodec.encode(message, buffer);
+        buffer.flip();
+        ByteBuffer frame = ByteBuffer.allocate(buffer.remaining());
+        frame.put(buffer).flip();
+        return frame;
+    }
+}
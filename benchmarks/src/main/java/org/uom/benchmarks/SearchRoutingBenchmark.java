@@ -0,0 +1,64 @@
+package org.uom.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.domain.Neighbour;
+import org.uom.domain.Node;
+
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSupport.LOGBACK_CONFIG)
+public class SearchRoutingBenchmark {
+    @Param({"8", "64", "512"})
+    public int neighbourCount;
+
+    @Param({"1000", "4000"})
+    public int cachedFiles;
+
+    private Node node;
+    private Endpoint initiator;
+    private String cachedQuery;
+    private String uncachedQuery;
+    private long searchId;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        this.node = BenchmarkSupport.newNode(new BenchmarkSupport.NullTransport(40001));
+        for (int i = 0; i < this.neighbourCount; i++) {
+            this.node.addNeighbour("10.1." + (i >> 8) + "." + (i & 0xFF), 50000 + i);
+        }
+
+        List<String> catalog = BenchmarkSupport.catalog(this.cachedFiles, 7);
+        List<Neighbour> neighbours = this.node.getNeighbours();
+        for (int i = 0; i < catalog.size(); i++) {
+            this.node.cacheFileNameForNode(catalog.get(i), neighbours.get(i % neighbours.size()).endpoint());
+        }
+
+        this.initiator = EndpointRegistry.getDefault().get("10.2.0.1", 60000);
+        this.cachedQuery = catalog.get(catalog.size() / 2);
+        this.uncachedQuery = "no such file anywhere";
+    }
+
+    @Benchmark
+    public List<Neighbour> getNodesWithFile() {
+        return this.node.getNodesWithFile(this.cachedQuery);
+    }
+
+    @Benchmark
+    public void forwardSearchCached() {
+        this.node.forwardSearch(this.cachedQuery, this.initiator, 4, ++this.searchId);
+    }
+
+    @Benchmark
+    public void forwardSearchFlood() {
+        this.node.forwardSearch(this.uncachedQuery, this.initiator, Integer.MAX_VALUE, ++this.searchId);
+    }
+}
@@ -0,0 +1,98 @@
+package org.uom.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.communication.MessageDispatcher;
+import org.uom.communication.MessageReceiver;
+import org.uom.model.message.Message;
+import org.uom.model.message.SearchMessage;
+import org.uom.model.message.SocketMessage;
+
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of a burst of messages from a {@link MessageDispatcher} to a {@link MessageReceiver} over
+ * loopback. Each operation is one message; lost datagrams are counted rather than waited for, and reported
+ * as the {@code lostDatagrams} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSupport.LOGBACK_CONFIG)
+public class TransportThroughputBenchmark {
+    private static final int BURST = 64;
+
+    @Param({"false", "true"})
+    public boolean batchSends;
+
+    private DatagramSocket senderSocket;
+    private DatagramSocket receiverSocket;
+    private BlockingQueue<SocketMessage> sendQueue;
+    private BlockingQueue<Message> receiveQueue;
+    private MessageDispatcher dispatcher;
+    private MessageReceiver receiver;
+    private SocketMessage message;
+
+    @Setup
+    public void setup() throws SocketException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        this.senderSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+        this.receiverSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+        this.receiverSocket.setReceiveBufferSize(4 * 1024 * 1024);
+
+        this.sendQueue = new LinkedBlockingQueue<>();
+        this.receiveQueue = new LinkedBlockingQueue<>();
+        this.dispatcher = new MessageDispatcher(this.sendQueue, this.senderSocket, this.batchSends);
+        this.receiver = new MessageReceiver(this.receiveQueue, this.receiverSocket);
+        this.dispatcher.start();
+        this.receiver.start();
+
+        Endpoint target = EndpointRegistry.getDefault().get(
+            loopback.getHostAddress(),
+            this.receiverSocket.getLocalPort());
+        Endpoint initiator = EndpointRegistry.getDefault().get("10.0.0.1", 50000);
+        this.message = new SocketMessage(target, new SearchMessage(initiator, "Microsoft Office 2010", 3, 1L));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.dispatcher.stopDispatching();
+        this.receiver.stopReceiving();
+        this.senderSocket.close();
+        this.receiverSocket.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void roundTrip(Losses losses) throws InterruptedException {
+        for (int i = 0; i < BURST; i++) {
+            this.sendQueue.put(this.message);
+        }
+        for (int i = 0; i < BURST; i++) {
+            if (this.receiveQueue.poll(100, TimeUnit.MILLISECONDS) == null) {
+                losses.lostDatagrams += BURST - i;
+                return;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Losses {
+        public long lostDatagrams;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.lostDatagrams = 0;
+        }
+    }
+}
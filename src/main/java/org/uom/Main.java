@@ -2,10 +2,22 @@ package org.uom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uom.communication.NioEventLoopGroup;
+import org.uom.communication.NioTransport;
+import org.uom.communication.ThreadedTransport;
+import org.uom.content.ContentServer;
 import org.uom.domain.Node;
+import org.uom.metrics.MetricsHttpServer;
+import org.uom.metrics.MetricsMBean;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.utils.Constants.Metadata;
 
+import javax.management.JMException;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,19 +26,75 @@ public class Main {
 
     public static void main(String[] args) {
         List<Node> nodes = new ArrayList<>();
+        List<NioEventLoopGroup> eventLoopGroups = new ArrayList<>();
+        List<ContentServer> contentServers = new ArrayList<>();
+        MetricsHttpServer metricsServer = startMetrics();
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.info("[Shutdown] Shutting down nodes...");
             nodes.forEach(Node::stop);
+            contentServers.forEach(ContentServer::stop);
+            eventLoopGroups.forEach(NioEventLoopGroup::shutdown);
+            if (metricsServer != null) {
+                metricsServer.stop();
+            }
         }));
 
         try {
             String bSrvIpAddress = InetAddress.getLocalHost().getHostAddress();
+            NioEventLoopGroup eventLoopGroup = null;
+            if (Metadata.USE_NIO_TRANSPORT) {
+                eventLoopGroup = new NioEventLoopGroup(Metadata.IO_THREADS);
+                eventLoopGroups.add(eventLoopGroup);
+            }
+
+            Path snapshotDir = Files.createDirectories(Path.of(Metadata.NODE_SNAPSHOT_DIR));
             for (int i = 1; i <= 3; i++) {
-                nodes.add(new Node(bSrvIpAddress, 55555));
+                Path snapshotFile = snapshotDir.resolve("node-" + i + ".snapshot");
+                if (eventLoopGroup != null) {
+                    nodes.add(new Node(bSrvIpAddress, Metadata.BOOTSTRAP_PORT, new NioTransport(eventLoopGroup), snapshotFile));
+                } else {
+                    nodes.add(new Node(bSrvIpAddress, Metadata.BOOTSTRAP_PORT, new ThreadedTransport(), snapshotFile));
+                }
+            }
+
+            if (Metadata.CONTENT_SERVER) {
+                for (Node node : nodes) {
+                    ContentServer server = new ContentServer(
+                        node.getContentStore(),
+                        node.getPort(),
+                        Metadata.CONTENT_SERVER_THREADS,
+                        Metadata.CONTENT_TIMEOUT_MILLIS);
+                    server.start();
+                    contentServers.add(server);
+                }
             }
         } catch (IOException e) {
             LOGGER.error("[Node Failed] {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private static MetricsHttpServer startMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        if (Metadata.METRICS_JMX) {
+            try {
+                new MetricsMBean(registry).register(ManagementFactory.getPlatformMBeanServer());
+            } catch (JMException e) {
+                LOGGER.warn("[Metrics] Could not register JMX bean: {}", e.getMessage());
+            }
+        }
+
+        if (Metadata.METRICS_HTTP_PORT < 0) {
+            return null;
+        }
+        try {
+            MetricsHttpServer server = new MetricsHttpServer(registry, Metadata.METRICS_HTTP_PORT);
+            server.start();
+            LOGGER.info("[Metrics] Serving on http://localhost:{}/metrics", server.getPort());
+            return server;
+        } catch (IOException e) {
+            LOGGER.warn("[Metrics] Could not start HTTP endpoint: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.uom.bootstrap;
+
+import org.uom.communication.Endpoint;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Registered nodes, split into independently locked shards by endpoint hash so concurrent registrations rarely
+ * contend. Each shard keeps its members in a dense array with an index map, which makes add, remove and
+ * picking a random member O(1). Random picks choose a shard first and then a member, which is uniform as long
+ * as the shards are evenly filled.
+ */
+public class BootstrapRegistry {
+    private static final int RANDOM_PROBES_PER_PICK = 8;
+    private final Shard[] shards;
+    private final int mask;
+    private final int maxNodes;
+    private final AtomicInteger size;
+    private final AtomicLong version;
+
+    public BootstrapRegistry(int shardCount, int maxNodes) {
+        int count = Integer.highestOneBit(Math.max(shardCount, 1) - 1) << 1;
+        this.shards = new Shard[Math.max(count, 1)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard();
+        }
+        this.mask = this.shards.length - 1;
+        this.maxNodes = maxNodes;
+        this.size = new AtomicInteger();
+        this.version = new AtomicLong();
+    }
+
+    /**
+     * Adds the endpoint, or updates its username if it is already registered. Returns {@code false} only if
+     * the registry is full.
+     */
+    public boolean register(Endpoint endpoint, String username) {
+        Shard shard = this.shardFor(endpoint);
+        synchronized (shard) {
+            Integer index = shard.index.get(endpoint);
+            if (index != null) {
+                shard.usernames[index] = username;
+            } else {
+                if (this.size.incrementAndGet() > this.maxNodes) {
+                    this.size.decrementAndGet();
+                    return false;
+                }
+                shard.add(endpoint, username);
+            }
+        }
+        this.version.incrementAndGet();
+        return true;
+    }
+
+    public boolean unregister(Endpoint endpoint) {
+        Shard shard = this.shardFor(endpoint);
+        synchronized (shard) {
+            if (!shard.remove(endpoint)) {
+                return false;
+            }
+        }
+        this.size.decrementAndGet();
+        this.version.incrementAndGet();
+        return true;
+    }
+
+    public boolean contains(Endpoint endpoint) {
+        Shard shard = this.shardFor(endpoint);
+        synchronized (shard) {
+            return shard.index.containsKey(endpoint);
+        }
+    }
+
+    /**
+     * Fills {@code out} with distinct random members other than {@code exclude} and returns how many were
+     * found, which is less than {@code out.length} only when the registry does not hold enough nodes.
+     */
+    public int sample(Endpoint exclude, Endpoint[] out) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int found = 0;
+        for (int probe = 0; probe < out.length * RANDOM_PROBES_PER_PICK && found < out.length; probe++) {
+            Endpoint candidate = this.shards[random.nextInt(this.shards.length)].pick(random);
+            if (isCandidate(candidate, exclude, out, found)) {
+                out[found++] = candidate;
+            }
+        }
+
+        int start = random.nextInt(this.shards.length);
+        for (int i = 0; i < this.shards.length && found < out.length; i++) {
+            Shard shard = this.shards[(start + i) & this.mask];
+            synchronized (shard) {
+                for (int j = 0; j < shard.size && found < out.length; j++) {
+                    if (isCandidate(shard.endpoints[j], exclude, out, found)) {
+                        out[found++] = shard.endpoints[j];
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Counter that changes whenever the membership does, so callers can tell whether a snapshot is stale.
+     */
+    public long version() {
+        return this.version.get();
+    }
+
+    public void forEach(BiConsumer<Endpoint, String> action) {
+        for (Shard shard : this.shards) {
+            Endpoint[] endpoints;
+            String[] usernames;
+            int count;
+            synchronized (shard) {
+                count = shard.size;
+                endpoints = Arrays.copyOf(shard.endpoints, count);
+                usernames = Arrays.copyOf(shard.usernames, count);
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(endpoints[i], usernames[i]);
+            }
+        }
+    }
+
+    private Shard shardFor(Endpoint endpoint) {
+        int hash = endpoint.hashCode();
+        return this.shards[(hash ^ (hash >>> 16)) & this.mask];
+    }
+
+    private static boolean isCandidate(Endpoint candidate, Endpoint exclude, Endpoint[] chosen, int chosenCount) {
+        if (candidate == null || candidate.equals(exclude)) {
+            return false;
+        }
+        for (int i = 0; i < chosenCount; i++) {
+            if (chosen[i].equals(candidate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Shard {
+        private final Map<Endpoint, Integer> index = new HashMap<>();
+        private Endpoint[] endpoints = new Endpoint[16];
+        private String[] usernames = new String[16];
+        private int size;
+
+        void add(Endpoint endpoint, String username) {
+            if (this.size == this.endpoints.length) {
+                this.endpoints = Arrays.copyOf(this.endpoints, this.size * 2);
+                this.usernames = Arrays.copyOf(this.usernames, this.size * 2);
+            }
+            this.endpoints[this.size] = endpoint;
+            this.usernames[this.size] = username;
+            this.index.put(endpoint, this.size);
+            this.size++;
+        }
+
+        boolean remove(Endpoint endpoint) {
+            Integer index = this.index.remove(endpoint);
+            if (index == null) {
+                return false;
+            }
+
+            int last = --this.size;
+            if (index != last) {
+                this.endpoints[index] = this.endpoints[last];
+                this.usernames[index] = this.usernames[last];
+                this.index.put(this.endpoints[index], index);
+            }
+            this.endpoints[last] = null;
+            this.usernames[last] = null;
+            return true;
+        }
+
+        synchronized Endpoint pick(ThreadLocalRandom random) {
+            return this.size == 0 ? null : this.endpoints[random.nextInt(this.size)];
+        }
+    }
+}
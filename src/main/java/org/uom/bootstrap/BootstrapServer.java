@@ -0,0 +1,179 @@
+package org.uom.bootstrap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.communication.Endpoint;
+import org.uom.communication.NioEventLoopGroup;
+import org.uom.communication.NioTransport;
+import org.uom.contracts.communication.Transport;
+import org.uom.metrics.Counter;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.*;
+import org.uom.utils.Constants.MessageTypes;
+import org.uom.utils.Constants.Metadata;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bootstrap server answering {@code REG} with up to two random registered nodes and {@code UNREG} with
+ * {@code UNROK}. Requests are handled directly on the NIO event loops; with several channels the port is
+ * bound with {@code SO_REUSEPORT} so the kernel spreads a registration storm across loops. The registry is
+ * snapshotted to disk periodically and on stop, and restored on start.
+ *
+ * <p>A node that registers again from the same address is treated as having restarted: its username is
+ * updated and it gets fresh neighbours, rather than the legacy "already registered" error that would leave a
+ * restarted fleet without neighbours.
+ */
+public class BootstrapServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BootstrapServer.class);
+    private static final int ERROR_FULL = 9996;
+    private static final int ERROR_MALFORMED = 9999;
+    private final NioEventLoopGroup eventLoopGroup;
+    private final int port;
+    private final int channels;
+    private final BootstrapRegistry registry;
+    private final Path snapshotFile;
+    private final List<Transport> transports;
+    private final ScheduledExecutorService snapshotScheduler;
+    private final Counter registrations;
+    private final Counter unregistrations;
+    private long snapshotVersion = -1;
+
+    public BootstrapServer(NioEventLoopGroup eventLoopGroup, int port, int channels, BootstrapRegistry registry, Path snapshotFile) {
+        this.eventLoopGroup = eventLoopGroup;
+        this.port = port;
+        this.channels = Math.max(channels, 1);
+        this.registry = registry;
+        this.snapshotFile = snapshotFile;
+        this.transports = new ArrayList<>();
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bootstrap-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.registrations = MetricsRegistry.getDefault().counter("bootstrap.registrations");
+        this.unregistrations = MetricsRegistry.getDefault().counter("bootstrap.unregistrations");
+        MetricsRegistry.getDefault().gauge("bootstrap.nodes", registry::size);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Metadata.BOOTSTRAP_PORT;
+        Path snapshotFile = Path.of(args.length > 1 ? args[1] : Metadata.BOOTSTRAP_SNAPSHOT_FILE);
+
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(Metadata.IO_THREADS);
+        BootstrapRegistry registry = new BootstrapRegistry(Metadata.BOOTSTRAP_SHARDS, Metadata.BOOTSTRAP_MAX_NODES);
+        BootstrapServer server = new BootstrapServer(eventLoopGroup, port, Metadata.IO_THREADS, registry, snapshotFile);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            eventLoopGroup.shutdown();
+        }));
+        server.start();
+    }
+
+    public void start() throws IOException {
+        if (this.snapshotFile != null) {
+            long start = System.nanoTime();
+            int restored = RegistrySnapshot.read(this.snapshotFile, this.registry);
+            this.snapshotVersion = this.registry.version();
+            LOGGER.info("[Bootstrap] Restored {} node(s) from {} in {} ms",
+                restored, this.snapshotFile, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            this.snapshotScheduler.scheduleWithFixedDelay(
+                this::snapshot,
+                Metadata.BOOTSTRAP_SNAPSHOT_INTERVAL_SECONDS,
+                Metadata.BOOTSTRAP_SNAPSHOT_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        }
+
+        for (int i = 0; i < this.channels; i++) {
+            NioTransport transport;
+            try {
+                transport = new NioTransport(this.eventLoopGroup, this.port, this.channels > 1);
+            } catch (BindException e) {
+                if (i == 0) {
+                    throw e;
+                }
+                LOGGER.warn("[Bootstrap] Port sharing unavailable, serving on {} channel(s)", i);
+                break;
+            }
+            transport.start(message -> this.handle(transport, message));
+            this.transports.add(transport);
+        }
+        LOGGER.info("[Bootstrap] Listening on port {} with {} channel(s)", this.port, this.transports.size());
+    }
+
+    public void stop() {
+        this.transports.forEach(Transport::stop);
+        this.snapshotScheduler.shutdown();
+        if (this.snapshotFile != null) {
+            this.snapshot();
+        }
+    }
+
+    public BootstrapRegistry getRegistry() {
+        return this.registry;
+    }
+
+    private void handle(Transport transport, Message message) {
+        if (message instanceof RegisterMessage register) {
+            Message response = register.resType == MessageTypes.UNREG
+                ? this.unregister(register)
+                : this.register(register);
+            transport.send(new SocketMessage(message.origin, response));
+        }
+    }
+
+    private RegisterResponse register(RegisterMessage message) {
+        Endpoint[] neighbours = new Endpoint[2];
+        int count = this.registry.sample(message.endpoint, neighbours);
+        if (!this.registry.register(message.endpoint, message.username)) {
+            LOGGER.warn("[Bootstrap] Registry full, rejected {}", message.endpoint);
+            return new RegisterResponse(ERROR_FULL, null, 0, null, 0);
+        }
+        this.registrations.increment();
+
+        if (count == 0) {
+            return new RegisterResponse(0, null, 0, null, 0);
+        }
+        if (count == 1) {
+            return new RegisterResponse(1, neighbours[0].ipAddress(), neighbours[0].port(), null, 0);
+        }
+        return new RegisterResponse(
+            2,
+            neighbours[0].ipAddress(),
+            neighbours[0].port(),
+            neighbours[1].ipAddress(),
+            neighbours[1].port());
+    }
+
+    private UnregisterResponse unregister(RegisterMessage message) {
+        if (!this.registry.unregister(message.endpoint)) {
+            return new UnregisterResponse(ERROR_MALFORMED);
+        }
+        this.unregistrations.increment();
+        return new UnregisterResponse(0);
+    }
+
+    private synchronized void snapshot() {
+        long version = this.registry.version();
+        if (version == this.snapshotVersion) {
+            return;
+        }
+
+        try {
+            int written = RegistrySnapshot.write(this.registry, this.snapshotFile);
+            this.snapshotVersion = version;
+            LOGGER.debug("[Bootstrap] Snapshot of {} node(s) written to {}", written, this.snapshotFile);
+        } catch (IOException e) {
+            LOGGER.error("[Bootstrap] Snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.uom.bootstrap;
+
+import org.uom.communication.EndpointRegistry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Saves and restores a {@link BootstrapRegistry} as {@code <ip> <port> <username>} lines. A snapshot is
+ * written to a temporary file and moved over the previous one, so a crash mid-write never leaves a torn file.
+ */
+public final class RegistrySnapshot {
+    private RegistrySnapshot() {
+    }
+
+    public static int write(BootstrapRegistry registry, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] count = new int[1];
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            IOException[] failure = new IOException[1];
+            registry.forEach((endpoint, username) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    writer.write(endpoint.ipAddress());
+                    writer.write(' ');
+                    writer.write(Integer.toString(endpoint.port()));
+                    writer.write(' ');
+                    writer.write(username);
+                    writer.newLine();
+                    count[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return count[0];
+    }
+
+    /**
+     * Loads a snapshot into the registry and returns the number of nodes restored. A missing file restores
+     * nothing; malformed lines are skipped.
+     */
+    public static int read(Path file, BootstrapRegistry registry) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        int count = 0;
+        EndpointRegistry endpoints = EndpointRegistry.getDefault();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ", 3);
+                if (fields.length != 3) {
+                    continue;
+                }
+                try {
+                    if (registry.register(endpoints.get(fields[0], Integer.parseInt(fields[1])), fields[2])) {
+                        count++;
+                    }
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,330 @@
+package org.uom.communication;
+
+import org.uom.membership.MemberState;
+import org.uom.membership.MemberUpdate;
+import org.uom.model.message.*;
+import org.uom.search.BloomFilter;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of the high-volume node-to-node messages, used towards peers that negotiated it on
+ * {@code JOIN}. A frame is a marker byte that can never start a text frame, the body length as a varint, a
+ * one-byte message type and the fields: IPv4 endpoints packed into six bytes, ids as eight raw bytes, counts and
+ * hop numbers as varints and strings as a varint length followed by UTF-8. Messages of other types, or that
+ * name an endpoint that is not IPv4, are left to the text protocol, frame by frame.
+ */
+final class BinaryCodec {
+    static final byte MARKER = (byte) 0xB2;
+    private static final int LENGTH_RESERVE = 3;
+    private static final byte SEARCH = 1;
+    private static final byte SEARCH_RESPONSE = 2;
+    private static final byte WALK_CHECK = 3;
+    private static final byte WALK_CHECK_OK = 4;
+    private static final byte PING = 5;
+    private static final byte PING_OK = 6;
+    private static final byte PING_REQUEST = 7;
+    private static final byte ROUTING_SUMMARY = 8;
+    private static final int WALK_FLAG = 1;
+    private static final int SEARCH_ID_FLAG = 1 << 1;
+    private static final int BINARY_REPLIES_FLAG = 1 << 2;
+
+    private BinaryCodec() {
+    }
+
+    static boolean isFrame(ByteBuffer buffer) {
+        return buffer.hasRemaining() && buffer.get(buffer.position()) == MARKER;
+    }
+
+    /**
+     * Whether the message has a binary form; if not it has to go as text.
+     */
+    static boolean canEncode(Message message) {
+        if (message instanceof SearchMessage search) {
+            return isPacked(search.initiator) && search.hops >= 0;
+        } else if (message instanceof SearchResponse response) {
+            return isPacked(response.fileHost) && response.fileCount >= 0 && response.hops >= 0;
+        } else if (message instanceof Ping ping) {
+            return isPacked(ping.updates);
+        } else if (message instanceof PingResponse pingResponse) {
+            return isPacked(pingResponse.updates);
+        } else if (message instanceof PingRequest pingRequest) {
+            return isPacked(pingRequest.target) && isPacked(pingRequest.updates);
+        }
+        return message instanceof WalkCheck || message instanceof WalkCheckResponse || message instanceof RoutingSummary;
+    }
+
+    /**
+     * Appends the framed message at the buffer's position, which must satisfy {@link #canEncode}.
+     *
+     * @throws BufferOverflowException if the frame does not fit in the buffer
+     */
+    static void encode(Message message, ByteBuffer buffer) {
+        int frameStart = buffer.position();
+        int bodyStart = frameStart + 1 + LENGTH_RESERVE;
+        if (buffer.limit() < bodyStart) {
+            throw new BufferOverflowException();
+        }
+        buffer.position(bodyStart);
+        encodeBody(message, buffer);
+
+        int bodyEnd = buffer.position();
+        int bodyLength = bodyEnd - bodyStart;
+        buffer.position(frameStart);
+        buffer.put(MARKER);
+        putVarint(buffer, bodyLength);
+        if (buffer.position() < bodyStart) {
+            buffer.put(buffer.position(), buffer, bodyStart, bodyLength);
+        }
+        buffer.position(buffer.position() + bodyLength);
+    }
+
+    /**
+     * Decodes the frame at the buffer's position and leaves the position at its end.
+     *
+     * @throws IllegalArgumentException if the frame is truncated, malformed or of an unknown type
+     */
+    static Message decode(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int frameEnd;
+        try {
+            buffer.get();
+            int length = getVarint(buffer);
+            if (length > buffer.remaining()) {
+                throw new IllegalArgumentException("Binary frame of " + length + " bytes is truncated");
+            }
+            frameEnd = buffer.position() + length;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary frame header");
+        }
+
+        buffer.limit(frameEnd);
+        try {
+            return decodeBody(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated binary frame");
+        } finally {
+            buffer.limit(limit).position(frameEnd);
+        }
+    }
+
+    private static void encodeBody(Message message, ByteBuffer buffer) {
+        if (message instanceof SearchMessage search) {
+            buffer.put(SEARCH);
+            int flags = (search.mode == SearchMode.WALK ? WALK_FLAG : 0)
+                | (search.searchId != 0 ? SEARCH_ID_FLAG : 0)
+                | (search.binaryReplies ? BINARY_REPLIES_FLAG : 0);
+            buffer.put((byte) flags);
+            putEndpoint(buffer, search.initiator);
+            putVarint(buffer, search.hops);
+            if (search.searchId != 0) {
+                buffer.putLong(search.searchId);
+            }
+            putString(buffer, search.query);
+        } else if (message instanceof SearchResponse response) {
+            buffer.put(SEARCH_RESPONSE);
+            putVarint(buffer, response.fileCount);
+            putEndpoint(buffer, response.fileHost);
+            putVarint(buffer, response.hops);
+            putVarint(buffer, response.fileNames.length);
+            for (String fileName : response.fileNames) {
+                putString(buffer, fileName);
+            }
+        } else if (message instanceof WalkCheck check) {
+            buffer.put(WALK_CHECK);
+            buffer.putLong(check.searchId);
+        } else if (message instanceof WalkCheckResponse checkResponse) {
+            buffer.put(WALK_CHECK_OK);
+            buffer.putLong(checkResponse.searchId);
+            buffer.put((byte) (checkResponse.proceed ? 1 : 0));
+        } else if (message instanceof Ping ping) {
+            buffer.put(PING);
+            buffer.putLong(ping.probeId);
+            putMemberUpdates(buffer, ping.updates);
+        } else if (message instanceof PingResponse pingResponse) {
+            buffer.put(PING_OK);
+            buffer.putLong(pingResponse.probeId);
+            putMemberUpdates(buffer, pingResponse.updates);
+        } else if (message instanceof PingRequest pingRequest) {
+            buffer.put(PING_REQUEST);
+            buffer.putLong(pingRequest.probeId);
+            putEndpoint(buffer, pingRequest.target);
+            putMemberUpdates(buffer, pingRequest.updates);
+        } else if (message instanceof RoutingSummary summary) {
+            buffer.put(ROUTING_SUMMARY);
+            putVarint(buffer, summary.levels[0].bits());
+            putVarint(buffer, summary.levels[0].hashes());
+            putVarint(buffer, summary.levels.length);
+            for (BloomFilter level : summary.levels) {
+                buffer.put(level.toBytes());
+            }
+        } else {
+            throw new IllegalArgumentException("No binary form for " + message.resType);
+        }
+    }
+
+    private static Message decodeBody(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case SEARCH -> {
+                int flags = buffer.get();
+                Endpoint initiator = getEndpoint(buffer);
+                int hops = getVarint(buffer);
+                long searchId = (flags & SEARCH_ID_FLAG) != 0 ? buffer.getLong() : 0;
+                SearchMode mode = (flags & WALK_FLAG) != 0 ? SearchMode.WALK : SearchMode.FLOOD;
+                if (mode == SearchMode.WALK && searchId == 0) {
+                    throw new IllegalArgumentException("Walk search without a search id");
+                }
+                SearchMessage search = new SearchMessage(initiator, getString(buffer), hops, searchId, mode);
+                search.binaryReplies = (flags & BINARY_REPLIES_FLAG) != 0;
+                return search;
+            }
+            case SEARCH_RESPONSE -> {
+                int fileCount = getVarint(buffer);
+                Endpoint fileHost = getEndpoint(buffer);
+                int hops = getVarint(buffer);
+                String[] fileNames = new String[checkCount(getVarint(buffer), buffer)];
+                for (int i = 0; i < fileNames.length; i++) {
+                    fileNames[i] = getString(buffer);
+                }
+                return new SearchResponse(fileCount, fileHost, hops, fileNames);
+            }
+            case WALK_CHECK -> {
+                return new WalkCheck(buffer.getLong());
+            }
+            case WALK_CHECK_OK -> {
+                return new WalkCheckResponse(buffer.getLong(), buffer.get() != 0);
+            }
+            case PING -> {
+                return new Ping(buffer.getLong(), getMemberUpdates(buffer));
+            }
+            case PING_OK -> {
+                return new PingResponse(buffer.getLong(), getMemberUpdates(buffer));
+            }
+            case PING_REQUEST -> {
+                return new PingRequest(buffer.getLong(), getEndpoint(buffer), getMemberUpdates(buffer));
+            }
+            case ROUTING_SUMMARY -> {
+                int bits = getVarint(buffer);
+                int hashes = getVarint(buffer);
+                int depth = getVarint(buffer);
+                if (bits <= 0 || bits % Byte.SIZE != 0 || depth <= 0 || (long) depth * bits / Byte.SIZE > buffer.remaining()) {
+                    throw new IllegalArgumentException("Invalid routing summary of " + depth + " x " + bits + " bits");
+                }
+                BloomFilter[] levels = new BloomFilter[depth];
+                for (int i = 0; i < depth; i++) {
+                    byte[] bytes = new byte[bits / Byte.SIZE];
+                    buffer.get(bytes);
+                    levels[i] = BloomFilter.fromBytes(bytes, hashes);
+                }
+                return new RoutingSummary(levels);
+            }
+            default -> throw new IllegalArgumentException("Unknown binary message type: " + type);
+        }
+    }
+
+    private static boolean isPacked(Endpoint endpoint) {
+        return endpoint.key() != Endpoint.NO_KEY;
+    }
+
+    private static boolean isPacked(MemberUpdate[] updates) {
+        for (MemberUpdate update : updates) {
+            if (!isPacked(update.member())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putEndpoint(ByteBuffer buffer, Endpoint endpoint) {
+        long key = endpoint.key();
+        buffer.putShort((short) (key >>> 32));
+        buffer.putInt((int) key);
+    }
+
+    private static Endpoint getEndpoint(ByteBuffer buffer) {
+        long key = (buffer.getShort() & 0xFFFFL) << 32 | (buffer.getInt() & 0xFFFFFFFFL);
+        return EndpointRegistry.getDefault().get((int) (key >>> 16), (int) key & 0xFFFF);
+    }
+
+    private static void putMemberUpdates(ByteBuffer buffer, MemberUpdate[] updates) {
+        putVarint(buffer, updates.length);
+        for (MemberUpdate update : updates) {
+            putEndpoint(buffer, update.member());
+            buffer.put((byte) update.state().ordinal());
+            putVarint(buffer, update.incarnation());
+        }
+    }
+
+    private static MemberUpdate[] getMemberUpdates(ByteBuffer buffer) {
+        MemberState[] states = MemberState.values();
+        MemberUpdate[] updates = new MemberUpdate[checkCount(getVarint(buffer), buffer)];
+        for (int i = 0; i < updates.length; i++) {
+            Endpoint member = getEndpoint(buffer);
+            int state = buffer.get();
+            if (state < 0 || state >= states.length) {
+                throw new IllegalArgumentException("Invalid member state: " + state);
+            }
+            updates[i] = new MemberUpdate(member, states[state], getVarint(buffer));
+        }
+        return updates;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String of " + length + " bytes overruns the frame");
+        }
+        String value = buffer.hasArray()
+            ? new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8)
+            : StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Every element takes at least a byte, so a count beyond the bytes left is malformed, and is caught before
+     * an array that size is allocated.
+     */
+    private static int checkCount(int count, ByteBuffer buffer) {
+        if (count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative varint: " + value);
+        }
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Varint out of range");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
@@ -0,0 +1,36 @@
+package org.uom.communication;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class BufferPool {
+    public static final BufferPool DEFAULT = new BufferPool(1024, 65536, false);
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final int bufferSize;
+    private final boolean direct;
+
+    public BufferPool(int maxPooledBuffers, int bufferSize, boolean direct) {
+        this.buffers = new ArrayBlockingQueue<>(maxPooledBuffers);
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = this.buffers.poll();
+        if (buffer == null) {
+            return this.direct ? ByteBuffer.allocateDirect(this.bufferSize) : ByteBuffer.allocate(this.bufferSize);
+        }
+        return buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == this.bufferSize && buffer.isDirect() == this.direct) {
+            this.buffers.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+}
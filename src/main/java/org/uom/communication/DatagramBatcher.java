@@ -0,0 +1,148 @@
+package org.uom.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.model.message.SocketMessage;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Packs queued messages into as few datagrams as possible. Frames for the same peer are appended back to back,
+ * in queue order, until the next one would exceed the datagram size; the receiver splits them again using the
+ * frames' length prefixes. A batch that could not be fully written is kept and resumed on the next call.
+ */
+class DatagramBatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatagramBatcher.class);
+    private final int maxMessages;
+    private final List<SocketMessage> batch;
+    private final boolean[] sent;
+    private final int[] packed;
+    private final ByteBuffer frame;
+    private final ByteBuffer datagram;
+    private int remaining;
+
+    DatagramBatcher(int maxMessages, int maxDatagramSize) {
+        this.maxMessages = maxMessages;
+        this.batch = new ArrayList<>(maxMessages);
+        this.sent = new boolean[maxMessages];
+        this.packed = new int[maxMessages];
+        this.frame = ByteBuffer.allocate(BufferPool.DEFAULT.getBufferSize());
+        this.datagram = ByteBuffer.allocate(maxDatagramSize);
+    }
+
+    boolean isEmpty() {
+        return this.remaining == 0;
+    }
+
+    boolean isFull() {
+        return this.batch.size() == this.maxMessages;
+    }
+
+    void add(SocketMessage message) {
+        this.sent[this.batch.size()] = false;
+        this.batch.add(message);
+        this.remaining++;
+    }
+
+    int fill(Queue<SocketMessage> queue) {
+        int added = 0;
+        SocketMessage message;
+        while (!this.isFull() && (message = queue.poll()) != null) {
+            this.add(message);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Sends every message in the batch. Returns {@code false} if the sender could not accept a datagram, in
+     * which case the unsent messages stay in the batch.
+     */
+    boolean flush(DatagramSender sender) {
+        for (int i = 0; i < this.batch.size(); i++) {
+            if (this.sent[i]) {
+                continue;
+            }
+
+            SocketMessage first = this.batch.get(i);
+            if (!this.encodeFrame(i, first)) {
+                continue;
+            }
+
+            int packedCount = 0;
+            ByteBuffer packet;
+            if (this.frame.remaining() > this.datagram.capacity()) {
+                this.packed[packedCount++] = i;
+                packet = this.frame;
+            } else {
+                this.datagram.clear();
+                this.datagram.put(this.frame);
+                this.packed[packedCount++] = i;
+
+                for (int j = i + 1; j < this.batch.size(); j++) {
+                    SocketMessage next = this.batch.get(j);
+                    if (this.sent[j] || !next.endpoint.equals(first.endpoint)) {
+                        continue;
+                    }
+                    if (!this.encodeFrame(j, next)) {
+                        continue;
+                    }
+                    if (this.frame.remaining() > this.datagram.remaining()) {
+                        break;
+                    }
+                    this.datagram.put(this.frame);
+                    this.packed[packedCount++] = j;
+                }
+                packet = this.datagram.flip();
+            }
+
+            try {
+                if (!sender.send(packet, first.endpoint)) {
+                    return false;
+                }
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("[Batch Dispatched (--> {})] {} message(s) in {} bytes", first.endpoint, packedCount, packet.limit());
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("[Dispatch Failed ({})] {}", first.endpoint, e.getMessage(), e);
+            }
+            for (int k = 0; k < packedCount; k++) {
+                this.markSent(this.packed[k]);
+            }
+        }
+
+        this.batch.clear();
+        this.remaining = 0;
+        return true;
+    }
+
+    private boolean encodeFrame(int index, SocketMessage message) {
+        this.frame.clear();
+        try {
+            MessageCodec.encode(message, this.frame);
+        } catch (BufferOverflowException e) {
+            LOGGER.error("[Dispatch Failed ({})] Message too large: {}", message.endpoint, message.body.resType);
+            this.markSent(index);
+            return false;
+        }
+        this.frame.flip();
+        return true;
+    }
+
+    private void markSent(int index) {
+        if (!this.sent[index]) {
+            this.sent[index] = true;
+            this.remaining--;
+        }
+    }
+
+    @FunctionalInterface
+    interface DatagramSender {
+        boolean send(ByteBuffer datagram, Endpoint endpoint) throws IOException;
+    }
+}
@@ -0,0 +1,89 @@
+package org.uom.communication;
+
+import org.uom.utils.Constants.Metadata;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Peer address handed out by {@link EndpointRegistry}. IPv4 endpoints are identified by a packed
+ * {@code ip << 16 | port} key, so comparing two of them is a single {@code long} comparison, and their socket
+ * address is built once without a name lookup. Host names are resolved lazily and re-resolved after
+ * {@link Metadata#ENDPOINT_RESOLVE_TTL_SECONDS}.
+ */
+public final class Endpoint {
+    static final long NO_KEY = -1L;
+    private final String ipAddress;
+    private final int port;
+    private final long key;
+    private volatile InetSocketAddress socketAddress;
+    private volatile long resolvedAt;
+
+    Endpoint(String ipAddress, int port, long key) {
+        this.ipAddress = ipAddress;
+        this.port = port;
+        this.key = key;
+    }
+
+    static long pack(int ipv4, int port) {
+        return ((ipv4 & 0xFFFFFFFFL) << 16) | (port & 0xFFFF);
+    }
+
+    public String ipAddress() {
+        return this.ipAddress;
+    }
+
+    public int port() {
+        return this.port;
+    }
+
+    public long key() {
+        return this.key;
+    }
+
+    public InetSocketAddress socketAddress() {
+        InetSocketAddress address = this.socketAddress;
+        if (address != null && (this.key != NO_KEY || System.nanoTime() - this.resolvedAt < resolveTtlNanos())) {
+            return address;
+        }
+
+        try {
+            address = new InetSocketAddress(InetAddress.getByName(this.ipAddress), this.port);
+        } catch (UnknownHostException e) {
+            address = InetSocketAddress.createUnresolved(this.ipAddress, this.port);
+        }
+        this.resolvedAt = System.nanoTime();
+        this.socketAddress = address;
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Endpoint other)) {
+            return false;
+        }
+        if (this.key != NO_KEY || other.key != NO_KEY) {
+            return this.key == other.key;
+        }
+        return this.port == other.port && this.ipAddress.equals(other.ipAddress);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.key != NO_KEY ? Long.hashCode(this.key) : this.ipAddress.hashCode() * 31 + this.port;
+    }
+
+    @Override
+    public String toString() {
+        return this.ipAddress + ":" + this.port;
+    }
+
+    private static long resolveTtlNanos() {
+        return TimeUnit.SECONDS.toNanos(Metadata.ENDPOINT_RESOLVE_TTL_SECONDS);
+    }
+}
@@ -0,0 +1,245 @@
+package org.uom.communication;
+
+import org.uom.utils.Constants.Metadata;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interns peer endpoints so each address is parsed and resolved once per process. IPv4 endpoints live in
+ * lock-striped open-addressing tables keyed by their packed {@code long}, which lets the receive path and the
+ * codec look them up without allocating; other host names fall back to a map keyed by {@code host:port}.
+ *
+ * <p>The registry holds at most about {@link Metadata#ENDPOINT_REGISTRY_CAPACITY} endpoints, so churn or spoofed
+ * source addresses cannot grow it without bound. Each segment keeps two generations: an endpoint found in the
+ * previous one moves to the current one, and a full current generation replaces the previous one, so
+ * endpoints not seen for a generation are forgotten. An endpoint looked up after that is a new instance equal
+ * to the old one.
+ */
+public final class EndpointRegistry {
+    private static final EndpointRegistry DEFAULT = new EndpointRegistry();
+    private static final int SEGMENTS = 16;
+    private final Segment[] segments;
+    private final Map<String, Endpoint> hostEndpoints;
+
+    public EndpointRegistry() {
+        this(Metadata.ENDPOINT_REGISTRY_CAPACITY);
+    }
+
+    public EndpointRegistry(int capacity) {
+        int generationSize = Math.max(capacity / SEGMENTS / 2, 1);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment(generationSize);
+        }
+        int maxHosts = Math.max(capacity / SEGMENTS, 1);
+        this.hostEndpoints = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Endpoint> eldest) {
+                return this.size() > maxHosts;
+            }
+        };
+    }
+
+    public static EndpointRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Endpoint get(String ipAddress, int port) {
+        long ipv4 = parseIpv4(ipAddress);
+        if (ipv4 >= 0) {
+            return this.get((int) ipv4, port, ipAddress);
+        }
+        synchronized (this.hostEndpoints) {
+            return this.hostEndpoints.computeIfAbsent(
+                ipAddress + ":" + port, k -> new Endpoint(ipAddress, port, Endpoint.NO_KEY));
+        }
+    }
+
+    public Endpoint get(InetSocketAddress address) {
+        if (address.getAddress() instanceof Inet4Address inet4Address) {
+            byte[] bytes = inet4Address.getAddress();
+            int ipv4 = (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+            return this.get(ipv4, address.getPort(), null);
+        }
+        return this.get(address.getAddress().getHostAddress(), address.getPort());
+    }
+
+    public Endpoint get(int ipv4, int port) {
+        return this.get(ipv4, port, null);
+    }
+
+    public int size() {
+        int size;
+        synchronized (this.hostEndpoints) {
+            size = this.hostEndpoints.size();
+        }
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.current.count + segment.previous.count;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 literal, returning it as an unsigned value or {@code -1} if it is not one.
+     */
+    static long parseIpv4(CharSequence value) {
+        long address = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (octet < 0 || ++dots > 3) {
+                    return -1;
+                }
+                address = (address << 8) | octet;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || dots != 3) {
+            return -1;
+        }
+        return (address << 8) | octet;
+    }
+
+    static String formatIpv4(int ipv4) {
+        return (ipv4 >>> 24) + "." + ((ipv4 >>> 16) & 0xFF) + "." + ((ipv4 >>> 8) & 0xFF) + "." + (ipv4 & 0xFF);
+    }
+
+    private Endpoint get(int ipv4, int port, String ipAddress) {
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Port out of range: " + port);
+        }
+        long key = Endpoint.pack(ipv4, port);
+        long hash = key * 0x9E3779B97F4A7C15L;
+        Segment segment = this.segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            return segment.getOrCreate(key, (int) hash, ipv4, port, ipAddress);
+        }
+    }
+
+    private static class Segment {
+        private final int generationSize;
+        private Table current;
+        private Table previous;
+
+        private Segment(int generationSize) {
+            this.generationSize = generationSize;
+            this.current = new Table();
+            this.previous = new Table();
+        }
+
+        private Endpoint getOrCreate(long key, int hash, int ipv4, int port, String ipAddress) {
+            Endpoint endpoint = this.current.get(key, hash);
+            if (endpoint != null) {
+                return endpoint;
+            }
+
+            endpoint = this.previous.remove(key, hash);
+            if (endpoint == null) {
+                endpoint = new Endpoint(ipAddress != null ? ipAddress : formatIpv4(ipv4), port, key);
+            }
+            if (this.current.count >= this.generationSize) {
+                this.previous = this.current;
+                this.current = new Table();
+            }
+            this.current.put(key, hash, endpoint);
+            return endpoint;
+        }
+    }
+
+    private static class Table {
+        private long[] keys = new long[64];
+        private Endpoint[] values = new Endpoint[64];
+        private int count;
+
+        private Endpoint get(long key, int hash) {
+            int mask = this.keys.length - 1;
+            int slot = hash & mask;
+            while (this.values[slot] != null) {
+                if (this.keys[slot] == key) {
+                    return this.values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private void put(long key, int hash, Endpoint endpoint) {
+            int mask = this.keys.length - 1;
+            int slot = hash & mask;
+            while (this.values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = key;
+            this.values[slot] = endpoint;
+            if (++this.count * 2 > this.keys.length) {
+                this.resize();
+            }
+        }
+
+        /**
+         * Removes the key, shifting back the entries probed past it so every remaining key stays reachable
+         * without tombstones.
+         */
+        private Endpoint remove(long key, int hash) {
+            int mask = this.keys.length - 1;
+            int slot = hash & mask;
+            while (this.values[slot] != null && this.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            Endpoint removed = this.values[slot];
+            if (removed == null) {
+                return null;
+            }
+
+            int hole = slot;
+            for (int next = (hole + 1) & mask; this.values[next] != null; next = (next + 1) & mask) {
+                int home = slotOf(this.keys[next], mask);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    this.keys[hole] = this.keys[next];
+                    this.values[hole] = this.values[next];
+                    hole = next;
+                }
+            }
+            this.values[hole] = null;
+            this.count--;
+            return removed;
+        }
+
+        private void resize() {
+            long[] oldKeys = this.keys;
+            Endpoint[] oldValues = this.values;
+            this.keys = new long[oldKeys.length * 2];
+            this.values = new Endpoint[oldValues.length * 2];
+            int mask = this.keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == null) {
+                    continue;
+                }
+                int slot = slotOf(oldKeys[i], mask);
+                while (this.values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+
+        private static int slotOf(long key, int mask) {
+            return (int) (key * 0x9E3779B97F4A7C15L) & mask;
+        }
+    }
+}
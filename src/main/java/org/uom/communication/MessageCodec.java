@@ -0,0 +1,777 @@
+package org.uom.communication;
+
+import org.uom.membership.MemberState;
+import org.uom.membership.MemberUpdate;
+import org.uom.model.message.*;
+import org.uom.search.BloomFilter;
+import org.uom.utils.Constants.MessageTypes;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the length-prefixed text protocol ({@code "<length> <TYPE> <fields...>"}) directly on
+ * {@link ByteBuffer}s. Numeric fields are parsed and written in place and message types are matched against
+ * pre-encoded bytes, so neither direction builds an intermediate {@code String} for the whole frame.
+ *
+ * <p>Frames in the {@link BinaryCodec binary protocol} are recognised by their first byte and decoded
+ * alongside text ones. Nodes offer {@link #PROTOCOL_BINARY} as an extra field on {@code JOIN} and confirm it
+ * on {@code JOINOK}; older nodes ignore the field, so both ends of a link with one of them stay on text.
+ */
+public final class MessageCodec {
+    public static final int PROTOCOL_TEXT = 1;
+    public static final int PROTOCOL_BINARY = 2;
+    private static final byte SPACE = ' ';
+    private static final byte COMMA = ',';
+    private static final int LENGTH_PREFIX_RESERVE = 6;
+    private static final int SEARCH_ID_DIGITS = 16;
+    private static final int MAX_PORT = 0xFFFF;
+    private static final byte WALK_MARKER = 'W';
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String[] TYPES = {
+        MessageTypes.REG,
+        MessageTypes.REGOK,
+        MessageTypes.UNREG,
+        MessageTypes.UNROK,
+        MessageTypes.JOIN,
+        MessageTypes.JOINOK,
+        MessageTypes.LEAVE,
+        MessageTypes.LEAVEOK,
+        MessageTypes.SEARCH,
+        MessageTypes.SEROK,
+        MessageTypes.WALK_CHECK,
+        MessageTypes.WALK_CHECK_OK,
+        MessageTypes.ROUTING_SUMMARY,
+        MessageTypes.DHT_FIND_NODE,
+        MessageTypes.DHT_FIND_VALUE,
+        MessageTypes.DHT_NODES,
+        MessageTypes.DHT_VALUES,
+        MessageTypes.DHT_STORE,
+        MessageTypes.RELIABLE_SEGMENT,
+        MessageTypes.RELIABLE_ACK,
+        MessageTypes.PING,
+        MessageTypes.PING_REQUEST,
+        MessageTypes.PING_OK
+    };
+    private static final byte[][] TYPE_BYTES = new byte[TYPES.length][];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_BYTES[i] = TYPES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Skips any padding before the next frame and returns whether the buffer holds another frame. A datagram
+     * may carry several frames back to back when the sender batches messages for the same peer.
+     */
+    public static boolean hasFrame(ByteBuffer buffer) {
+        int position = buffer.position();
+        while (position < buffer.limit() && isDelimiter(buffer.get(position))) {
+            position++;
+        }
+        buffer.position(position);
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Decodes the frame at the buffer's position. The frame ends after the number of bytes given by its
+     * length prefix, or at the buffer's limit if the prefix claims more; the buffer's position is left at the
+     * end of the frame.
+     *
+     * @throws IllegalArgumentException if the frame is malformed or of an unknown type
+     */
+    public static Message decode(ByteBuffer buffer, Endpoint origin) {
+        if (BinaryCodec.isFrame(buffer)) {
+            Message message = BinaryCodec.decode(buffer);
+            message.setOrigin(origin);
+            return message;
+        }
+
+        int limit = buffer.limit();
+        int length = readInt(buffer);
+        int bodyStart = buffer.position() + 1;
+        int frameEnd = length >= 0 && length <= limit - bodyStart ? bodyStart + length : limit;
+
+        buffer.limit(frameEnd);
+        try {
+            Message message = decodeBody(buffer);
+            message.setOrigin(origin);
+            return message;
+        } finally {
+            buffer.limit(limit).position(frameEnd);
+        }
+    }
+
+    /**
+     * Appends the framed message in binary if it is {@link SocketMessage#binary marked} for it and has a binary
+     * form, and in text otherwise.
+     *
+     * @throws java.nio.BufferOverflowException if the frame does not fit in the buffer
+     */
+    public static void encode(SocketMessage message, ByteBuffer buffer) {
+        if (message.binary && BinaryCodec.canEncode(message.body)) {
+            BinaryCodec.encode(message.body, buffer);
+        } else {
+            encode(message.body, buffer);
+        }
+    }
+
+    /**
+     * Appends the framed message at the buffer's position and advances the position past the frame.
+     *
+     * @throws java.nio.BufferOverflowException if the frame does not fit in the buffer
+     */
+    public static void encode(Message message, ByteBuffer buffer) {
+        int frameStart = buffer.position();
+        int bodyStart = frameStart + LENGTH_PREFIX_RESERVE;
+        if (buffer.limit() < bodyStart) {
+            throw new BufferOverflowException();
+        }
+        buffer.position(bodyStart);
+        encodeBody(message, buffer);
+
+        int frameEnd = buffer.position();
+        int bodyLength = frameEnd - bodyStart;
+        int prefixStart = bodyStart - 1 - digitCount(bodyLength);
+        buffer.position(prefixStart);
+        putInt(buffer, bodyLength);
+        buffer.put(SPACE);
+
+        int frameLength = frameEnd - prefixStart;
+        if (prefixStart > frameStart) {
+            buffer.put(frameStart, buffer, prefixStart, frameLength);
+        }
+        buffer.position(frameStart + frameLength);
+    }
+
+    private static Message decodeBody(ByteBuffer buffer) {
+        String resType = readType(buffer);
+
+        Message message;
+        if (resType == MessageTypes.SEARCH) {
+            message = decodeSearch(buffer);
+        } else if (resType == MessageTypes.PING) {
+            message = new Ping(readSearchId(buffer), readMemberUpdates(buffer));
+        } else if (resType == MessageTypes.PING_OK) {
+            message = new PingResponse(readSearchId(buffer), readMemberUpdates(buffer));
+        } else if (resType == MessageTypes.PING_REQUEST) {
+            message = new PingRequest(readSearchId(buffer), readEndpoint(buffer), readMemberUpdates(buffer));
+        } else if (resType == MessageTypes.RELIABLE_SEGMENT) {
+            message = decodeReliableSegment(buffer);
+        } else if (resType == MessageTypes.RELIABLE_ACK) {
+            message = decodeReliableAck(buffer);
+        } else if (resType == MessageTypes.SEROK) {
+            message = decodeSearchResponse(buffer);
+        } else if (resType == MessageTypes.JOIN) {
+            message = new JoinMessage(readEndpoint(buffer), readProtocol(buffer));
+        } else if (resType == MessageTypes.WALK_CHECK) {
+            message = new WalkCheck(readSearchId(buffer));
+        } else if (resType == MessageTypes.WALK_CHECK_OK) {
+            message = new WalkCheckResponse(readSearchId(buffer), readInt(buffer) != 0);
+        } else if (resType == MessageTypes.DHT_FIND_NODE) {
+            message = new DhtFindNode(readSearchId(buffer), readSearchId(buffer));
+        } else if (resType == MessageTypes.DHT_FIND_VALUE) {
+            message = new DhtFindValue(readSearchId(buffer), readSearchId(buffer));
+        } else if (resType == MessageTypes.DHT_NODES) {
+            message = new DhtNodes(readSearchId(buffer), readEndpoints(buffer));
+        } else if (resType == MessageTypes.DHT_VALUES) {
+            message = new DhtValues(readSearchId(buffer), readEndpoints(buffer));
+        } else if (resType == MessageTypes.DHT_STORE) {
+            message = new DhtStore(readSearchId(buffer), readEndpoint(buffer));
+        } else if (resType == MessageTypes.ROUTING_SUMMARY) {
+            message = decodeRoutingSummary(buffer);
+        } else if (resType == MessageTypes.UNROK) {
+            message = new UnregisterResponse(readInt(buffer));
+        } else if (resType == MessageTypes.JOINOK) {
+            message = new JoinResponse(readInt(buffer), readProtocol(buffer));
+        } else if (resType == MessageTypes.LEAVE) {
+            message = new LeaveMessage(readEndpoint(buffer));
+        } else if (resType == MessageTypes.REGOK) {
+            message = decodeRegisterResponse(buffer);
+        } else if (resType == MessageTypes.REG || resType == MessageTypes.UNREG) {
+            message = new RegisterMessage(resType, readEndpoint(buffer), readToken(buffer));
+        } else {
+            message = new Message(resType);
+        }
+        return message;
+    }
+
+    private static void encodeBody(Message message, ByteBuffer buffer) {
+        putAscii(buffer, message.resType);
+        if (message instanceof SearchMessage search) {
+            putField(buffer, search.initiatorIp);
+            putField(buffer, search.initiatorPort);
+            putField(buffer, search.query);
+            putField(buffer, search.hops);
+            if (search.searchId != 0) {
+                buffer.put(SPACE);
+                putHex(buffer, search.searchId);
+                if (search.mode == SearchMode.WALK) {
+                    buffer.put(SPACE);
+                    buffer.put(WALK_MARKER);
+                }
+            }
+        } else if (message instanceof SearchResponse response) {
+            putField(buffer, response.fileCount);
+            putField(buffer, response.fileHostIp);
+            putField(buffer, response.fileHostPort);
+            putField(buffer, response.hops);
+            for (int i = 0; i < response.fileNames.length; i++) {
+                if (i > 0) {
+                    buffer.put(COMMA);
+                }
+                putField(buffer, response.fileNames[i]);
+            }
+        } else if (message instanceof JoinMessage join) {
+            putField(buffer, join.neighbourIpAddress);
+            putField(buffer, join.neighbourPort);
+            if (join.protocol != PROTOCOL_TEXT) {
+                putField(buffer, join.protocol);
+            }
+        } else if (message instanceof JoinResponse joinResponse) {
+            putField(buffer, joinResponse.value);
+            if (joinResponse.protocol != PROTOCOL_TEXT) {
+                putField(buffer, joinResponse.protocol);
+            }
+        } else if (message instanceof WalkCheck check) {
+            buffer.put(SPACE);
+            putHex(buffer, check.searchId);
+        } else if (message instanceof WalkCheckResponse checkResponse) {
+            buffer.put(SPACE);
+            putHex(buffer, checkResponse.searchId);
+            putField(buffer, checkResponse.proceed ? 1 : 0);
+        } else if (message instanceof DhtFindNode findNode) {
+            putHexField(buffer, findNode.rpcId);
+            putHexField(buffer, findNode.target);
+        } else if (message instanceof DhtFindValue findValue) {
+            putHexField(buffer, findValue.rpcId);
+            putHexField(buffer, findValue.key);
+        } else if (message instanceof DhtNodes nodes) {
+            putHexField(buffer, nodes.rpcId);
+            putEndpoints(buffer, nodes.nodes);
+        } else if (message instanceof DhtValues values) {
+            putHexField(buffer, values.rpcId);
+            putEndpoints(buffer, values.hosts);
+        } else if (message instanceof DhtStore store) {
+            putHexField(buffer, store.key);
+            putField(buffer, store.host.ipAddress());
+            putField(buffer, store.host.port());
+        } else if (message instanceof Ping ping) {
+            putHexField(buffer, ping.probeId);
+            putMemberUpdates(buffer, ping.updates);
+        } else if (message instanceof PingResponse pingResponse) {
+            putHexField(buffer, pingResponse.probeId);
+            putMemberUpdates(buffer, pingResponse.updates);
+        } else if (message instanceof PingRequest pingRequest) {
+            putHexField(buffer, pingRequest.probeId);
+            putField(buffer, pingRequest.target.ipAddress());
+            putField(buffer, pingRequest.target.port());
+            putMemberUpdates(buffer, pingRequest.updates);
+        } else if (message instanceof ReliableSegment segment) {
+            putHexField(buffer, segment.epoch);
+            putField(buffer, segment.seq);
+            putField(buffer, segment.messageSeq);
+            putField(buffer, segment.index);
+            putField(buffer, segment.count);
+            buffer.put(SPACE);
+            buffer.put(segment.payload);
+        } else if (message instanceof ReliableAck ack) {
+            putHexField(buffer, ack.epoch);
+            putField(buffer, ack.seqs.length);
+            for (int seq : ack.seqs) {
+                putField(buffer, seq);
+            }
+        } else if (message instanceof RoutingSummary summary) {
+            putField(buffer, summary.levels[0].bits());
+            putField(buffer, summary.levels[0].hashes());
+            putField(buffer, summary.levels.length);
+            for (BloomFilter level : summary.levels) {
+                buffer.put(SPACE);
+                buffer.put(Base64.getEncoder().encode(level.toBytes()));
+            }
+        } else if (message instanceof UnregisterResponse unregisterResponse) {
+            putField(buffer, unregisterResponse.value);
+        } else if (message instanceof LeaveMessage leave) {
+            putField(buffer, leave.ipAddress);
+            putField(buffer, leave.port);
+        } else if (message instanceof RegisterMessage register) {
+            putField(buffer, register.ipAddress);
+            putField(buffer, register.port);
+            putField(buffer, register.username);
+        } else if (message instanceof RegisterResponse registerResponse) {
+            putField(buffer, registerResponse.noOfNodes);
+            if (registerResponse.neighbourIp1 != null) {
+                putField(buffer, registerResponse.neighbourIp1);
+                putField(buffer, registerResponse.neighbourPort1);
+            }
+            if (registerResponse.neighbourIp2 != null) {
+                putField(buffer, registerResponse.neighbourIp2);
+                putField(buffer, registerResponse.neighbourPort2);
+            }
+        }
+    }
+
+    private static SearchMessage decodeSearch(ByteBuffer buffer) {
+        Endpoint initiator = readEndpoint(buffer);
+
+        int queryStart = skipSpaces(buffer);
+        int frameEnd = trimmedEnd(buffer, queryStart);
+        int end = frameEnd;
+        int hopsStart = lastTokenStart(buffer, queryStart, end);
+        long searchId = 0;
+
+        SearchMode mode = SearchMode.FLOOD;
+        if (end - hopsStart == 1 && buffer.get(hopsStart) == WALK_MARKER) {
+            mode = SearchMode.WALK;
+            end = trimmedEnd(buffer, queryStart, hopsStart);
+            hopsStart = lastTokenStart(buffer, queryStart, end);
+        }
+
+        int idStart = hopsStart;
+        if (end - idStart == SEARCH_ID_DIGITS && isHex(buffer, idStart, end)) {
+            int previousEnd = trimmedEnd(buffer, queryStart, idStart);
+            int previousStart = lastTokenStart(buffer, queryStart, previousEnd);
+            if (previousStart > queryStart && isDigits(buffer, previousStart, previousEnd)) {
+                searchId = readHex(buffer, idStart, end);
+                hopsStart = previousStart;
+            }
+        }
+        if (hopsStart <= queryStart) {
+            throw new IllegalArgumentException("Missing search hops");
+        }
+        if (mode == SearchMode.WALK && searchId == 0) {
+            throw new IllegalArgumentException("Walk search without a search id");
+        }
+
+        String query = readString(buffer, queryStart, trimmedEnd(buffer, queryStart, hopsStart));
+        buffer.position(hopsStart);
+        int hops = readInt(buffer);
+        buffer.position(frameEnd);
+        return new SearchMessage(initiator, query, hops, searchId, mode);
+    }
+
+    private static SearchResponse decodeSearchResponse(ByteBuffer buffer) {
+        int fileCount = readInt(buffer);
+        Endpoint fileHost = readEndpoint(buffer);
+        int hops = readInt(buffer);
+
+        int namesStart = skipSpaces(buffer);
+        int end = trimmedEnd(buffer, namesStart);
+        String[] fileNames = new String[Math.max(fileCount, 1)];
+        int count = 0;
+        int nameStart = namesStart;
+        for (int i = namesStart; i <= end && count < fileNames.length; i++) {
+            if (i == end || (buffer.get(i) == COMMA && count < fileNames.length - 1)) {
+                int start = nameStart;
+                while (start < i && buffer.get(start) == SPACE) {
+                    start++;
+                }
+                fileNames[count++] = readString(buffer, start, trimmedEnd(buffer, start, i));
+                nameStart = i + 1;
+            }
+        }
+        buffer.position(end);
+
+        if (count < fileNames.length) {
+            String[] names = new String[count];
+            System.arraycopy(fileNames, 0, names, 0, count);
+            fileNames = names;
+        }
+        return new SearchResponse(fileCount, fileHost, hops, fileNames);
+    }
+
+    private static RoutingSummary decodeRoutingSummary(ByteBuffer buffer) {
+        int bits = readInt(buffer);
+        int hashes = readInt(buffer);
+        int depth = readInt(buffer);
+        if (depth <= 0 || depth > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid routing summary depth: " + depth);
+        }
+
+        BloomFilter[] levels = new BloomFilter[depth];
+        for (int i = 0; i < depth; i++) {
+            byte[] bytes = Base64.getDecoder().decode(readToken(buffer));
+            if (bytes.length * Byte.SIZE != bits) {
+                throw new IllegalArgumentException("Routing summary level does not have " + bits + " bits");
+            }
+            levels[i] = BloomFilter.fromBytes(bytes, hashes);
+        }
+        return new RoutingSummary(levels);
+    }
+
+    /**
+     * The payload is raw bytes taken verbatim after the single space that follows the header, up to the end
+     * of the frame.
+     */
+    private static ReliableSegment decodeReliableSegment(ByteBuffer buffer) {
+        long epoch = readSearchId(buffer);
+        int seq = readInt(buffer);
+        int messageSeq = readInt(buffer);
+        int index = readInt(buffer);
+        int count = readInt(buffer);
+        if (count <= 0 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid segment index " + index + " of " + count);
+        }
+        if (!buffer.hasRemaining() || buffer.get() != SPACE) {
+            throw new IllegalArgumentException("Missing segment payload");
+        }
+
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return new ReliableSegment(epoch, seq, messageSeq, index, count, payload);
+    }
+
+    private static ReliableAck decodeReliableAck(ByteBuffer buffer) {
+        long epoch = readSearchId(buffer);
+        int count = readInt(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid ack count: " + count);
+        }
+        int[] seqs = new int[count];
+        for (int i = 0; i < count; i++) {
+            seqs[i] = readInt(buffer);
+        }
+        return new ReliableAck(epoch, seqs);
+    }
+
+    private static RegisterResponse decodeRegisterResponse(ByteBuffer buffer) {
+        int noOfNodes = readInt(buffer);
+        if (noOfNodes < 1 || noOfNodes > 2) {
+            return new RegisterResponse(noOfNodes, null, 0, null, 0);
+        }
+
+        String neighbourIp1 = readToken(buffer);
+        int neighbourPort1 = readPort(buffer);
+        if (noOfNodes == 1) {
+            return new RegisterResponse(noOfNodes, neighbourIp1, neighbourPort1, null, 0);
+        }
+        return new RegisterResponse(noOfNodes, neighbourIp1, neighbourPort1, readToken(buffer), readPort(buffer));
+    }
+
+    /**
+     * The optional protocol field that ends {@code JOIN} and {@code JOINOK}; older nodes do not send it.
+     */
+    private static int readProtocol(ByteBuffer buffer) {
+        skipSpaces(buffer);
+        return buffer.hasRemaining() ? readInt(buffer) : PROTOCOL_TEXT;
+    }
+
+    private static String readType(ByteBuffer buffer) {
+        int start = skipSpaces(buffer);
+        int end = tokenEnd(buffer, start);
+        buffer.position(end);
+
+        for (int i = 0; i < TYPE_BYTES.length; i++) {
+            if (matches(buffer, start, end, TYPE_BYTES[i])) {
+                return TYPES[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown message type: " + readString(buffer, start, end));
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads an {@code <ip> <port>} pair as an interned endpoint. Dotted-quad addresses are parsed in place, so
+     * no string is created for peers that have been seen before.
+     */
+    private static Endpoint readEndpoint(ByteBuffer buffer) {
+        int start = skipSpaces(buffer);
+        int end = tokenEnd(buffer, start);
+        if (start == end) {
+            throw new IllegalArgumentException("Missing address field");
+        }
+        buffer.position(end);
+
+        long ipv4 = parseIpv4(buffer, start, end);
+        int port = readPort(buffer);
+        if (ipv4 >= 0) {
+            return EndpointRegistry.getDefault().get((int) ipv4, port);
+        }
+        return EndpointRegistry.getDefault().get(readString(buffer, start, end), port);
+    }
+
+    private static Endpoint[] readEndpoints(ByteBuffer buffer) {
+        int count = readInt(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid endpoint count: " + count);
+        }
+        Endpoint[] endpoints = new Endpoint[count];
+        for (int i = 0; i < count; i++) {
+            endpoints[i] = readEndpoint(buffer);
+        }
+        return endpoints;
+    }
+
+    private static MemberUpdate[] readMemberUpdates(ByteBuffer buffer) {
+        int count = readInt(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid member update count: " + count);
+        }
+        MemberState[] states = MemberState.values();
+        MemberUpdate[] updates = new MemberUpdate[count];
+        for (int i = 0; i < count; i++) {
+            Endpoint member = readEndpoint(buffer);
+            int state = readInt(buffer);
+            if (state < 0 || state >= states.length) {
+                throw new IllegalArgumentException("Invalid member state: " + state);
+            }
+            updates[i] = new MemberUpdate(member, states[state], readInt(buffer));
+        }
+        return updates;
+    }
+
+    private static long parseIpv4(ByteBuffer buffer, int start, int end) {
+        long address = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.') {
+                if (octet < 0 || ++dots > 3) {
+                    return -1;
+                }
+                address = (address << 8) | octet;
+                octet = -1;
+            } else if (b >= '0' && b <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (b - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || dots != 3) {
+            return -1;
+        }
+        return (address << 8) | octet;
+    }
+
+    private static long readSearchId(ByteBuffer buffer) {
+        int start = skipSpaces(buffer);
+        int end = tokenEnd(buffer, start);
+        if (end - start != SEARCH_ID_DIGITS || !isHex(buffer, start, end)) {
+            throw new IllegalArgumentException("Invalid search id");
+        }
+        buffer.position(end);
+        return readHex(buffer, start, end);
+    }
+
+    private static int readInt(ByteBuffer buffer) {
+        int start = skipSpaces(buffer);
+        int end = tokenEnd(buffer, start);
+        if (start == end) {
+            throw new IllegalArgumentException("Missing numeric field");
+        }
+
+        boolean negative = buffer.get(start) == '-';
+        long bound = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int first = negative ? start + 1 : start;
+        if (first == end) {
+            throw new NumberFormatException("Invalid numeric field: " + readString(buffer, start, end));
+        }
+        long value = 0;
+        for (int i = first; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid numeric field: " + readString(buffer, start, end));
+            }
+            value = value * 10 + digit;
+            if (value > bound) {
+                throw new NumberFormatException("Numeric field out of range: " + readString(buffer, start, end));
+            }
+        }
+        buffer.position(end);
+        return (int) (negative ? -value : value);
+    }
+
+    private static int readPort(ByteBuffer buffer) {
+        int port = readInt(buffer);
+        if (port < 0 || port > MAX_PORT) {
+            throw new IllegalArgumentException("Port out of range: " + port);
+        }
+        return port;
+    }
+
+    private static String readToken(ByteBuffer buffer) {
+        int start = skipSpaces(buffer);
+        int end = tokenEnd(buffer, start);
+        if (start == end) {
+            throw new IllegalArgumentException("Missing field");
+        }
+        buffer.position(end);
+        return readString(buffer, start, end);
+    }
+
+    private static String readString(ByteBuffer buffer, int start, int end) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int skipSpaces(ByteBuffer buffer) {
+        int position = buffer.position();
+        while (position < buffer.limit() && buffer.get(position) == SPACE) {
+            position++;
+        }
+        buffer.position(position);
+        return position;
+    }
+
+    private static int tokenEnd(ByteBuffer buffer, int start) {
+        int end = start;
+        while (end < buffer.limit() && !isDelimiter(buffer.get(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int trimmedEnd(ByteBuffer buffer, int start) {
+        return trimmedEnd(buffer, start, buffer.limit());
+    }
+
+    private static int trimmedEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && isDelimiter(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int lastTokenStart(ByteBuffer buffer, int start, int end) {
+        int position = end;
+        while (position > start && !isDelimiter(buffer.get(position - 1))) {
+            position--;
+        }
+        return position;
+    }
+
+    private static boolean isDigits(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return start < end;
+    }
+
+    private static boolean isHex(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.digit(buffer.get(i), 16) < 0) {
+                return false;
+            }
+        }
+        return start < end;
+    }
+
+    private static long readHex(ByteBuffer buffer, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = (value << 4) | Character.digit(buffer.get(i), 16);
+        }
+        return value;
+    }
+
+    private static void putHex(ByteBuffer buffer, long value) {
+        for (int shift = (SEARCH_ID_DIGITS - 1) * 4; shift >= 0; shift -= 4) {
+            buffer.put((byte) HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    private static void putHexField(ByteBuffer buffer, long value) {
+        buffer.put(SPACE);
+        putHex(buffer, value);
+    }
+
+    private static void putEndpoints(ByteBuffer buffer, Endpoint[] endpoints) {
+        putField(buffer, endpoints.length);
+        for (Endpoint endpoint : endpoints) {
+            putField(buffer, endpoint.ipAddress());
+            putField(buffer, endpoint.port());
+        }
+    }
+
+    private static void putMemberUpdates(ByteBuffer buffer, MemberUpdate[] updates) {
+        putField(buffer, updates.length);
+        for (MemberUpdate update : updates) {
+            putField(buffer, update.member().ipAddress());
+            putField(buffer, update.member().port());
+            putField(buffer, update.state().ordinal());
+            putField(buffer, update.incarnation());
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == SPACE || b == '\n' || b == '\r';
+    }
+
+    private static void putField(ByteBuffer buffer, String value) {
+        buffer.put(SPACE);
+        putAscii(buffer, value);
+    }
+
+    private static void putField(ByteBuffer buffer, int value) {
+        buffer.put(SPACE);
+        putInt(buffer, value);
+    }
+
+    private static void putAscii(ByteBuffer buffer, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                buffer.put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private static void putInt(ByteBuffer buffer, int value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int digits = digitCount(value);
+        if (buffer.remaining() < digits) {
+            throw new BufferOverflowException();
+        }
+        int position = buffer.position();
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(position + digits);
+    }
+
+    private static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
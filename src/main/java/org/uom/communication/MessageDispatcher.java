@@ -3,38 +3,93 @@ package org.uom.communication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uom.model.message.SocketMessage;
-import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.Metadata;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
-import java.net.InetAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class MessageDispatcher extends Thread {
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageDispatcher.class);
     private final BlockingQueue<SocketMessage> dispatcherQueue;
     private final DatagramSocket socket;
+    private final DatagramBatcher batcher;
     private volatile boolean isRunning = true;
 
     public MessageDispatcher(BlockingQueue<SocketMessage> dispatcherQueue, DatagramSocket socket) {
+        this(dispatcherQueue, socket, false);
+    }
+
+    public MessageDispatcher(BlockingQueue<SocketMessage> dispatcherQueue, DatagramSocket socket, boolean batchSends) {
         this.dispatcherQueue = dispatcherQueue;
         this.socket = socket;
+        this.batcher = batchSends
+            ? new DatagramBatcher(Metadata.BATCH_MAX_MESSAGES, Metadata.BATCH_MAX_DATAGRAM_SIZE)
+            : null;
     }
 
     @Override
     public void run() {
+        if (this.batcher != null) {
+            this.runBatched();
+            return;
+        }
+
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire();
+        DatagramPacket sendPacket = new DatagramPacket(buffer.array(), 0);
         try {
             while (this.isRunning) {
                 SocketMessage message = this.dispatcherQueue.take();
-                String messageToDispatch = String.format(Commands.MSG_FMT, message.body.length(), message.body);
-                byte[] sendData = messageToDispatch.getBytes();
-                InetAddress address = InetAddress.getByName(message.ipAddress);
-                DatagramPacket sendPacket = new DatagramPacket(sendData, sendData.length, address, message.port);
-                this.socket.send(sendPacket);
-                LOGGER.info("[Message Dispatched ({} --> {})] {}", this.socket.getLocalPort(), message.port, message.body);
+                try {
+                    buffer.clear();
+                    MessageCodec.encode(message, buffer);
+                    buffer.flip();
+
+                    sendPacket.setData(buffer.array(), buffer.position(), buffer.remaining());
+                    sendPacket.setSocketAddress(message.endpoint.socketAddress());
+                    this.socket.send(sendPacket);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("[Message Dispatched ({} --> {})] {}", this.socket.getLocalPort(), message.endpoint.port(), message.body);
+                    }
+                } catch (IOException | BufferOverflowException | IllegalArgumentException e) {
+                    LOGGER.error("[Dispatch Failed] {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("[Dispatch Failed] {}", e.getMessage(), e);
+        } finally {
+            BufferPool.DEFAULT.release(buffer);
+        }
+    }
+
+    private void runBatched() {
+        DatagramPacket sendPacket = new DatagramPacket(new byte[0], 0);
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(Metadata.BATCH_LINGER_MILLIS);
+        try {
+            while (this.isRunning) {
+                this.batcher.add(this.dispatcherQueue.take());
+
+                long deadline = System.nanoTime() + lingerNanos;
+                while (!this.batcher.isFull()) {
+                    SocketMessage message = this.dispatcherQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (message == null) {
+                        break;
+                    }
+                    this.batcher.add(message);
+                }
+
+                this.batcher.flush((datagram, endpoint) -> {
+                    sendPacket.setData(datagram.array(), datagram.arrayOffset() + datagram.position(), datagram.remaining());
+                    sendPacket.setSocketAddress(endpoint.socketAddress());
+                    this.socket.send(sendPacket);
+                    return true;
+                });
             }
-        } catch (InterruptedException | IOException e) {
+        } catch (InterruptedException e) {
             LOGGER.error("[Dispatch Failed] {}", e.getMessage(), e);
         }
     }
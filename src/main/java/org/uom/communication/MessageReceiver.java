@@ -7,6 +7,8 @@ import org.uom.model.message.Message;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.concurrent.BlockingQueue;
 
 public class MessageReceiver extends Thread {
@@ -23,24 +25,38 @@ public class MessageReceiver extends Thread {
 
     @Override
     public void run() {
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire();
+        DatagramPacket receivePacket = new DatagramPacket(buffer.array(), buffer.capacity());
         try {
             while (this.isRunning) {
-                byte[] receiveData = new byte[1024];
-                DatagramPacket receivePacket = new DatagramPacket(receiveData, receiveData.length);
+                receivePacket.setLength(buffer.capacity());
                 this.socket.receive(receivePacket);
 
-                String message = new String(receivePacket.getData(), 0, receivePacket.getLength());
-                String ipAddress = receivePacket.getAddress().getHostAddress();
-                int port = receivePacket.getPort();
-                Message response = new Message(ipAddress, port, message);
+                Endpoint origin = EndpointRegistry.getDefault().get((InetSocketAddress) receivePacket.getSocketAddress());
+                int port = origin.port();
+                buffer.clear().limit(receivePacket.getLength());
 
-                this.receiveQueue.put(response);
-                LOGGER.info("[Received Message ({} <-- {})]: {}", this.socket.getLocalPort(), port, message);
+                while (MessageCodec.hasFrame(buffer)) {
+                    Message response;
+                    try {
+                        response = MessageCodec.decode(buffer, origin);
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.warn("[Malformed Message ({} <-- {})] {}", this.socket.getLocalPort(), port, e.getMessage());
+                        break;
+                    }
+
+                    this.receiveQueue.put(response);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("[Received Message ({} <-- {})]: {}", this.socket.getLocalPort(), port, response);
+                    }
+                }
             }
         } catch (IOException e) {
             LOGGER.error("[Receive Failed] {}", e.getMessage(), e);
         } catch (InterruptedException e) {
             LOGGER.warn("[Receive Failed] Could not add to receive queue");
+        } finally {
+            BufferPool.DEFAULT.release(buffer);
         }
     }
 
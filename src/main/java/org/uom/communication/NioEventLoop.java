@@ -0,0 +1,169 @@
+package org.uom.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single selector thread shared by the {@link NioTransport}s registered with it. All reads, writes and
+ * transport tasks of a channel run on its event loop, so per-transport state needs no locking.
+ */
+public class NioEventLoop extends Thread {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioEventLoop.class);
+    private static final int BUFFER_SIZE = 65536;
+    private final Selector selector;
+    private final Queue<Runnable> taskQueue;
+    private final PriorityQueue<ScheduledTask> scheduledTasks;
+    private final AtomicBoolean wakeupPending;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+    private volatile boolean isRunning = true;
+
+    public NioEventLoop(String name) throws IOException {
+        super(name);
+        this.selector = Selector.open();
+        this.taskQueue = new ConcurrentLinkedQueue<>();
+        this.scheduledTasks = new PriorityQueue<>();
+        this.wakeupPending = new AtomicBoolean();
+        this.readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    @Override
+    public void run() {
+        while (this.isRunning) {
+            try {
+                this.select();
+                this.wakeupPending.set(false);
+                this.processSelectedKeys();
+                this.runTasks();
+                this.runScheduledTasks();
+            } catch (IOException e) {
+                LOGGER.error("[Event Loop Failed ({})] {}", this.getName(), e.getMessage(), e);
+            }
+        }
+
+        this.runTasks();
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            LOGGER.warn("[Event Loop ({})] Could not close selector: {}", this.getName(), e.getMessage());
+        }
+    }
+
+    public void execute(Runnable task) {
+        this.taskQueue.offer(task);
+        if (!this.inEventLoop() && this.wakeupPending.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs the task on this event loop after the given delay. Meant for short I/O deadlines such as send
+     * lingering; the delay is honoured with millisecond granularity.
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.execute(() -> this.scheduledTasks.add(new ScheduledTask(deadline, task)));
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == this;
+    }
+
+    public void stopLoop() {
+        this.isRunning = false;
+        this.selector.wakeup();
+    }
+
+    Selector selector() {
+        return this.selector;
+    }
+
+    ByteBuffer readBuffer() {
+        return this.readBuffer;
+    }
+
+    ByteBuffer writeBuffer() {
+        return this.writeBuffer;
+    }
+
+    private void select() throws IOException {
+        ScheduledTask next = this.scheduledTasks.peek();
+        if (next == null) {
+            this.selector.select();
+            return;
+        }
+
+        long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime());
+        if (timeoutMillis <= 0) {
+            this.selector.selectNow();
+        } else {
+            this.selector.select(timeoutMillis);
+        }
+    }
+
+    private void runScheduledTasks() {
+        long now = System.nanoTime();
+        ScheduledTask next;
+        while ((next = this.scheduledTasks.peek()) != null && next.deadline - now <= 0) {
+            this.scheduledTasks.poll();
+            try {
+                next.task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("[Event Loop Task Failed ({})] {}", this.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            NioTransport transport = (NioTransport) key.attachment();
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                if (key.isReadable()) {
+                    transport.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    transport.flush();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("[Event Loop Key Failed ({})] {}", this.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("[Event Loop Task Failed ({})] {}", this.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private record ScheduledTask(long deadline, Runnable task) implements Comparable<ScheduledTask> {
+        @Override
+        public int compareTo(ScheduledTask other) {
+            return Long.compare(this.deadline, other.deadline);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.uom.communication;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioEventLoopGroup {
+    private static final long SHUTDOWN_TIMEOUT_MS = 1000;
+    private final NioEventLoop[] eventLoops;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    public NioEventLoopGroup(int nThreads) throws IOException {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("nThreads must be positive: " + nThreads);
+        }
+
+        this.eventLoops = new NioEventLoop[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            this.eventLoops[i] = new NioEventLoop("nio-event-loop-" + i);
+            this.eventLoops[i].start();
+        }
+    }
+
+    public NioEventLoop next() {
+        return this.eventLoops[Math.floorMod(this.nextIndex.getAndIncrement(), this.eventLoops.length)];
+    }
+
+    public int size() {
+        return this.eventLoops.length;
+    }
+
+    public void shutdown() {
+        for (NioEventLoop eventLoop : this.eventLoops) {
+            eventLoop.stopLoop();
+        }
+        for (NioEventLoop eventLoop : this.eventLoops) {
+            try {
+                eventLoop.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
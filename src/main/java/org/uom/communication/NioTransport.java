@@ -0,0 +1,219 @@
+package org.uom.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.contracts.communication.Transport;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.Message;
+import org.uom.model.message.SocketMessage;
+import org.uom.processing.PriorityMessageQueue;
+import org.uom.processing.ShedPolicy;
+import org.uom.utils.Constants.Metadata;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class NioTransport implements Transport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioTransport.class);
+    private static final int MAX_READS_PER_WAKEUP = 64;
+    private final NioEventLoop eventLoop;
+    private final DatagramChannel channel;
+    private final int port;
+    private final PriorityMessageQueue<SocketMessage> sendQueue;
+    private final AtomicBoolean flushScheduled;
+    private final DatagramBatcher batcher;
+    private Consumer<Message> messageConsumer;
+    private SelectionKey selectionKey;
+    private SocketMessage unsent;
+
+    public NioTransport(NioEventLoopGroup eventLoopGroup) throws IOException {
+        this(eventLoopGroup, 0, false);
+    }
+
+    /**
+     * Binds to the given port. With {@code reusePort}, several transports can bind the same port and the
+     * kernel spreads incoming datagrams across them, where the platform supports {@code SO_REUSEPORT}.
+     */
+    public NioTransport(NioEventLoopGroup eventLoopGroup, int port, boolean reusePort) throws IOException {
+        this.eventLoop = eventLoopGroup.next();
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        if (reusePort && this.channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            this.channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        this.channel.bind(new InetSocketAddress(port));
+        this.port = ((InetSocketAddress) this.channel.getLocalAddress()).getPort();
+        this.sendQueue = new PriorityMessageQueue<>(
+            Metadata.TRANSPORT_QUEUE_CAPACITY,
+            ShedPolicy.forName(Metadata.QUEUE_SHED_POLICY),
+            message -> message.body);
+        this.flushScheduled = new AtomicBoolean();
+        this.batcher = Metadata.BATCH_SENDS
+            ? new DatagramBatcher(Metadata.BATCH_MAX_MESSAGES, Metadata.BATCH_MAX_DATAGRAM_SIZE)
+            : null;
+
+        MetricsRegistry.getDefault().gauge(this.sendQueueMetricName(), this.sendQueue::size);
+    }
+
+    @Override
+    public int getPort() {
+        return this.port;
+    }
+
+    @Override
+    public void start(Consumer<Message> messageConsumer) {
+        this.messageConsumer = messageConsumer;
+        this.eventLoop.execute(() -> {
+            try {
+                this.selectionKey = this.channel.register(this.eventLoop.selector(), SelectionKey.OP_READ, this);
+                this.flush();
+            } catch (ClosedChannelException e) {
+                LOGGER.error("[Register Failed ({})] {}", this.port, e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public void send(SocketMessage message) {
+        if (!this.sendQueue.offer(message)) {
+            return;
+        }
+        if (this.batcher == null) {
+            if (this.eventLoop.inEventLoop()) {
+                this.flush();
+            } else if (this.flushScheduled.compareAndSet(false, true)) {
+                this.eventLoop.execute(this::flush);
+            }
+        } else if (this.sendQueue.size() == Metadata.BATCH_MAX_MESSAGES) {
+            this.eventLoop.execute(this::flush);
+        } else if (this.flushScheduled.compareAndSet(false, true)) {
+            this.eventLoop.schedule(this::flush, Metadata.BATCH_LINGER_MILLIS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        MetricsRegistry.getDefault().removeGauge(this.sendQueueMetricName());
+        this.eventLoop.execute(() -> {
+            this.flush();
+            if (this.selectionKey != null) {
+                this.selectionKey.cancel();
+            }
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("[Close Failed ({})] {}", this.port, e.getMessage());
+            }
+        });
+    }
+
+    private String sendQueueMetricName() {
+        return "transport." + this.port + ".send_queue";
+    }
+
+    void read() {
+        ByteBuffer buffer = this.eventLoop.readBuffer();
+        try {
+            for (int i = 0; i < MAX_READS_PER_WAKEUP; i++) {
+                buffer.clear();
+                InetSocketAddress sender = (InetSocketAddress) this.channel.receive(buffer);
+                if (sender == null) {
+                    return;
+                }
+                buffer.flip();
+
+                Endpoint origin = EndpointRegistry.getDefault().get(sender);
+                while (MessageCodec.hasFrame(buffer)) {
+                    Message message;
+                    try {
+                        message = MessageCodec.decode(buffer, origin);
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.warn("[Malformed Message ({} <-- {})] {}", this.port, sender.getPort(), e.getMessage());
+                        break;
+                    }
+
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("[Received Message ({} <-- {})]: {}", this.port, sender.getPort(), message);
+                    }
+                    this.messageConsumer.accept(message);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("[Receive Failed ({})] {}", this.port, e.getMessage(), e);
+        }
+    }
+
+    void flush() {
+        this.flushScheduled.set(false);
+        if (this.selectionKey == null || !this.channel.isOpen()) {
+            return;
+        }
+
+        if (this.batcher != null) {
+            this.flushBatches();
+            return;
+        }
+
+        ByteBuffer buffer = this.eventLoop.writeBuffer();
+        SocketMessage message;
+        while ((message = this.unsent != null ? this.unsent : this.sendQueue.poll()) != null) {
+            this.unsent = null;
+            try {
+                buffer.clear();
+                MessageCodec.encode(message, buffer);
+                buffer.flip();
+
+                if (this.channel.send(buffer, message.endpoint.socketAddress()) == 0) {
+                    this.unsent = message;
+                    this.selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("[Message Dispatched ({} --> {})] {}", this.port, message.endpoint.port(), message.body);
+                }
+            } catch (IOException | BufferOverflowException | IllegalArgumentException e) {
+                LOGGER.error("[Dispatch Failed ({})] {}", this.port, e.getMessage(), e);
+            }
+        }
+
+        this.clearWriteInterest();
+    }
+
+    private void flushBatches() {
+        do {
+            this.batcher.fill(this.sendQueue);
+            if (!this.batcher.flush(this::sendDatagram)) {
+                this.selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        } while (!this.sendQueue.isEmpty());
+
+        this.clearWriteInterest();
+    }
+
+    /**
+     * A datagram to an endpoint that cannot be addressed is dropped, not retried.
+     */
+    private boolean sendDatagram(ByteBuffer datagram, Endpoint endpoint) throws IOException {
+        try {
+            return this.channel.send(datagram, endpoint.socketAddress()) != 0;
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("[Dispatch Failed ({})] {}", this.port, e.getMessage(), e);
+            return true;
+        }
+    }
+
+    private void clearWriteInterest() {
+        if ((this.selectionKey.interestOps() & SelectionKey.OP_WRITE) != 0) {
+            this.selectionKey.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
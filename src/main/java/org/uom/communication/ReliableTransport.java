@@ -0,0 +1,344 @@
+package org.uom.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.contracts.communication.Transport;
+import org.uom.contracts.processing.Scheduler;
+import org.uom.contracts.processing.Timeout;
+import org.uom.metrics.Counter;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.Message;
+import org.uom.model.message.ReliableAck;
+import org.uom.model.message.ReliableSegment;
+import org.uom.model.message.SocketMessage;
+import org.uom.utils.Constants.Metadata;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Adds acknowledgement, retransmission and duplicate suppression to a datagram transport for the message types
+ * in {@code reliableTypes}; every other message passes straight through. A reliable message is encoded, split
+ * into segments of at most {@link Metadata#RELIABLE_FRAGMENT_SIZE} bytes and each segment is resent until it is
+ * acknowledged or {@link Metadata#RELIABLE_MAX_RETRIES} retransmissions have failed. The timeout is adapted to
+ * each peer's measured round-trip time, so a slow link is not flooded with retransmissions and a fast one
+ * recovers a lost datagram quickly.
+ *
+ * <p>Segments and acks are always understood on receipt, so nodes with the layer switched off still answer
+ * peers that use it. Each instance picks a random epoch, which lets a peer tell a restarted sender's sequence
+ * numbers from stale ones.
+ */
+public class ReliableTransport implements Transport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReliableTransport.class);
+    private final Transport inner;
+    private final Scheduler scheduler;
+    private final Set<String> reliableTypes;
+    private final long epoch;
+    private final Map<Endpoint, Outbound> outbound;
+    private final Map<Endpoint, Inbound> inbound;
+    private final Counter retransmits;
+    private final Counter duplicates;
+    private final Counter failures;
+    private Consumer<Message> messageConsumer;
+
+    public ReliableTransport(Transport inner, Scheduler scheduler, Set<String> reliableTypes) {
+        this.inner = inner;
+        this.scheduler = scheduler;
+        this.reliableTypes = reliableTypes;
+        this.epoch = ThreadLocalRandom.current().nextLong();
+        this.outbound = boundedMap();
+        this.inbound = boundedMap();
+        this.retransmits = MetricsRegistry.getDefault().counter("reliable.retransmits");
+        this.duplicates = MetricsRegistry.getDefault().counter("reliable.duplicates");
+        this.failures = MetricsRegistry.getDefault().counter("reliable.failures");
+    }
+
+    @Override
+    public int getPort() {
+        return this.inner.getPort();
+    }
+
+    @Override
+    public void start(Consumer<Message> messageConsumer) {
+        this.messageConsumer = messageConsumer;
+        this.inner.start(this::receive);
+    }
+
+    @Override
+    public void send(SocketMessage message) {
+        if (!this.reliableTypes.contains(message.body.resType)) {
+            this.inner.send(message);
+            return;
+        }
+
+        byte[] frame = encode(message);
+        int fragmentSize = Math.max(Metadata.RELIABLE_FRAGMENT_SIZE, 1);
+        int count = (frame.length + fragmentSize - 1) / fragmentSize;
+        Outbound peer = getOrCreate(this.outbound, message.endpoint, Outbound::new);
+
+        Pending[] segments = new Pending[count];
+        synchronized (peer) {
+            int messageSeq = peer.nextSeq;
+            long now = this.scheduler.nanoTime();
+            for (int i = 0; i < count; i++) {
+                int from = i * fragmentSize;
+                byte[] payload = Arrays.copyOfRange(frame, from, Math.min(frame.length, from + fragmentSize));
+                ReliableSegment segment = new ReliableSegment(this.epoch, peer.nextSeq++, messageSeq, i, count, payload);
+                segments[i] = new Pending(segment, now);
+                peer.unacked.put(segment.seq, segments[i]);
+            }
+        }
+
+        for (Pending pending : segments) {
+            this.transmit(message.endpoint, peer, pending);
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.inner.stop();
+    }
+
+    private void transmit(Endpoint endpoint, Outbound peer, Pending pending) {
+        long rto;
+        synchronized (peer) {
+            rto = peer.rtt.rtoNanos();
+        }
+        this.inner.send(new SocketMessage(endpoint, pending.segment));
+        Timeout timer = this.scheduler.schedule(() -> this.onTimeout(endpoint, peer, pending), rto, TimeUnit.NANOSECONDS);
+        synchronized (peer) {
+            pending.timer = timer;
+        }
+    }
+
+    private void onTimeout(Endpoint endpoint, Outbound peer, Pending pending) {
+        synchronized (peer) {
+            if (peer.unacked.get(pending.segment.seq) != pending) {
+                return;
+            }
+            if (pending.attempts > Metadata.RELIABLE_MAX_RETRIES) {
+                peer.unacked.remove(pending.segment.seq);
+                this.failures.increment();
+                LOGGER.info("[Reliable ({})] Gave up on segment {} to {} after {} attempts",
+                    this.getPort(), pending.segment.seq, endpoint, pending.attempts);
+                return;
+            }
+            pending.attempts++;
+            pending.sentAt = this.scheduler.nanoTime();
+            peer.rtt.backoff();
+        }
+        this.retransmits.increment();
+        this.transmit(endpoint, peer, pending);
+    }
+
+    private void receive(Message message) {
+        if (message instanceof ReliableSegment segment) {
+            this.onSegment(segment);
+        } else if (message instanceof ReliableAck ack) {
+            this.onAck(ack);
+        } else {
+            this.messageConsumer.accept(message);
+        }
+    }
+
+    /**
+     * Acknowledges every segment, including duplicates whose first ack may have been lost, and delivers the
+     * inner message once all of its segments have arrived.
+     */
+    private void onSegment(ReliableSegment segment) {
+        Endpoint origin = segment.origin;
+        this.inner.send(new SocketMessage(origin, new ReliableAck(segment.epoch, new int[]{segment.seq})));
+
+        Inbound peer = getOrCreate(this.inbound, origin, Inbound::new);
+        byte[] frame;
+        synchronized (peer) {
+            if (peer.epoch != segment.epoch) {
+                peer.reset(segment.epoch);
+            }
+            if (!peer.markSeen(segment.seq)) {
+                this.duplicates.increment();
+                return;
+            }
+            frame = peer.reassemble(segment);
+        }
+        if (frame == null) {
+            return;
+        }
+
+        try {
+            this.messageConsumer.accept(MessageCodec.decode(ByteBuffer.wrap(frame), origin));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("[Reliable ({})] Dropping malformed message from {}: {}", this.getPort(), origin, e.getMessage());
+        }
+    }
+
+    private void onAck(ReliableAck ack) {
+        if (ack.epoch != this.epoch) {
+            return;
+        }
+        Outbound peer = get(this.outbound, ack.origin);
+        if (peer == null) {
+            return;
+        }
+
+        synchronized (peer) {
+            long now = this.scheduler.nanoTime();
+            for (int seq : ack.seqs) {
+                Pending pending = peer.unacked.remove(seq);
+                if (pending == null) {
+                    continue;
+                }
+                if (pending.timer != null) {
+                    pending.timer.cancel();
+                }
+                // Karn's rule: an ack for a retransmitted segment may answer any of its copies
+                if (pending.attempts == 1) {
+                    peer.rtt.sample(now - pending.sentAt);
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(SocketMessage message) {
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire();
+        try {
+            MessageCodec.encode(message, buffer);
+            buffer.flip();
+            byte[] frame = new byte[buffer.remaining()];
+            buffer.get(frame);
+            return frame;
+        } finally {
+            BufferPool.DEFAULT.release(buffer);
+        }
+    }
+
+    private static <T> Map<Endpoint, T> boundedMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Endpoint, T> eldest) {
+                return this.size() > Metadata.RELIABLE_MAX_PEERS;
+            }
+        };
+    }
+
+    private static <T> T get(Map<Endpoint, T> peers, Endpoint endpoint) {
+        synchronized (peers) {
+            return peers.get(endpoint);
+        }
+    }
+
+    private static <T> T getOrCreate(Map<Endpoint, T> peers, Endpoint endpoint, Supplier<T> factory) {
+        synchronized (peers) {
+            return peers.computeIfAbsent(endpoint, e -> factory.get());
+        }
+    }
+
+    private static final class Pending {
+        private final ReliableSegment segment;
+        private long sentAt;
+        private int attempts;
+        private Timeout timer;
+
+        private Pending(ReliableSegment segment, long sentAt) {
+            this.segment = segment;
+            this.sentAt = sentAt;
+            this.attempts = 1;
+        }
+    }
+
+    private static final class Outbound {
+        private final RttEstimator rtt;
+        private final Map<Integer, Pending> unacked;
+        private int nextSeq;
+
+        private Outbound() {
+            this.rtt = new RttEstimator(
+                TimeUnit.MILLISECONDS.toNanos(Metadata.RELIABLE_INITIAL_RTO_MILLIS),
+                TimeUnit.MILLISECONDS.toNanos(Metadata.RELIABLE_MIN_RTO_MILLIS),
+                TimeUnit.MILLISECONDS.toNanos(Metadata.RELIABLE_MAX_RTO_MILLIS));
+            this.unacked = new HashMap<>();
+        }
+    }
+
+    /**
+     * Receive state for one sender: the sequence numbers seen within the last
+     * {@link Metadata#RELIABLE_DEDUPE_WINDOW} and the segments of messages not yet complete. Anything older
+     * than the window counts as a duplicate, since its sender has long since given up on it.
+     */
+    private static final class Inbound {
+        private final LinkedHashSet<Integer> seen;
+        private final LinkedHashMap<Integer, byte[][]> partial;
+        private long epoch;
+        private int floor;
+        private boolean floorSet;
+
+        private Inbound() {
+            this.seen = new LinkedHashSet<>();
+            this.partial = new LinkedHashMap<>();
+        }
+
+        private void reset(long epoch) {
+            this.epoch = epoch;
+            this.seen.clear();
+            this.partial.clear();
+            this.floorSet = false;
+        }
+
+        private boolean markSeen(int seq) {
+            if (this.floorSet && seq - this.floor < 0) {
+                return false;
+            }
+            if (!this.seen.add(seq)) {
+                return false;
+            }
+            if (this.seen.size() > Metadata.RELIABLE_DEDUPE_WINDOW) {
+                Iterator<Integer> eldest = this.seen.iterator();
+                int evicted = eldest.next();
+                eldest.remove();
+                if (!this.floorSet || evicted - this.floor >= 0) {
+                    this.floor = evicted + 1;
+                    this.floorSet = true;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Stores the segment and returns the whole frame once every segment of its message is in, else null.
+         */
+        private byte[] reassemble(ReliableSegment segment) {
+            if (segment.count == 1) {
+                return segment.payload;
+            }
+
+            byte[][] parts = this.partial.computeIfAbsent(segment.messageSeq, s -> new byte[segment.count][]);
+            if (this.partial.size() > Metadata.RELIABLE_DEDUPE_WINDOW) {
+                this.partial.remove(this.partial.keySet().iterator().next());
+            }
+            if (parts.length != segment.count) {
+                return null;
+            }
+            parts[segment.index] = segment.payload;
+            int length = 0;
+            for (byte[] part : parts) {
+                if (part == null) {
+                    return null;
+                }
+                length += part.length;
+            }
+
+            this.partial.remove(segment.messageSeq);
+            byte[] frame = new byte[length];
+            int position = 0;
+            for (byte[] part : parts) {
+                System.arraycopy(part, 0, frame, position, part.length);
+                position += part.length;
+            }
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.uom.communication;
+
+/**
+ * Retransmission timeout for one peer, following RFC 6298: a smoothed round-trip time and its variation are
+ * updated from each sample and the timeout is {@code srtt + 4 * rttvar}, clamped to the configured bounds. A
+ * timeout doubles the current value until the next sample.
+ */
+final class RttEstimator {
+    private final long minRtoNanos;
+    private final long maxRtoNanos;
+    private long srttNanos;
+    private long rttvarNanos;
+    private long rtoNanos;
+
+    RttEstimator(long initialRtoNanos, long minRtoNanos, long maxRtoNanos) {
+        this.minRtoNanos = minRtoNanos;
+        this.maxRtoNanos = maxRtoNanos;
+        this.srttNanos = -1;
+        this.rtoNanos = initialRtoNanos;
+    }
+
+    void sample(long rttNanos) {
+        if (this.srttNanos < 0) {
+            this.srttNanos = rttNanos;
+            this.rttvarNanos = rttNanos / 2;
+        } else {
+            this.rttvarNanos = (3 * this.rttvarNanos + Math.abs(this.srttNanos - rttNanos)) / 4;
+            this.srttNanos = (7 * this.srttNanos + rttNanos) / 8;
+        }
+        this.rtoNanos = Math.max(this.minRtoNanos, Math.min(this.maxRtoNanos, this.srttNanos + 4 * this.rttvarNanos));
+    }
+
+    void backoff() {
+        this.rtoNanos = Math.min(this.maxRtoNanos, this.rtoNanos * 2);
+    }
+
+    long rtoNanos() {
+        return this.rtoNanos;
+    }
+
+    long srttNanos() {
+        return this.srttNanos;
+    }
+}
@@ -0,0 +1,85 @@
+package org.uom.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.contracts.communication.Transport;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.Message;
+import org.uom.model.message.SocketMessage;
+import org.uom.processing.PriorityMessageQueue;
+import org.uom.processing.ShedPolicy;
+import org.uom.utils.Constants.Metadata;
+
+import java.net.DatagramSocket;
+import java.net.SocketException;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+public class ThreadedTransport implements Transport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadedTransport.class);
+    private final DatagramSocket socket;
+    private final BlockingQueue<SocketMessage> sendQueue;
+    private final BlockingQueue<Message> receiveQueue;
+    private final MessageDispatcher sender;
+    private final MessageReceiver receiver;
+    private volatile boolean isRunning = true;
+
+    public ThreadedTransport() throws SocketException {
+        this.socket = new DatagramSocket();
+        ShedPolicy shedPolicy = ShedPolicy.forName(Metadata.QUEUE_SHED_POLICY);
+        this.sendQueue = new PriorityMessageQueue<>(Metadata.TRANSPORT_QUEUE_CAPACITY, shedPolicy, message -> message.body);
+        this.receiveQueue = new PriorityMessageQueue<>(Metadata.TRANSPORT_QUEUE_CAPACITY, shedPolicy, message -> message);
+        this.sender = new MessageDispatcher(this.sendQueue, this.socket, Metadata.BATCH_SENDS);
+        this.receiver = new MessageReceiver(this.receiveQueue, this.socket);
+
+        MetricsRegistry.getDefault().gauge(this.metricName("send_queue"), this.sendQueue::size);
+        MetricsRegistry.getDefault().gauge(this.metricName("receive_queue"), this.receiveQueue::size);
+    }
+
+    @Override
+    public int getPort() {
+        return this.socket.getLocalPort();
+    }
+
+    @Override
+    public void start(Consumer<Message> messageConsumer) {
+        this.sender.start();
+        this.receiver.start();
+        this.processReceivedMessages(messageConsumer);
+    }
+
+    @Override
+    public void send(SocketMessage message) {
+        try {
+            this.sendQueue.put(message);
+        } catch (InterruptedException e) {
+            LOGGER.warn("[Enqueue failed ({})] To ({}): {}", this.getPort(), message.endpoint, message.body);
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.isRunning = false;
+        this.sender.stopDispatching();
+        this.receiver.stopReceiving();
+
+        MetricsRegistry.getDefault().removeGauge(this.metricName("send_queue"));
+        MetricsRegistry.getDefault().removeGauge(this.metricName("receive_queue"));
+    }
+
+    private String metricName(String name) {
+        return "transport." + this.getPort() + "." + name;
+    }
+
+    private void processReceivedMessages(Consumer<Message> messageConsumer) {
+        new Thread(() -> {
+            while (this.isRunning) {
+                try {
+                    messageConsumer.accept(this.receiveQueue.take());
+                } catch (InterruptedException e) {
+                    LOGGER.error("[Dispatch Failed ({})] {}", this.getPort(), e.getMessage(), e);
+                }
+            }
+        }).start();
+    }
+}
@@ -0,0 +1,263 @@
+package org.uom.content;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.communication.Endpoint;
+import org.uom.metrics.Counter;
+import org.uom.metrics.MetricsRegistry;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads a file from several sources at once. The manifest comes from the first source that has it; the
+ * file's chunks are then shared out through a queue to {@code connectionsPerSource} workers per source, so a
+ * fast source simply takes more chunks. Every chunk is checked against the manifest's hash before it is
+ * written, and a source that fails or sends a bad chunk is dropped and its chunk handed to the others. The
+ * whole file is checked once more before it is moved into place.
+ */
+public class ChunkedDownloader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedDownloader.class);
+    private final int connectionsPerSource;
+    private final int timeoutMillis;
+    private final ExecutorService workers;
+    private final Counter bytesDownloaded;
+    private final Counter chunkFailures;
+
+    public ChunkedDownloader(int connectionsPerSource, int timeoutMillis) {
+        this.connectionsPerSource = Math.max(connectionsPerSource, 1);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "download-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bytesDownloaded = MetricsRegistry.getDefault().counter("content.bytes_downloaded");
+        this.chunkFailures = MetricsRegistry.getDefault().counter("content.chunk_failures");
+    }
+
+    public CompletableFuture<Path> download(String fileName, List<Endpoint> sources, Path target) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.run(fileName, sources, target);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, this.workers);
+    }
+
+    public void shutdown() {
+        this.workers.shutdownNow();
+    }
+
+    private Path run(String fileName, List<Endpoint> sources, Path target) throws IOException {
+        if (sources.isEmpty()) {
+            throw new IOException("No sources for " + fileName);
+        }
+
+        ContentManifest manifest = this.fetchManifest(fileName, sources);
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try (FileChannel file = FileChannel.open(partial,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            Transfer transfer = new Transfer(fileName, manifest, file);
+            List<Future<?>> running = new ArrayList<>();
+            for (Endpoint source : sources) {
+                for (int i = 0; i < this.connectionsPerSource; i++) {
+                    running.add(this.workers.submit(() -> this.work(transfer, source)));
+                }
+            }
+            transfer.await(running);
+
+            if (!Arrays.equals(hash(file, manifest.size()), manifest.fileHash())) {
+                throw new IOException("Downloaded file does not match its hash: " + fileName);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info("[Download Complete] {} ({} bytes from {} sources)", fileName, manifest.size(), sources.size());
+        return target;
+    }
+
+    private ContentManifest fetchManifest(String fileName, List<Endpoint> sources) throws IOException {
+        IOException failure = null;
+        for (Endpoint source : sources) {
+            try (Connection connection = new Connection(source, this.timeoutMillis)) {
+                return connection.manifest(fileName);
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.info("[Download] No manifest for '{}' from {}: {}", fileName, source, e.getMessage());
+                failure = e instanceof IOException io ? io : new IOException(e);
+            }
+        }
+        throw new IOException("No source has a manifest for " + fileName, failure);
+    }
+
+    /**
+     * Takes chunks from the queue until none are left, giving up on the source at the first error.
+     */
+    private void work(Transfer transfer, Endpoint source) {
+        MessageDigest digest = ContentStore.sha256();
+        byte[] chunk = new byte[transfer.manifest.chunkSize()];
+        Integer index = null;
+        try (Connection connection = new Connection(source, this.timeoutMillis)) {
+            while (transfer.remaining.get() > 0) {
+                index = transfer.pending.poll(50, TimeUnit.MILLISECONDS);
+                if (index == null) {
+                    continue;
+                }
+
+                int length = transfer.manifest.chunkLength(index);
+                connection.range(transfer.fileName, transfer.manifest.chunkOffset(index), length, chunk);
+                digest.update(chunk, 0, length);
+                if (!Arrays.equals(digest.digest(), transfer.manifest.chunkHashes()[index])) {
+                    throw new IOException("Chunk " + index + " does not match its hash");
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, length);
+                long position = transfer.manifest.chunkOffset(index);
+                while (buffer.hasRemaining()) {
+                    position += transfer.file.write(buffer, position);
+                }
+                this.bytesDownloaded.add(length);
+                transfer.remaining.decrementAndGet();
+                index = null;
+            }
+        } catch (IOException e) {
+            LOGGER.info("[Download] Dropping source {} for '{}': {}", source, transfer.fileName, e.getMessage());
+            this.chunkFailures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (index != null) {
+                transfer.pending.add(index);
+            }
+        }
+    }
+
+    private static byte[] hash(FileChannel file, long size) throws IOException {
+        MessageDigest digest = ContentStore.sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (long position = 0; position < size; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+            int read = file.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+            buffer.flip();
+            digest.update(buffer);
+        }
+        return digest.digest();
+    }
+
+    private static final class Transfer {
+        private final String fileName;
+        private final ContentManifest manifest;
+        private final FileChannel file;
+        private final BlockingQueue<Integer> pending;
+        private final AtomicInteger remaining;
+
+        private Transfer(String fileName, ContentManifest manifest, FileChannel file) {
+            this.fileName = fileName;
+            this.manifest = manifest;
+            this.file = file;
+            this.pending = new LinkedBlockingQueue<>();
+            for (int i = 0; i < manifest.chunkCount(); i++) {
+                this.pending.add(i);
+            }
+            this.remaining = new AtomicInteger(manifest.chunkCount());
+        }
+
+        /**
+         * Waits until every chunk is written, or fails once every worker has given up with chunks left over.
+         */
+        private void await(List<Future<?>> running) throws IOException {
+            try {
+                for (Future<?> future : running) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.forEach(future -> future.cancel(true));
+                throw new InterruptedIOException("Download of " + this.fileName + " interrupted");
+            } catch (ExecutionException e) {
+                throw new IOException("Download worker failed", e.getCause());
+            }
+            if (this.remaining.get() > 0) {
+                throw new IOException("Every source failed with " + this.remaining.get() + " chunks of " + this.fileName + " left");
+            }
+        }
+    }
+
+    /**
+     * A blocking connection to one source's {@link ContentServer}. The server listens on the TCP port with
+     * the same number as the node's UDP port.
+     */
+    private static final class Connection implements Closeable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        private Connection(Endpoint source, int timeoutMillis) throws IOException {
+            this.socket = new Socket();
+            try {
+                this.socket.connect(source.socketAddress(), timeoutMillis);
+                this.socket.setSoTimeout(timeoutMillis);
+                this.socket.setTcpNoDelay(true);
+                this.in = new BufferedInputStream(this.socket.getInputStream(), 64 * 1024);
+                this.out = new BufferedOutputStream(this.socket.getOutputStream());
+            } catch (IOException e) {
+                this.socket.close();
+                throw e;
+            }
+        }
+
+        private ContentManifest manifest(String fileName) throws IOException {
+            ContentProtocol.writeLine(this.out, ContentProtocol.MANIFEST + " " + fileName);
+            return ContentManifest.parse(this.readOk());
+        }
+
+        private void range(String fileName, long offset, int length, byte[] into) throws IOException {
+            ContentProtocol.writeLine(this.out, ContentProtocol.RANGE + " " + offset + " " + length + " " + fileName);
+            String reply = this.readOk();
+            if (!reply.equals(Integer.toString(length))) {
+                throw new IOException("Source sent a range of the wrong length: " + reply);
+            }
+            if (this.in.readNBytes(into, 0, length) != length) {
+                throw new EOFException("Source closed mid-range");
+            }
+        }
+
+        private String readOk() throws IOException {
+            String reply = ContentProtocol.readLine(this.in);
+            if (reply == null) {
+                throw new EOFException("Source closed the connection");
+            }
+            if (!reply.startsWith(ContentProtocol.OK + " ")) {
+                throw new IOException("Source refused: " + reply);
+            }
+            return reply.substring(ContentProtocol.OK.length() + 1);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.socket.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.uom.content;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Size and SHA-256 hashes of a shared file: one over the whole content and one per chunk, so a downloader can
+ * check every chunk as it arrives, whichever source it came from. Travels as one line of hex digests.
+ */
+public record ContentManifest(long size, int chunkSize, byte[] fileHash, byte[][] chunkHashes) {
+    private static final HexFormat HEX = HexFormat.of();
+
+    public int chunkCount() {
+        return this.chunkHashes.length;
+    }
+
+    public long chunkOffset(int index) {
+        return (long) index * this.chunkSize;
+    }
+
+    public int chunkLength(int index) {
+        return (int) Math.min(this.chunkSize, this.size - this.chunkOffset(index));
+    }
+
+    /**
+     * {@code <size> <chunkSize> <fileHash> <chunkHash>...}
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder()
+            .append(this.size).append(' ')
+            .append(this.chunkSize).append(' ')
+            .append(HEX.formatHex(this.fileHash));
+        for (byte[] chunkHash : this.chunkHashes) {
+            line.append(' ').append(HEX.formatHex(chunkHash));
+        }
+        return line.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the line is malformed or its chunk count does not match the size
+     */
+    public static ContentManifest parse(String line) {
+        String[] fields = line.trim().split(" +");
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Incomplete manifest: " + line);
+        }
+
+        long size = Long.parseLong(fields[0]);
+        int chunkSize = Integer.parseInt(fields[1]);
+        if (size < 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid manifest size: " + line);
+        }
+        long chunkCount = (size + chunkSize - 1) / chunkSize;
+        if (fields.length - 3 != chunkCount) {
+            throw new IllegalArgumentException("Manifest has " + (fields.length - 3) + " chunk hashes, expected " + chunkCount);
+        }
+
+        byte[][] chunkHashes = new byte[(int) chunkCount][];
+        for (int i = 0; i < chunkHashes.length; i++) {
+            chunkHashes[i] = HEX.parseHex(fields[i + 3]);
+        }
+        return new ContentManifest(size, chunkSize, HEX.parseHex(fields[2]), chunkHashes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ContentManifest other)) {
+            return false;
+        }
+        return this.size == other.size
+            && this.chunkSize == other.chunkSize
+            && Arrays.equals(this.fileHash, other.fileHash)
+            && Arrays.deepEquals(this.chunkHashes, other.chunkHashes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.fileHash);
+    }
+}
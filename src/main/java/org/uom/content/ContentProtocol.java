@@ -0,0 +1,69 @@
+package org.uom.content;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The line-based content protocol. A request is {@code MANIFEST <fileName>} or
+ * {@code RANGE <offset> <length> <fileName>}; the reply is {@code OK <manifest>}, or {@code OK <length>}
+ * followed by exactly that many bytes, or {@code ERR <reason>}. A connection carries any number of requests,
+ * one at a time.
+ */
+final class ContentProtocol {
+    static final String MANIFEST = "MANIFEST";
+    static final String RANGE = "RANGE";
+    static final String OK = "OK";
+    static final String ERR = "ERR";
+    static final int MAX_LINE_LENGTH = 1 << 20;
+
+    private ContentProtocol() {
+    }
+
+    /**
+     * Reads up to the next {@code '\n'}, which is not returned.
+     *
+     * @return the line, or null if the stream ended before any byte of it
+     */
+    static String readLine(InputStream in) throws IOException {
+        byte[] line = new byte[128];
+        int length = 0;
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                if (length == 0) {
+                    return null;
+                }
+                throw new EOFException("Connection closed mid-line");
+            }
+            if (length == line.length) {
+                if (length >= MAX_LINE_LENGTH) {
+                    throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+                }
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = (byte) b;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    static void writeLine(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    static void writeLine(WritableByteChannel channel, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
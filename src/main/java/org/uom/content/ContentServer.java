@@ -0,0 +1,198 @@
+package org.uom.content;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.contracts.processing.Timeout;
+import org.uom.metrics.Counter;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.processing.TimingWheel;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves a {@link ContentStore} over TCP, one connection per worker thread. Ranges are sent with
+ * {@link FileChannel#transferTo}, so file bytes go from the page cache to the socket without being copied
+ * through the JVM. Connections idle for longer than the timeout are closed, and so are those whose reader
+ * takes longer than the timeout to accept any further bytes of a reply.
+ */
+public class ContentServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentServer.class);
+    private final ContentStore store;
+    private final int port;
+    private final int idleTimeoutMillis;
+    private final ExecutorService workers;
+    private final Counter bytesServed;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+
+    public ContentServer(ContentStore store, int port, int threads, int idleTimeoutMillis) {
+        this.store = store;
+        this.port = port;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "content-" + port + "-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bytesServed = MetricsRegistry.getDefault().counter("content.bytes_served");
+    }
+
+    public synchronized void start() throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(this.port));
+        this.acceptor = new Thread(this::acceptLoop, "content-" + this.port + "-accept");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+        LOGGER.info("[Content Server ({})] Serving content over TCP", this.getPort());
+    }
+
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    public synchronized void stop() {
+        try {
+            if (this.serverChannel != null) {
+                this.serverChannel.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Content Server ({})] Error closing: {}", this.port, e.getMessage());
+        }
+        this.workers.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (this.serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = this.serverChannel.accept();
+                this.workers.execute(() -> this.serve(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.warn("[Content Server ({})] Accept failed: {}", this.port, e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (channel) {
+            channel.socket().setSoTimeout(this.idleTimeoutMillis);
+            channel.socket().setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(channel.socket().getInputStream());
+            String request;
+            while ((request = ContentProtocol.readLine(in)) != null) {
+                this.handle(channel, request);
+            }
+        } catch (SocketTimeoutException e) {
+            LOGGER.debug("[Content Server ({})] Closing idle connection", this.port);
+        } catch (IOException e) {
+            LOGGER.debug("[Content Server ({})] Connection failed: {}", this.port, e.getMessage());
+        }
+    }
+
+    private void handle(SocketChannel channel, String request) throws IOException {
+        WriteDeadline deadline = new WriteDeadline(channel);
+        try {
+            this.reply(channel, request, deadline);
+        } finally {
+            deadline.cancel();
+        }
+    }
+
+    private void reply(SocketChannel channel, String request, WriteDeadline deadline) throws IOException {
+        String[] fields = request.split(" ", 4);
+        try {
+            if (fields[0].equals(ContentProtocol.MANIFEST) && fields.length >= 2) {
+                String fileName = request.substring(ContentProtocol.MANIFEST.length() + 1);
+                ContentProtocol.writeLine(channel, ContentProtocol.OK + " " + this.store.getManifest(fileName).toLine());
+            } else if (fields[0].equals(ContentProtocol.RANGE) && fields.length == 4) {
+                this.sendRange(channel, fields[3], Long.parseLong(fields[1]), Long.parseLong(fields[2]), deadline);
+            } else {
+                ContentProtocol.writeLine(channel, ContentProtocol.ERR + " Bad request");
+            }
+        } catch (FileNotFoundException e) {
+            ContentProtocol.writeLine(channel, ContentProtocol.ERR + " " + e.getMessage());
+        } catch (NumberFormatException e) {
+            ContentProtocol.writeLine(channel, ContentProtocol.ERR + " Bad range");
+        }
+    }
+
+    private void sendRange(
+        SocketChannel channel, String fileName, long offset, long length, WriteDeadline deadline) throws IOException {
+        Path path = this.store.getPath(fileName);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (offset < 0 || length < 0 || offset > file.size() || length > file.size() - offset) {
+                ContentProtocol.writeLine(channel, ContentProtocol.ERR + " Range outside file");
+                return;
+            }
+
+            ContentProtocol.writeLine(channel, ContentProtocol.OK + " " + length);
+            long sent = 0;
+            try {
+                while (sent < length) {
+                    long transferred = file.transferTo(offset + sent, length - sent, channel);
+                    if (transferred == 0) {
+                        throw new IOException("File shrank while sending: " + fileName);
+                    }
+                    sent += transferred;
+                    deadline.rearm();
+                }
+            } finally {
+                this.bytesServed.add(sent);
+            }
+        }
+    }
+
+    /**
+     * Closes the connection if a reply makes no progress for the timeout: the socket timeout only bounds
+     * reads, so a reader that stops reading would otherwise hold a worker for good. The output is shut down
+     * first because closing alone does not wake a thread blocked in {@code transferTo}.
+     */
+    private final class WriteDeadline {
+        private final SocketChannel channel;
+        private Timeout timeout;
+
+        private WriteDeadline(SocketChannel channel) {
+            this.channel = channel;
+            this.rearm();
+        }
+
+        private void rearm() {
+            this.cancel();
+            this.timeout = TimingWheel.getDefault().schedule(this::expire, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void cancel() {
+            if (this.timeout != null) {
+                this.timeout.cancel();
+            }
+        }
+
+        private void expire() {
+            LOGGER.debug("[Content Server ({})] Closing connection stalled on write", port);
+            try {
+                this.channel.shutdownOutput();
+                this.channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("[Content Server ({})] Error closing: {}", port, e.getMessage());
+            }
+        }
+    }
+}
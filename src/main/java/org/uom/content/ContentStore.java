@@ -0,0 +1,159 @@
+package org.uom.content;
+
+import org.uom.utils.Hashing;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bytes behind the file names a node shares. A name is served from the file of the same (escaped) name in
+ * the content directory; if there is none, one of {@code generatedSize} bytes is generated from the name, so
+ * every node sharing a name serves identical content. Manifests are computed on first use and kept.
+ */
+public class ContentStore {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private final Path directory;
+    private final long generatedSize;
+    private final int chunkSize;
+    private final Set<String> shared;
+    private final Map<String, ContentManifest> manifests;
+
+    public ContentStore(Path directory, long generatedSize, int chunkSize) {
+        this.directory = directory;
+        this.generatedSize = generatedSize;
+        this.chunkSize = chunkSize;
+        this.shared = new HashSet<>();
+        this.manifests = new HashMap<>();
+    }
+
+    public synchronized void setFiles(Collection<String> fileNames) {
+        this.shared.clear();
+        this.shared.addAll(fileNames);
+        this.manifests.keySet().retainAll(this.shared);
+    }
+
+    public synchronized boolean contains(String fileName) {
+        return this.shared.contains(fileName);
+    }
+
+    /**
+     * Path of a shared file's content, generating it first if needed.
+     *
+     * @throws FileNotFoundException if the name is not shared
+     */
+    public Path getPath(String fileName) throws IOException {
+        if (!this.contains(fileName)) {
+            throw new FileNotFoundException("Not shared: " + fileName);
+        }
+
+        Path path = this.directory.resolve(escape(fileName));
+        if (!Files.exists(path)) {
+            this.generate(fileName, path);
+        }
+        return path;
+    }
+
+    public ContentManifest getManifest(String fileName) throws IOException {
+        Path path = this.getPath(fileName);
+        synchronized (this) {
+            ContentManifest manifest = this.manifests.get(fileName);
+            if (manifest != null && manifest.size() == Files.size(path)) {
+                return manifest;
+            }
+        }
+
+        ContentManifest manifest = computeManifest(path, this.chunkSize);
+        synchronized (this) {
+            this.manifests.put(fileName, manifest);
+        }
+        return manifest;
+    }
+
+    static ContentManifest computeManifest(Path path, int chunkSize) throws IOException {
+        MessageDigest fileDigest = sha256();
+        MessageDigest chunkDigest = sha256();
+        List<byte[]> chunkHashes = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long offset = 0; offset < size; offset += chunkSize) {
+                buffer.clear().limit((int) Math.min(chunkSize, size - offset));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        throw new IOException("File shrank while hashing: " + path);
+                    }
+                }
+                buffer.flip();
+                fileDigest.update(buffer.duplicate());
+                chunkDigest.update(buffer);
+                chunkHashes.add(chunkDigest.digest());
+            }
+            return new ContentManifest(size, chunkSize, fileDigest.digest(), chunkHashes.toArray(new byte[0][]));
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Writes the generated content to a temporary file and moves it into place, so concurrent generators and
+     * readers never see a partial file.
+     */
+    private void generate(String fileName, Path path) throws IOException {
+        Files.createDirectories(this.directory);
+        Path temporary = this.directory.resolve(path.getFileName() + "." + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE) + ".tmp");
+
+        Random random = new Random(Hashing.hash64(fileName));
+        byte[] block = new byte[64 * 1024];
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (long written = 0; written < this.generatedSize; ) {
+                random.nextBytes(block);
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, (int) Math.min(block.length, this.generatedSize - written));
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            }
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            if (!Files.exists(path)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Keeps letters, digits and hyphens and writes every other byte of the name's UTF-8 as {@code _} and two
+     * hex digits, so distinct names never share a file; "Kung Fu" is stored as "Kung_20Fu".
+     */
+    static String escape(String fileName) {
+        StringBuilder escaped = new StringBuilder(fileName.length());
+        for (byte b : fileName.getBytes(StandardCharsets.UTF_8)) {
+            if ((b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '-') {
+                escaped.append((char) b);
+            } else {
+                escaped.append('_').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package org.uom.contracts.communication;
+
+import org.uom.model.message.Message;
+import org.uom.model.message.SocketMessage;
+
+import java.util.function.Consumer;
+
+public interface Transport {
+    int getPort();
+
+    void start(Consumer<Message> messageConsumer);
+
+    void send(SocketMessage message);
+
+    void stop();
+}
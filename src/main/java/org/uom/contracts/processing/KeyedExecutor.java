@@ -0,0 +1,6 @@
+package org.uom.contracts.processing;
+
+@FunctionalInterface
+public interface KeyedExecutor {
+    void execute(int key, Runnable task);
+}
@@ -0,0 +1,15 @@
+package org.uom.contracts.processing;
+
+import java.util.concurrent.TimeUnit;
+
+@FunctionalInterface
+public interface Scheduler {
+    Timeout schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * The scheduler's clock, for measuring the delays it schedules against.
+     */
+    default long nanoTime() {
+        return System.nanoTime();
+    }
+}
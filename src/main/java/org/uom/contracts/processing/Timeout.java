@@ -0,0 +1,12 @@
+package org.uom.contracts.processing;
+
+/**
+ * A task handed to a {@link Scheduler}, which can be called off until it runs.
+ */
+@FunctionalInterface
+public interface Timeout {
+    /**
+     * Stops the task from running. Returns false if it has already run or been cancelled.
+     */
+    boolean cancel();
+}
@@ -0,0 +1,10 @@
+package org.uom.contracts.search;
+
+import org.uom.domain.Node;
+import org.uom.search.ActiveSearches.Search;
+
+public interface SearchStrategy {
+    String name();
+
+    void start(Node node, Search search);
+}
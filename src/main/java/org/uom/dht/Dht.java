@@ -0,0 +1,288 @@
+package org.uom.dht;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.communication.Endpoint;
+import org.uom.domain.Node;
+import org.uom.metrics.Metrics;
+import org.uom.model.message.*;
+import org.uom.utils.Constants.Metadata;
+import org.uom.utils.FileUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kademlia-style DHT run by a node next to its unstructured overlay. File names and their keyword tokens are
+ * published to the {@link Metadata#DHT_K} nodes whose ids are closest to the key, and lookups walk towards the
+ * key with up to {@link Metadata#DHT_ALPHA} requests in flight, so any published name is found in
+ * {@code O(log n)} hops however far away its host is.
+ *
+ * <p>Stored records expire after {@link Metadata#DHT_RECORD_TTL_SECONDS} unless their publisher republishes
+ * them; unsharing a file only stops republishing it.
+ */
+public class Dht {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Dht.class);
+    private final Node node;
+    private final Endpoint self;
+    private final long selfId;
+    private final RoutingTable routingTable;
+    private final LinkedHashMap<Long, Map<Endpoint, Long>> records;
+    private final Map<Long, Rpc> pending;
+    private final Set<Long> publishedKeys;
+    private boolean started;
+    private boolean stopped;
+
+    public Dht(Node node) {
+        this.node = node;
+        this.self = node.getEndpoint();
+        this.selfId = DhtIds.of(this.self);
+        this.routingTable = new RoutingTable(this.selfId, Metadata.DHT_K);
+        this.records = new LinkedHashMap<>(16, 0.75f, true);
+        this.pending = new HashMap<>();
+        this.publishedKeys = new HashSet<>();
+    }
+
+    public long getId() {
+        return this.selfId;
+    }
+
+    public RoutingTable getRoutingTable() {
+        return this.routingTable;
+    }
+
+    public void addContact(Endpoint contact) {
+        this.routingTable.touch(contact);
+    }
+
+    /**
+     * Joins the DHT through the contacts known so far by looking up this node's own id, which fills the
+     * buckets on the way, then publishes the node's files and starts republishing them periodically.
+     */
+    public synchronized void start() {
+        if (this.started || this.stopped) {
+            return;
+        }
+        this.started = true;
+        LOGGER.info("[DHT Join ({})] Joining with id {}", this.self.port(), Long.toHexString(this.selfId));
+        this.findNode(this.selfId).thenRun(this::republish);
+
+        if (Metadata.DHT_REPUBLISH_SECONDS > 0) {
+            this.scheduleRepublish();
+        }
+    }
+
+    public synchronized void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Sets the files this node publishes. Keys that were not published before are stored right away once the
+     * node has joined.
+     */
+    public synchronized void setFiles(Collection<String> fileNames) {
+        Set<Long> keys = new HashSet<>();
+        for (String fileName : fileNames) {
+            keys.add(DhtIds.forFileName(fileName));
+            for (String token : FileUtils.tokenize(fileName)) {
+                keys.add(DhtIds.forToken(token));
+            }
+        }
+
+        for (Long key : keys) {
+            if (!this.publishedKeys.contains(key) && this.started) {
+                this.store(key);
+            }
+        }
+        this.publishedKeys.clear();
+        this.publishedKeys.addAll(keys);
+    }
+
+    public synchronized void republish() {
+        for (Long key : this.publishedKeys) {
+            this.store(key);
+        }
+    }
+
+    /**
+     * Looks up the hosts stored under the key. Completes with an empty list if the lookup reaches the nodes
+     * closest to the key without finding any.
+     */
+    public synchronized CompletableFuture<List<Endpoint>> findValue(long key) {
+        List<Endpoint> local = this.getRecords(key);
+        if (!local.isEmpty()) {
+            Metrics.DHT_LOOKUP_HOPS.record(0);
+            return CompletableFuture.completedFuture(local);
+        }
+        return this.lookup(key, true);
+    }
+
+    /**
+     * Looks up the {@link Metadata#DHT_K} live nodes closest to the target id.
+     */
+    public synchronized CompletableFuture<List<Endpoint>> findNode(long target) {
+        return this.lookup(target, false);
+    }
+
+    public synchronized void onFindNode(Endpoint origin, DhtFindNode request) {
+        this.routingTable.touch(origin);
+        this.node.sendTo(origin, new DhtNodes(request.rpcId, this.closestContacts(request.target, origin)));
+    }
+
+    public synchronized void onFindValue(Endpoint origin, DhtFindValue request) {
+        this.routingTable.touch(origin);
+        List<Endpoint> hosts = this.getRecords(request.key);
+        if (hosts.isEmpty()) {
+            this.node.sendTo(origin, new DhtNodes(request.rpcId, this.closestContacts(request.key, origin)));
+        } else {
+            this.node.sendTo(origin, new DhtValues(request.rpcId, hosts.toArray(new Endpoint[0])));
+        }
+    }
+
+    public synchronized void onStore(Endpoint origin, DhtStore store) {
+        this.routingTable.touch(origin);
+        this.putRecord(store.key, store.host);
+    }
+
+    public synchronized void onNodes(Endpoint origin, DhtNodes response) {
+        this.routingTable.touch(origin);
+        Rpc rpc = this.pending.remove(response.rpcId);
+        if (rpc == null || !rpc.candidate.contact.equals(origin)) {
+            return;
+        }
+
+        rpc.lookup.onResponse(rpc.candidate);
+        for (Endpoint contact : response.nodes) {
+            if (!contact.equals(this.self)) {
+                rpc.lookup.offer(contact, rpc.candidate.hops + 1);
+            }
+        }
+        this.step(rpc.lookup);
+    }
+
+    public synchronized void onValues(Endpoint origin, DhtValues response) {
+        this.routingTable.touch(origin);
+        Rpc rpc = this.pending.remove(response.rpcId);
+        if (rpc == null || !rpc.candidate.contact.equals(origin)) {
+            return;
+        }
+
+        rpc.lookup.onResponse(rpc.candidate);
+        if (!rpc.lookup.result.isDone()) {
+            Metrics.DHT_LOOKUP_HOPS.record(rpc.candidate.hops);
+            rpc.lookup.result.complete(List.of(response.hosts));
+        }
+    }
+
+    private CompletableFuture<List<Endpoint>> lookup(long target, boolean findValue) {
+        Lookup lookup = new Lookup(target, findValue);
+        for (Endpoint contact : this.routingTable.closest(target, Metadata.DHT_K, null)) {
+            lookup.offer(contact, 1);
+        }
+        this.step(lookup);
+        return lookup.result;
+    }
+
+    private void step(Lookup lookup) {
+        if (lookup.result.isDone()) {
+            return;
+        }
+
+        for (Lookup.Candidate candidate : lookup.next(Metadata.DHT_ALPHA, Metadata.DHT_K)) {
+            long rpcId = ThreadLocalRandom.current().nextLong();
+            this.pending.put(rpcId, new Rpc(lookup, candidate));
+            Message request = lookup.findValue
+                ? new DhtFindValue(rpcId, lookup.target)
+                : new DhtFindNode(rpcId, lookup.target);
+            this.node.sendTo(candidate.contact, request);
+            this.node.schedule(() -> this.onTimeout(rpcId), Metadata.DHT_RPC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        if (lookup.isIdle()) {
+            List<Endpoint> closest = lookup.findValue ? List.of() : lookup.closestResponded(Metadata.DHT_K);
+            if (lookup.findValue) {
+                Metrics.DHT_LOOKUP_FAILURES.increment();
+            }
+            lookup.result.complete(closest);
+        }
+    }
+
+    private synchronized void onTimeout(long rpcId) {
+        Rpc rpc = this.pending.remove(rpcId);
+        if (rpc == null) {
+            return;
+        }
+
+        LOGGER.info("[DHT Timeout ({})] No answer from {}", this.self.port(), rpc.candidate.contact);
+        this.routingTable.remove(rpc.candidate.contact);
+        rpc.lookup.onFailure(rpc.candidate);
+        this.step(rpc.lookup);
+    }
+
+    /**
+     * Stores the key at the closest nodes a lookup finds, and here as well if fewer than
+     * {@link Metadata#DHT_K} were found.
+     */
+    private void store(long key) {
+        this.findNode(key).thenAccept(closest -> {
+            for (Endpoint contact : closest) {
+                this.node.sendTo(contact, new DhtStore(key, this.self));
+            }
+            if (closest.size() < Metadata.DHT_K) {
+                synchronized (this) {
+                    this.putRecord(key, this.self);
+                }
+            }
+        });
+    }
+
+    private void scheduleRepublish() {
+        this.node.schedule(() -> {
+            synchronized (this) {
+                if (this.stopped) {
+                    return;
+                }
+                this.republish();
+                this.scheduleRepublish();
+            }
+        }, Metadata.DHT_REPUBLISH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private Endpoint[] closestContacts(long target, Endpoint exclude) {
+        return this.routingTable.closest(target, Metadata.DHT_K, exclude).toArray(new Endpoint[0]);
+    }
+
+    private List<Endpoint> getRecords(long key) {
+        Map<Endpoint, Long> hosts = this.records.get(key);
+        if (hosts == null) {
+            return List.of();
+        }
+
+        long now = this.node.nanoTime();
+        hosts.values().removeIf(expiresAt -> now - expiresAt >= 0);
+        if (hosts.isEmpty()) {
+            this.records.remove(key);
+            return List.of();
+        }
+        return new ArrayList<>(hosts.keySet());
+    }
+
+    private void putRecord(long key, Endpoint host) {
+        Map<Endpoint, Long> hosts = this.records.computeIfAbsent(key, k -> new LinkedHashMap<>());
+        hosts.remove(host);
+        hosts.put(host, this.node.nanoTime() + TimeUnit.SECONDS.toNanos(Metadata.DHT_RECORD_TTL_SECONDS));
+        if (hosts.size() > Metadata.DHT_VALUES_PER_KEY) {
+            hosts.remove(hosts.keySet().iterator().next());
+        }
+        if (this.records.size() > Metadata.DHT_MAX_KEYS) {
+            Iterator<Long> eldest = this.records.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private record Rpc(Lookup lookup, Lookup.Candidate candidate) {
+    }
+}
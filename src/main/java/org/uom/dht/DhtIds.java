@@ -0,0 +1,50 @@
+package org.uom.dht;
+
+import org.uom.communication.Endpoint;
+import org.uom.utils.FileUtils;
+import org.uom.utils.Hashing;
+
+/**
+ * The 64-bit id space shared by nodes and keys. A node's id is derived from its endpoint, so any peer can work
+ * out the id of an address it has been given without asking; keys hash a file name or a single keyword token.
+ */
+public final class DhtIds {
+    private DhtIds() {
+    }
+
+    public static long of(Endpoint endpoint) {
+        long key = endpoint.key();
+        return key >= 0 ? Hashing.mix64(key) : Hashing.hash64(endpoint.toString());
+    }
+
+    /**
+     * Key of an exact file name. Names are compared by their lower-cased tokens, so spacing and case do not
+     * matter, the same way the unstructured search matches them.
+     */
+    public static long forFileName(String fileName) {
+        return Hashing.hash64("name:" + String.join(" ", FileUtils.tokenize(fileName)));
+    }
+
+    public static long forToken(String token) {
+        return Hashing.hash64("token:" + token);
+    }
+
+    public static long distance(long a, long b) {
+        return a ^ b;
+    }
+
+    /**
+     * Orders two ids by their XOR distance to the target, as unsigned numbers.
+     */
+    public static int compareDistance(long target, long a, long b) {
+        return Long.compareUnsigned(a ^ target, b ^ target);
+    }
+
+    /**
+     * Index of the k-bucket, 0 to 63, for an id as seen from {@code self}: the position of the highest bit in
+     * which they differ. -1 if they are equal.
+     */
+    public static int bucketIndex(long self, long id) {
+        return 63 - Long.numberOfLeadingZeros(self ^ id);
+    }
+}
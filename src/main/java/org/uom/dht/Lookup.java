@@ -0,0 +1,112 @@
+package org.uom.dht;
+
+import org.uom.communication.Endpoint;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State of one iterative lookup: the contacts heard of so far, nearest to the target first, and which of them
+ * have been asked. Only touched while holding the owning {@link Dht}'s lock.
+ */
+final class Lookup {
+    final long target;
+    final boolean findValue;
+    final CompletableFuture<List<Endpoint>> result;
+    private final List<Candidate> shortlist;
+    private final Set<Endpoint> seen;
+    private int inFlight;
+
+    Lookup(long target, boolean findValue) {
+        this.target = target;
+        this.findValue = findValue;
+        this.result = new CompletableFuture<>();
+        this.shortlist = new ArrayList<>();
+        this.seen = new HashSet<>();
+    }
+
+    void offer(Endpoint contact, int hops) {
+        if (!this.seen.add(contact)) {
+            return;
+        }
+
+        Candidate candidate = new Candidate(contact, DhtIds.of(contact), hops);
+        int index = 0;
+        while (index < this.shortlist.size()
+            && DhtIds.compareDistance(this.target, this.shortlist.get(index).id, candidate.id) < 0) {
+            index++;
+        }
+        this.shortlist.add(index, candidate);
+    }
+
+    /**
+     * Picks the nearest unasked contacts among the {@code k} nearest live ones, keeping at most {@code alpha}
+     * requests in flight.
+     */
+    List<Candidate> next(int alpha, int k) {
+        List<Candidate> next = new ArrayList<>();
+        int live = 0;
+        for (Candidate candidate : this.shortlist) {
+            if (live >= k || this.inFlight + next.size() >= alpha) {
+                break;
+            }
+            if (candidate.state == State.FAILED) {
+                continue;
+            }
+            live++;
+            if (candidate.state == State.NEW) {
+                candidate.state = State.WAITING;
+                next.add(candidate);
+            }
+        }
+        this.inFlight += next.size();
+        return next;
+    }
+
+    boolean isIdle() {
+        return this.inFlight == 0;
+    }
+
+    void onResponse(Candidate candidate) {
+        candidate.state = State.RESPONDED;
+        this.inFlight--;
+    }
+
+    void onFailure(Candidate candidate) {
+        candidate.state = State.FAILED;
+        this.inFlight--;
+    }
+
+    List<Endpoint> closestResponded(int k) {
+        List<Endpoint> closest = new ArrayList<>();
+        for (Candidate candidate : this.shortlist) {
+            if (closest.size() >= k) {
+                break;
+            }
+            if (candidate.state == State.RESPONDED) {
+                closest.add(candidate.contact);
+            }
+        }
+        return closest;
+    }
+
+    enum State {
+        NEW,
+        WAITING,
+        RESPONDED,
+        FAILED
+    }
+
+    static final class Candidate {
+        final Endpoint contact;
+        final long id;
+        final int hops;
+        State state = State.NEW;
+
+        private Candidate(Endpoint contact, long id, int hops) {
+            this.contact = contact;
+            this.id = id;
+            this.hops = hops;
+        }
+    }
+}
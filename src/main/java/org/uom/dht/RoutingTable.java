@@ -0,0 +1,123 @@
+package org.uom.dht;
+
+import org.uom.communication.Endpoint;
+
+import java.util.*;
+
+/**
+ * Kademlia k-buckets: one per bit of the id space, each holding up to {@code k} contacts in least-recently-seen
+ * order. A full bucket keeps its long-lived contacts and parks newcomers in a replacement list of the same
+ * size, from which the most recently seen is promoted when a contact fails.
+ */
+public class RoutingTable {
+    private final long selfId;
+    private final int k;
+    private final Bucket[] buckets;
+
+    public RoutingTable(long selfId, int k) {
+        this.selfId = selfId;
+        this.k = k;
+        this.buckets = new Bucket[Long.SIZE];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Records that the contact was just heard from.
+     *
+     * @return whether the contact was not in its bucket before
+     */
+    public synchronized boolean touch(Endpoint contact) {
+        int index = DhtIds.bucketIndex(this.selfId, DhtIds.of(contact));
+        if (index < 0) {
+            return false;
+        }
+
+        Bucket bucket = this.buckets[index];
+        if (bucket.contacts.remove(contact)) {
+            bucket.contacts.add(contact);
+            return false;
+        }
+        if (bucket.contacts.size() < this.k) {
+            bucket.contacts.add(contact);
+            return true;
+        }
+
+        bucket.replacements.remove(contact);
+        bucket.replacements.add(contact);
+        if (bucket.replacements.size() > this.k) {
+            bucket.replacements.remove(bucket.replacements.iterator().next());
+        }
+        return false;
+    }
+
+    /**
+     * Drops a contact that stopped answering and promotes the most recently seen replacement, if any.
+     */
+    public synchronized void remove(Endpoint contact) {
+        int index = DhtIds.bucketIndex(this.selfId, DhtIds.of(contact));
+        if (index < 0) {
+            return;
+        }
+
+        Bucket bucket = this.buckets[index];
+        bucket.replacements.remove(contact);
+        if (bucket.contacts.remove(contact) && !bucket.replacements.isEmpty()) {
+            Endpoint replacement = null;
+            for (Endpoint candidate : bucket.replacements) {
+                replacement = candidate;
+            }
+            bucket.replacements.remove(replacement);
+            bucket.contacts.add(replacement);
+        }
+    }
+
+    /**
+     * Up to {@code count} contacts closest to the target, nearest first. Every contact in bucket {@code j}
+     * shares the target's distance bits above {@code j}, so the buckets are visited nearest first (those where
+     * self and target differ at bit {@code j}, from the top, then the rest from the bottom) and only the ones
+     * needed are sorted.
+     */
+    public synchronized List<Endpoint> closest(long target, int count, Endpoint exclude) {
+        List<Endpoint> closest = new ArrayList<>(count);
+        long differing = this.selfId ^ target;
+        for (int j = Long.SIZE - 1; j >= 0 && closest.size() < count; j--) {
+            if ((differing >>> j & 1) != 0) {
+                this.addNearest(this.buckets[j], target, count, exclude, closest);
+            }
+        }
+        for (int j = 0; j < Long.SIZE && closest.size() < count; j++) {
+            if ((differing >>> j & 1) == 0) {
+                this.addNearest(this.buckets[j], target, count, exclude, closest);
+            }
+        }
+        return closest;
+    }
+
+    private void addNearest(Bucket bucket, long target, int count, Endpoint exclude, List<Endpoint> closest) {
+        if (bucket.contacts.isEmpty()) {
+            return;
+        }
+
+        List<Endpoint> contacts = new ArrayList<>(bucket.contacts);
+        contacts.remove(exclude);
+        contacts.sort((a, b) -> DhtIds.compareDistance(target, DhtIds.of(a), DhtIds.of(b)));
+        for (int i = 0; i < contacts.size() && closest.size() < count; i++) {
+            closest.add(contacts.get(i));
+        }
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Bucket bucket : this.buckets) {
+            size += bucket.contacts.size();
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+        private final LinkedHashSet<Endpoint> contacts = new LinkedHashSet<>();
+        private final LinkedHashSet<Endpoint> replacements = new LinkedHashSet<>();
+    }
+}
@@ -1,4 +1,18 @@
 package org.uom.domain;
 
-public record Neighbour(String ipAddress, int port) {
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+
+public record Neighbour(Endpoint endpoint) {
+    public Neighbour(String ipAddress, int port) {
+        this(EndpointRegistry.getDefault().get(ipAddress, port));
+    }
+
+    public String ipAddress() {
+        return this.endpoint.ipAddress();
+    }
+
+    public int port() {
+        return this.endpoint.port();
+    }
 }
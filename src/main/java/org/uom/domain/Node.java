@@ -2,27 +2,62 @@ package org.uom.domain;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.uom.communication.MessageDispatcher;
-import org.uom.communication.MessageReceiver;
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.communication.MessageCodec;
+import org.uom.communication.ReliableTransport;
+import org.uom.communication.ThreadedTransport;
+import org.uom.content.ChunkedDownloader;
+import org.uom.content.ContentStore;
+import org.uom.contracts.communication.Transport;
+import org.uom.contracts.processing.KeyedExecutor;
+import org.uom.contracts.processing.Scheduler;
+import org.uom.contracts.processing.Timeout;
+import org.uom.contracts.search.SearchStrategy;
 import org.uom.contracts.handlers.MessageHandler;
+import org.uom.dht.Dht;
+import org.uom.dht.DhtIds;
 import org.uom.handlers.*;
-import org.uom.model.message.Message;
-import org.uom.model.message.SearchMessage;
-import org.uom.model.message.SocketMessage;
-import org.uom.utils.Constants;
-import org.uom.utils.Constants.Commands;
+import org.uom.membership.Membership;
+import org.uom.metrics.Metrics;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.*;
+import org.uom.processing.MessageTask;
+import org.uom.processing.PeerRateLimiter;
+import org.uom.processing.StripedExecutor;
+import org.uom.processing.TrafficClass;
+import org.uom.processing.TimingWheel;
+import org.uom.search.ActiveSearches;
+import org.uom.search.ActiveSearches.Search;
+import org.uom.search.BloomFilter;
+import org.uom.search.FileIndex;
+import org.uom.search.InFlightSearches;
+import org.uom.search.InFlightSearches.Waiter;
+import org.uom.search.QueryHitCache;
+import org.uom.search.RecentSearchIds;
+import org.uom.search.RoutingSummaries;
+import org.uom.search.SearchResult;
+import org.uom.search.SearchStrategies;
+import org.uom.topology.PeerLatencies;
+import org.uom.topology.TopologyOptimizer;
 import org.uom.utils.Constants.MessageTypes;
 import org.uom.utils.Constants.Metadata;
 import org.uom.utils.FileUtils;
 import org.uom.utils.UsernameGenerator;
 
-import java.net.DatagramSocket;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static java.util.function.Predicate.not;
@@ -31,71 +66,192 @@ public class Node {
     private static final Logger LOGGER = LoggerFactory.getLogger(Node.class);
     private final String ipAddress;
     private final int port;
+    private final Endpoint endpoint;
     private final String username;
-    private final DatagramSocket socket;
-    private final String bSrvIpAddress;
-    private final int bSrvPort;
-    private final BlockingQueue<SocketMessage> sendQueue;
-    private final BlockingQueue<Message> receiveQueue;
-    private final MessageDispatcher sender;
-    private final MessageReceiver receiver;
+    private final Transport transport;
+    private final KeyedExecutor pipeline;
+    private final Scheduler scheduler;
+    private final Endpoint bSrvEndpoint;
     private final Map<String, MessageHandler> responseHandlerMap;
-    private final List<Neighbour> neighbours;
-    private final List<File> files;
-    private final Map<String, List<Neighbour>> visitedNodes;
-    private final Map<String, List<String>> queryHitNodesMap;
+    private final CopyOnWriteArrayList<Neighbour> neighbours;
+    private final FileIndex files;
+    private final RecentSearchIds recentSearchIds;
+    private final QueryHitCache queryHitCache;
+    private final ActiveSearches activeSearches;
+    private final InFlightSearches inFlightSearches;
+    private final Map<Long, SearchMessage> parkedWalkers;
+    private final SearchStrategy defaultStrategy;
+    private final RoutingSummaries routingSummaries;
+    private final AtomicBoolean summaryAdvertPending;
+    private final Dht dht;
+    private final Membership membership;
+    private final PeerLatencies peerLatencies;
+    private final TopologyOptimizer topology;
+    private final ContentStore content;
+    private final ChunkedDownloader downloader;
+    private final Path snapshotFile;
+    private final int protocol;
+    private final Set<Endpoint> binaryPeers;
+    private final PeerRateLimiter rateLimiter;
+    private final PeerRateLimiter controlRateLimiter;
+    private volatile Timeout snapshotTimer;
+    private volatile Timeout expiryTimer;
+    private volatile boolean rejoined;
+    private volatile boolean stopped;
 
     public Node(String bSrvIpAddress, int bSrvPort) throws SocketException, UnknownHostException {
-        try {
-            this.ipAddress = InetAddress.getLocalHost().getHostAddress();
-            this.socket = new DatagramSocket();
-        } catch (SocketException | UnknownHostException e) {
-            LOGGER.error("[Node initialize] Could not initialize Node");
-            throw e;
-        }
+        this(bSrvIpAddress, bSrvPort, createThreadedTransport());
+    }
 
-        this.port = this.socket.getLocalPort();
-        this.username = this.generateUsername();
+    public Node(String bSrvIpAddress, int bSrvPort, Transport transport) throws UnknownHostException {
+        this(bSrvIpAddress, bSrvPort, transport, StripedExecutor.getDefault());
+    }
+
+    /**
+     * A node that saves its routing state to the snapshot file and, if the file is there, warm-starts from it.
+     */
+    public Node(String bSrvIpAddress, int bSrvPort, Transport transport, Path snapshotFile) throws UnknownHostException {
+        this(localHostAddress(), bSrvIpAddress, bSrvPort, transport, StripedExecutor.getDefault(), TimingWheel.getDefault(), snapshotFile);
+    }
+
+    public Node(String bSrvIpAddress, int bSrvPort, Transport transport, KeyedExecutor pipeline) throws UnknownHostException {
+        this(localHostAddress(), bSrvIpAddress, bSrvPort, transport, pipeline);
+    }
+
+    public Node(String ipAddress, String bSrvIpAddress, int bSrvPort, Transport transport, KeyedExecutor pipeline) {
+        this(ipAddress, bSrvIpAddress, bSrvPort, transport, pipeline, TimingWheel.getDefault());
+    }
+
+    public Node(
+        String ipAddress,
+        String bSrvIpAddress,
+        int bSrvPort,
+        Transport transport,
+        KeyedExecutor pipeline,
+        Scheduler scheduler) {
+
+        this(ipAddress, bSrvIpAddress, bSrvPort, transport, pipeline, scheduler, null);
+    }
 
-        this.bSrvIpAddress = bSrvIpAddress;
-        this.bSrvPort = bSrvPort;
+    public Node(
+        String ipAddress,
+        String bSrvIpAddress,
+        int bSrvPort,
+        Transport transport,
+        KeyedExecutor pipeline,
+        Scheduler scheduler,
+        Path snapshotFile) {
 
-        this.sendQueue = new LinkedBlockingQueue<>();
-        this.receiveQueue = new LinkedBlockingQueue<>();
+        this.ipAddress = ipAddress;
+        this.transport = new ReliableTransport(
+            transport,
+            scheduler,
+            Metadata.RELIABLE_DELIVERY ? Metadata.RELIABLE_TYPES : Set.of());
+        this.pipeline = pipeline;
+        this.scheduler = scheduler;
+        this.port = this.transport.getPort();
+        this.endpoint = EndpointRegistry.getDefault().get(this.ipAddress, this.port);
+        this.username = this.generateUsername();
 
-        this.sender = new MessageDispatcher(this.sendQueue, this.socket);
-        this.receiver = new MessageReceiver(this.receiveQueue, this.socket);
+        this.bSrvEndpoint = EndpointRegistry.getDefault().get(bSrvIpAddress, bSrvPort);
 
         this.responseHandlerMap = new HashMap<>();
-        this.neighbours = new ArrayList<>();
-        this.files = new ArrayList<>();
-        this.visitedNodes = new HashMap<>();
-        this.queryHitNodesMap = new HashMap<>();
+        this.neighbours = new CopyOnWriteArrayList<>();
+        this.files = new FileIndex();
+        this.recentSearchIds = new RecentSearchIds(
+            Metadata.SEARCH_ID_CAPACITY, Metadata.SEARCH_ID_WINDOW_SECONDS, TimeUnit.SECONDS, scheduler);
+        this.queryHitCache = new QueryHitCache(
+            Metadata.QUERY_HIT_CACHE_SIZE,
+            Metadata.QUERY_HIT_PEERS_PER_FILE,
+            Metadata.QUERY_HIT_TTL_SECONDS,
+            TimeUnit.SECONDS,
+            scheduler);
+        this.activeSearches = new ActiveSearches(
+            Metadata.ACTIVE_SEARCHES, Metadata.ACTIVE_SEARCH_SECONDS, TimeUnit.SECONDS, scheduler);
+        this.inFlightSearches = new InFlightSearches(
+            Metadata.IN_FLIGHT_SEARCHES,
+            Metadata.QUERY_HIT_PEERS_PER_FILE,
+            Metadata.SEARCH_MAX_RESULTS,
+            Metadata.SEARCH_COLLAPSE_WINDOW_MILLIS,
+            TimeUnit.MILLISECONDS);
+        this.parkedWalkers = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SearchMessage> eldest) {
+                return this.size() > Metadata.PARKED_WALKERS;
+            }
+        };
+        this.defaultStrategy = SearchStrategies.forName(Metadata.SEARCH_STRATEGY);
+        this.routingSummaries = new RoutingSummaries(
+            Metadata.ROUTING_SUMMARY_DEPTH,
+            Metadata.ROUTING_SUMMARY_BITS,
+            Metadata.ROUTING_SUMMARY_HASHES);
+        this.summaryAdvertPending = new AtomicBoolean();
+        this.dht = new Dht(this);
+        this.membership = new Membership(this);
+        this.peerLatencies = new PeerLatencies();
+        this.topology = new TopologyOptimizer(this, this.peerLatencies);
+        this.content = new ContentStore(
+            Path.of(Metadata.CONTENT_DIR),
+            Metadata.CONTENT_GENERATED_SIZE,
+            Metadata.CONTENT_CHUNK_SIZE);
+        this.downloader = new ChunkedDownloader(Metadata.CONTENT_CONNECTIONS_PER_SOURCE, Metadata.CONTENT_TIMEOUT_MILLIS);
+        this.snapshotFile = snapshotFile;
+        this.protocol = Metadata.BINARY_PROTOCOL ? MessageCodec.PROTOCOL_BINARY : MessageCodec.PROTOCOL_TEXT;
+        this.binaryPeers = ConcurrentHashMap.newKeySet();
+        this.rateLimiter = new PeerRateLimiter(Metadata.PEER_RATE_LIMIT, Metadata.PEER_RATE_BURST, Metadata.RATE_LIMITED_PEERS);
+        this.controlRateLimiter = new PeerRateLimiter(
+            Metadata.PEER_CONTROL_RATE_LIMIT, Metadata.PEER_CONTROL_RATE_BURST, Metadata.RATE_LIMITED_PEERS);
 
         this.initializeResponseHandlers();
         this.initializeFiles();
+        this.registerMetrics();
         this.start();
     }
 
     public void start() {
-        this.sender.start();
-        this.receiver.start();
-
-        this.register();
-        this.processReceivedMessages();
+        this.transport.start(this::receive);
+        if (!this.warmStart()) {
+            this.register();
+        }
+        if (Metadata.SWIM) {
+            this.membership.start();
+        }
+        if (Metadata.TOPOLOGY_OPTIMIZER) {
+            this.topology.start();
+        }
+        if (this.snapshotFile != null && Metadata.NODE_SNAPSHOT_INTERVAL_SECONDS > 0) {
+            this.scheduleSnapshot();
+        }
+        if (Metadata.EXPIRY_SWEEP_SECONDS > 0) {
+            this.scheduleExpirySweep();
+        }
     }
 
     public void join(String neighbourIpAddress, int neighbourPort) {
-        String joinMessage = String.format(Commands.JOIN, this.ipAddress, this.port);
-        this.sendToNeighbour(neighbourIpAddress, neighbourPort, joinMessage);
+        this.sendToNeighbour(neighbourIpAddress, neighbourPort, new JoinMessage(this.endpoint, this.protocol));
     }
 
     public void stop() {
+        this.stopped = true;
+        Timeout snapshotTimer = this.snapshotTimer;
+        if (snapshotTimer != null) {
+            snapshotTimer.cancel();
+        }
+        Timeout expiryTimer = this.expiryTimer;
+        if (expiryTimer != null) {
+            expiryTimer.cancel();
+        }
+        this.snapshot();
+
         this.unregister();
         this.leave();
+        this.dht.stop();
+        this.membership.stop();
+        this.topology.stop();
 
-        this.sender.stopDispatching();
-        this.receiver.stopReceiving();
+        this.transport.stop();
+        this.downloader.shutdown();
+        this.unregisterMetrics();
 
         LOGGER.info("[Node Disconnect] Stopped node ({}) {}", this.port, this.username);
     }
@@ -108,198 +264,672 @@ public class Node {
         return this.port;
     }
 
+    public Endpoint getEndpoint() {
+        return this.endpoint;
+    }
+
     public List<Neighbour> getNeighbours() {
         return this.neighbours;
     }
 
+    /**
+     * Whether this node warm-started and enough of its saved neighbours answered that it did not need the
+     * peers the bootstrap server offers.
+     */
+    public boolean hasRejoined() {
+        return this.rejoined;
+    }
+
+    /**
+     * Whether this node decodes binary frames, and so can ask for replies to its searches in binary.
+     */
+    public boolean speaksBinary() {
+        return this.protocol >= MessageCodec.PROTOCOL_BINARY;
+    }
+
+    /**
+     * Settles the protocol for messages to a peer on the highest version both ends speak, given the one it
+     * offered on {@code JOIN} or confirmed on {@code JOINOK}, and returns it.
+     */
+    public int negotiateProtocol(Endpoint peer, int offered) {
+        int agreed = Math.min(offered, this.protocol);
+        if (agreed >= MessageCodec.PROTOCOL_BINARY) {
+            this.binaryPeers.add(peer);
+        } else {
+            this.binaryPeers.remove(peer);
+        }
+        return agreed;
+    }
+
+    public boolean isNeighbour(Endpoint endpoint) {
+        for (Neighbour neighbour : this.neighbours) {
+            if (neighbour.endpoint().equals(endpoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void addNeighbour(String ipAddress, int port) {
-        this.neighbours.add(new Neighbour(ipAddress, port));
+        Neighbour neighbour = new Neighbour(ipAddress, port);
+        if (!this.neighbours.addIfAbsent(neighbour)) {
+            return;
+        }
         LOGGER.info("[Added Neighbour ({})] {}:{} Total: {}", this.port, ipAddress, port, this.neighbours.size());
+
+        if (Metadata.ROUTING_SUMMARIES) {
+            this.sendTo(neighbour.endpoint(), new RoutingSummary(this.routingSummaries.summary()));
+        }
+        if (Metadata.DHT) {
+            this.dht.addContact(neighbour.endpoint());
+            this.dht.start();
+        }
+        this.membership.onNeighbourAdded(neighbour.endpoint());
+        this.topology.onNeighbourAdded(neighbour.endpoint());
     }
 
     public void removeNeighbour(String ipAddress, int port) {
-        Neighbour neighbour = this.neighbours.stream()
-            .filter(n -> n.ipAddress().equals(ipAddress) && n.port() == port)
-            .findFirst()
-            .orElse(null);
-
-        if (neighbour == null) {
+        Neighbour neighbour = new Neighbour(ipAddress, port);
+        if (!this.neighbours.remove(neighbour)) {
             LOGGER.warn("[Neighbour not found ({})] {}:{}", this.port, ipAddress, port);
             return;
         }
 
-        this.neighbours.remove(neighbour);
+        this.queryHitCache.removePeer(neighbour);
+        this.routingSummaries.remove(neighbour.endpoint());
+        this.binaryPeers.remove(neighbour.endpoint());
+        this.peerLatencies.remove(neighbour.endpoint());
+        this.scheduleSummaryAdvert();
         LOGGER.info("[Removed Neighbour ({})] {}:{}", this.port, ipAddress, port);
     }
 
-    public void sendToNeighbour(String neighbourIp, int neighbourPort, String msg) {
-        SocketMessage message = new SocketMessage(neighbourIp, neighbourPort, msg);
-        try {
-            this.sendQueue.put(message);
-        } catch (InterruptedException e) {
-            LOGGER.warn("[Enqueue failed ({})] To Neighbour({}:{}) server: {}", this.port, neighbourIp, neighbourPort, msg);
-        }
+    /**
+     * Drops a neighbour and tells it so, so the link goes at both ends.
+     */
+    public void dropNeighbour(Endpoint neighbour) {
+        this.sendTo(neighbour, new LeaveMessage(this.endpoint));
+        this.removeNeighbour(neighbour.ipAddress(), neighbour.port());
+    }
+
+    public void sendToNeighbour(String neighbourIp, int neighbourPort, Message msg) {
+        this.sendTo(EndpointRegistry.getDefault().get(neighbourIp, neighbourPort), msg);
+    }
+
+    /**
+     * Sends in binary to peers that negotiated it and in text to every other.
+     */
+    public void sendTo(Endpoint endpoint, Message msg) {
+        this.sendTo(endpoint, msg, this.binaryPeers.contains(endpoint));
+    }
+
+    private void sendTo(Endpoint endpoint, Message msg, boolean binary) {
+        Metrics.sent(msg.resType).increment();
+        this.transport.send(new SocketMessage(endpoint, msg, binary));
+    }
+
+    public List<File> getSharedFiles() {
+        return this.files.getFiles();
     }
 
     public List<File> getMatchingFiles(String query) {
-        return this.files.stream()
-            .filter(f -> FileUtils.hasMatchingFileName(f.fileName(), query))
-            .collect(Collectors.toList());
+        return this.files.search(query);
+    }
+
+    public void shareFile(String fileName) {
+        if (this.files.add(new File(fileName))) {
+            LOGGER.info("[Shared File ({})] {} Total: {}", this.port, fileName, this.files.size());
+            this.onFilesChanged();
+        }
     }
 
-    public void searchFile(String query) {
-        List<File> files = this.getMatchingFiles(query);
-        if (!files.isEmpty()) {
+    public void unshareFile(String fileName) {
+        if (this.files.remove(new File(fileName))) {
+            LOGGER.info("[Unshared File ({})] {} Total: {}", this.port, fileName, this.files.size());
+            this.onFilesChanged();
+        }
+    }
+
+    public Search searchFile(String query) {
+        return this.searchFile(query, this.defaultStrategy);
+    }
+
+    public Search searchFile(String query, SearchStrategy strategy) {
+        return this.searchFile(query, strategy, Metadata.SEARCH_MAX_RESULTS, Metadata.ACTIVE_SEARCH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts a search that ends once it has {@code maxResults} distinct file and host pairs, or at the
+     * deadline, whichever comes first. Files this node shares, and hits for a search it is forwarding for
+     * someone else, count as results; if they are enough, nothing is sent.
+     */
+    public Search searchFile(String query, SearchStrategy strategy, int maxResults, long deadline, TimeUnit unit) {
+        Search search = this.activeSearches.start(query, strategy.name(), maxResults);
+        for (File file : this.getMatchingFiles(query)) {
+            search.offer(new SearchResult(file.fileName(), this.endpoint));
+        }
+        if (search.isFinished()) {
             LOGGER.info("[File Exists ({})] Query: '{}'", this.port, query);
-            return;
+            return search;
+        }
+        if (Metadata.SEARCH_COLLAPSING) {
+            for (SearchResponse hit : this.inFlightSearches.hits(query, this.nanoTime())) {
+                for (String fileName : hit.fileNames) {
+                    if (FileUtils.hasMatchingFileName(fileName, query)) {
+                        search.offer(new SearchResult(fileName, hit.fileHost));
+                    }
+                }
+            }
+            if (search.isFinished()) {
+                LOGGER.info("[Search Collapsed ({})] '{}' answered by an in-flight search", this.port, query);
+                Metrics.SEARCH_COLLAPSED.increment();
+                return search;
+            }
         }
 
-        this.forwardSearch(query, this.ipAddress, this.port, Metadata.MAX_HOPS + 1);
+        Metrics.searchStarted(strategy.name()).increment();
+        Timeout deadlineTimer = this.schedule(search::finish, deadline, unit);
+        search.completion().whenComplete((results, error) -> deadlineTimer.cancel());
+        strategy.start(this, search);
+        return search;
     }
 
-    public void forwardSearch(String query, String initiatorIp, int initiatorPort, int currentHops) {
-        List<Neighbour> nodesToForward = this.getNodesWithFile(query)
-            .stream()
-            .toList();
+    /**
+     * Forwards a flooded search to the neighbours known to have answered the query before, or otherwise to
+     * every neighbour except the initiator whose routing summary does not rule the query out within the
+     * remaining hops. All of them get the same, decremented hop count; a search whose hops would reach zero is
+     * not forwarded.
+     */
+    public void forwardSearch(String query, Endpoint initiator, int currentHops, long searchId) {
+        this.forwardSearch(query, initiator, currentHops, searchId, initiator.equals(this.endpoint) && this.speaksBinary());
+    }
+
+    /**
+     * Forwards a flooded search, passing on whether its initiator takes replies in binary.
+     */
+    public void forwardSearch(String query, Endpoint initiator, int currentHops, long searchId, boolean binaryReplies) {
+        int nextHops = currentHops - 1;
+        if (nextHops <= 0) {
+            LOGGER.info("[Search Forward ({})] Hop limit reached for '{}'", this.port, query);
+            return;
+        }
 
+        List<Neighbour> nodesToForward = this.getNodesWithFile(query);
         if (!nodesToForward.isEmpty()) {
             LOGGER.info("[Search Forward ({})] File found from prev search for '{}'", this.port, query);
-            Neighbour neighbour = nodesToForward.get(0);
-            this.sendSearchReqToNeighbour(query, initiatorIp, initiatorPort, --currentHops, neighbour);
+            this.sendSearchReqToNeighbour(query, initiator, nextHops, searchId, binaryReplies, nodesToForward.get(0));
+            Metrics.SEARCH_FANOUT.record(1);
             return;
         }
 
         LOGGER.info("[Search Forward ({})] No previous query hits for '{}'", this.port, query);
 
-        if (initiatorPort == this.port && this.visitedNodes.containsKey(query)) {
-            LOGGER.info("[Search Forward ({})] Searching from last visited node for '{}'", this.port, query);
-            List<Neighbour> prevVisitedNodes = this.visitedNodes.get(query);
-            Neighbour neighbour = prevVisitedNodes.get(prevVisitedNodes.size() - 1);
-            this.sendSearchReqToNeighbour(query, initiatorIp, initiatorPort, --currentHops, neighbour);
-            return;
-        }
-
         nodesToForward = this.getNeighbours()
             .stream()
-            .filter(not(n -> n.ipAddress().equals(initiatorIp) && n.port() == initiatorPort))
-            .filter(n -> this.isNotVisitedNode(query, n))
+            .filter(not(n -> n.endpoint().equals(initiator)))
             .toList();
 
+        if (Metadata.ROUTING_SUMMARIES && !nodesToForward.isEmpty()) {
+            String[] tokens = FileUtils.tokenize(query);
+            int candidates = nodesToForward.size();
+            nodesToForward = nodesToForward.stream()
+                .filter(n -> this.routingSummaries.mayReach(n.endpoint(), tokens, nextHops))
+                .toList();
+            Metrics.SEARCH_PRUNED.add(candidates - nodesToForward.size());
+        }
+
         if (nodesToForward.isEmpty()) {
             LOGGER.info("[Search Forward ({})] No neighbours left to forward for '{}'", this.port, query);
+            Metrics.SEARCH_FANOUT.record(0);
             return;
         }
 
         for (Neighbour neighbour : nodesToForward) {
-            if (currentHops == 0) {
-                break;
+            this.sendSearchReqToNeighbour(query, initiator, nextHops, searchId, binaryReplies, neighbour);
+        }
+        Metrics.SEARCH_FANOUT.record(nodesToForward.size());
+    }
+
+    /**
+     * Forwards a flooded search received from another node, unless an identical one this node forwarded is
+     * still in flight, reaches as far and has had a hit. Then the initiator waits on that one instead: it is
+     * sent the hits seen so far, and {@link #relaySearchHit} passes on those still to come.
+     */
+    public void forwardOrCollapseSearch(SearchMessage search) {
+        if (Metadata.SEARCH_COLLAPSING) {
+            List<SearchResponse> hits = this.inFlightSearches.attach(search, this.nanoTime());
+            if (hits != null) {
+                LOGGER.info("[Search Collapsed ({})] '{}' from {} waits on an in-flight search",
+                    this.port, search.query, search.initiator);
+                Metrics.SEARCH_COLLAPSED.increment();
+                hits.forEach(hit -> this.sendToInitiator(search, hit));
+                return;
+            }
+            if (search.hops > 1) {
+                this.inFlightSearches.start(search, this.nanoTime());
             }
+        }
+        this.forwardSearch(search.query, search.initiator, search.hops, search.searchId, search.binaryReplies);
+    }
 
-            this.sendSearchReqToNeighbour(query, initiatorIp, initiatorPort, --currentHops, neighbour);
+    /**
+     * Passes a hit on to the initiators waiting on in-flight searches it answers, other than the node it
+     * came from and the host itself.
+     */
+    public void relaySearchHit(SearchResponse hit) {
+        if (!Metadata.SEARCH_COLLAPSING) {
+            return;
+        }
+        for (Waiter waiter : this.inFlightSearches.onResponse(hit, this.nanoTime())) {
+            if (waiter.initiator().equals(hit.origin) || waiter.initiator().equals(hit.fileHost)) {
+                continue;
+            }
+            Metrics.SEARCH_RELAYED_HITS.increment();
+            this.sendTo(waiter.initiator(), hit, waiter.binaryReplies() || this.binaryPeers.contains(waiter.initiator()));
         }
     }
 
+    /**
+     * Moves a random walker one hop on. Every {@link Metadata#WALK_CHECK_INTERVAL} hops the walker is parked
+     * and the initiator is asked whether the search is still unanswered; see {@link #resumeWalk}.
+     */
+    public void forwardWalk(SearchMessage walker) {
+        if (walker.hops - 1 <= 0) {
+            LOGGER.info("[Walk Expired ({})] Walker for '{}' ran out of hops", this.port, walker.query);
+            return;
+        }
+
+        if ((walker.hops - 1) % Metadata.WALK_CHECK_INTERVAL == 0 && !walker.initiator.equals(this.endpoint)) {
+            synchronized (this.parkedWalkers) {
+                this.parkedWalkers.put(walker.searchId, walker);
+            }
+            this.sendToInitiator(walker, new WalkCheck(walker.searchId));
+            return;
+        }
+        this.stepWalk(walker);
+    }
+
+    public void resumeWalk(long searchId, boolean proceed) {
+        SearchMessage walker;
+        synchronized (this.parkedWalkers) {
+            walker = this.parkedWalkers.remove(searchId);
+        }
+        if (walker != null && proceed) {
+            this.stepWalk(walker);
+        }
+    }
+
+    private void stepWalk(SearchMessage walker) {
+        Neighbour next = this.nextWalkHop(walker);
+        if (next == null) {
+            return;
+        }
+        SearchMessage step = new SearchMessage(walker.initiator, walker.query, walker.hops - 1, walker.searchId, SearchMode.WALK);
+        step.binaryReplies = walker.binaryReplies;
+        this.sendTo(next.endpoint(), step);
+        Metrics.SEARCH_FANOUT.record(1);
+    }
+
+    private Neighbour nextWalkHop(SearchMessage walker) {
+        List<Neighbour> known = this.getNodesWithFile(walker.query);
+        if (!known.isEmpty()) {
+            return known.get(0);
+        }
+
+        List<Neighbour> neighbours = this.neighbours;
+        int count = neighbours.size();
+        if (count == 0) {
+            return null;
+        }
+
+        if (Metadata.ROUTING_SUMMARIES) {
+            Neighbour closest = this.closestBySummary(neighbours, walker);
+            if (closest != null) {
+                return closest;
+            }
+        }
+        int start = ThreadLocalRandom.current().nextInt(count);
+        for (int i = 0; i < count; i++) {
+            Neighbour neighbour = neighbours.get((start + i) % count);
+            if (!neighbour.endpoint().equals(walker.origin)) {
+                return neighbour;
+            }
+        }
+        return neighbours.get(start);
+    }
+
+    /**
+     * The neighbour, other than the one the walker came from, whose summary puts the query fewest hops away.
+     */
+    private Neighbour closestBySummary(List<Neighbour> neighbours, SearchMessage walker) {
+        String[] tokens = FileUtils.tokenize(walker.query);
+        Neighbour closest = null;
+        int closestDistance = Integer.MAX_VALUE;
+        for (Neighbour neighbour : neighbours) {
+            if (neighbour.endpoint().equals(walker.origin)) {
+                continue;
+            }
+            int distance = this.routingSummaries.distance(neighbour.endpoint(), tokens);
+            if (distance >= 0 && distance < closestDistance) {
+                closest = neighbour;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
     public void sendFileFound(SearchMessage message, List<File> matchingFiles) {
-        String fileNames = matchingFiles.stream()
+        String[] fileNames = matchingFiles.stream()
             .map(File::fileName)
-            .collect(Collectors.joining(", "));
+            .toArray(String[]::new);
 
-        String searchResponse = String.format(
-            Constants.CommandResponses.SEROK,
+        SearchResponse searchResponse = new SearchResponse(
             matchingFiles.size(),
-            this.ipAddress,
-            this.port,
+            this.endpoint,
             message.hops,
             fileNames);
 
-        this.sendToNeighbour(message.initiatorIp, message.initiatorPort, searchResponse);
-        if (!message.originIp.equals(message.initiatorIp) && message.originPort != message.initiatorPort) {
-            this.sendToNeighbour(message.originIp, message.originPort, searchResponse);
+        this.sendToInitiator(message, searchResponse);
+        if (!message.origin.equals(message.initiator)) {
+            this.sendTo(message.origin, searchResponse);
         }
     }
 
-    public boolean isNotVisitedNode(String query, Neighbour neighbour) {
-        return !this.visitedNodes.containsKey(query) ||
-            this.visitedNodes.get(query)
-                .stream()
-                .noneMatch(n -> n == neighbour);
+    /**
+     * Replies to a search's initiator, in binary if it asked for that even though it is not a neighbour.
+     */
+    private void sendToInitiator(SearchMessage search, Message msg) {
+        this.sendTo(search.initiator, msg, search.binaryReplies || this.binaryPeers.contains(search.initiator));
     }
 
-    public void addVisitedNode(String query, Neighbour neighbour) {
-        this.visitedNodes.putIfAbsent(query, new ArrayList<>());
-        if (this.isNotVisitedNode(query, neighbour)) {
-            this.visitedNodes.get(query).add(neighbour);
+    public boolean markSearchSeen(long searchId) {
+        return this.recentSearchIds.add(searchId);
+    }
+
+    public List<Neighbour> getNodesWithFile(String query) {
+        return this.queryHitCache.get(query);
+    }
+
+    public void cacheFileNameForNode(String fileName, Endpoint host) {
+        this.queryHitCache.put(fileName, new Neighbour(host));
+    }
+
+    public QueryHitCache getQueryHitCache() {
+        return this.queryHitCache;
+    }
+
+    public ActiveSearches getActiveSearches() {
+        return this.activeSearches;
+    }
+
+    public RoutingSummaries getRoutingSummaries() {
+        return this.routingSummaries;
+    }
+
+    public void updateRoutingSummary(Endpoint neighbour, BloomFilter[] levels) {
+        this.routingSummaries.update(neighbour, levels);
+        this.scheduleSummaryAdvert();
+    }
+
+    /**
+     * Re-advertises this node's routing summary to every neighbour once the delay has passed, if it changed.
+     * Updates arriving in the meantime are folded into the same advertisement.
+     */
+    private void scheduleSummaryAdvert() {
+        if (!Metadata.ROUTING_SUMMARIES || !this.summaryAdvertPending.compareAndSet(false, true)) {
+            return;
         }
+        this.schedule(() -> {
+            this.summaryAdvertPending.set(false);
+            BloomFilter[] summary = this.routingSummaries.takeChangedSummary();
+            if (summary == null) {
+                return;
+            }
+            for (Neighbour neighbour : this.neighbours) {
+                this.sendTo(neighbour.endpoint(), new RoutingSummary(summary));
+            }
+        }, Metadata.ROUTING_SUMMARY_ADVERTISE_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-    public void addVisitedNode(String query, String ipAddress, int port) {
-        Neighbour neighbour = new Neighbour(ipAddress, port);
-        this.addVisitedNode(query, neighbour);
+    public Dht getDht() {
+        return this.dht;
     }
 
-    public List<Neighbour> getNodesWithFile(String query) {
-        String fileName = this.queryHitNodesMap.keySet()
+    /**
+     * Resolves an exact file name to the hosts that published it in the DHT. Completes with an empty list if
+     * none did.
+     */
+    public CompletableFuture<List<Endpoint>> lookupFile(String fileName) {
+        return this.dht.findValue(DhtIds.forFileName(fileName));
+    }
+
+    public Membership getMembership() {
+        return this.membership;
+    }
+
+    public PeerLatencies getPeerLatencies() {
+        return this.peerLatencies;
+    }
+
+    public TopologyOptimizer getTopology() {
+        return this.topology;
+    }
+
+    public ContentStore getContentStore() {
+        return this.content;
+    }
+
+    /**
+     * Downloads a file found by an earlier search from every host that reported it, or, if there are none and
+     * the DHT is enabled, from the hosts that published it there.
+     */
+    public CompletableFuture<Path> download(String fileName, Path target) {
+        List<Endpoint> sources = this.getNodesWithFile(fileName)
             .stream()
-            .filter(f -> FileUtils.hasMatchingFileName(f, query))
-            .findFirst()
-            .orElse(null);
+            .map(Neighbour::endpoint)
+            .toList();
+        if (sources.isEmpty() && Metadata.DHT) {
+            return this.lookupFile(fileName).thenCompose(hosts -> this.downloader.download(fileName, hosts, target));
+        }
+        return this.downloader.download(fileName, sources, target);
+    }
+
+    private void onFilesChanged() {
+        List<String> fileNames = this.files.getFiles().stream().map(File::fileName).toList();
+        this.routingSummaries.setLocalFiles(fileNames);
+        this.dht.setFiles(fileNames);
+        this.content.setFiles(fileNames);
+        this.scheduleSummaryAdvert();
+    }
+
+    /**
+     * Runs the task on this node's message pipeline after the delay.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return this.scheduler.schedule(() -> this.pipeline.execute(this.endpoint.hashCode(), task), delay, unit);
+    }
+
+    /**
+     * Current time on this node's scheduler, which is virtual time in a simulation.
+     */
+    public long nanoTime() {
+        return this.scheduler.nanoTime();
+    }
+
+    /**
+     * Saves the neighbour table and query-hit cache to the snapshot file, if this node has one.
+     */
+    public void snapshot() {
+        if (this.snapshotFile == null) {
+            return;
+        }
+        try {
+            int size = NodeSnapshot.write(this.snapshotFile, this.neighbours, this.queryHitCache, this.peerLatencies);
+            LOGGER.debug("[Snapshot ({})] {} bytes written to {}", this.port, size, this.snapshotFile);
+        } catch (IOException e) {
+            LOGGER.error("[Snapshot ({})] Snapshot failed: {}", this.port, e.getMessage(), e);
+        }
+    }
+
+    private void scheduleSnapshot() {
+        if (this.stopped) {
+            return;
+        }
+        this.snapshotTimer = this.schedule(() -> {
+            this.snapshot();
+            this.scheduleSnapshot();
+        }, Metadata.NODE_SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Drops expired query-hit cache entries and ages out seen search ids every
+     * {@link Metadata#EXPIRY_SWEEP_SECONDS}, so they go on time even when no lookup comes to skip them.
+     */
+    private void scheduleExpirySweep() {
+        if (this.stopped) {
+            return;
+        }
+        this.expiryTimer = this.schedule(() -> {
+            this.queryHitCache.purgeExpired();
+            this.recentSearchIds.expire();
+            this.scheduleExpirySweep();
+        }, Metadata.EXPIRY_SWEEP_SECONDS, TimeUnit.SECONDS);
+    }
 
-        if (fileName != null) {
-            return this.queryHitNodesMap.get(fileName)
-                .stream()
-                .map(addr -> {
-                    String[] address = addr.split(":");
-                    return new Neighbour(address[0], Integer.parseInt(address[1]));
-                }).collect(Collectors.toList());
+    /**
+     * Restores the routing state saved by the last run and pings the saved neighbours, rejoining each one that
+     * answers. Returns {@code false}, so the node registers as on a cold start, if there is no snapshot or it
+     * lists no neighbours.
+     */
+    private boolean warmStart() {
+        if (this.snapshotFile == null) {
+            return false;
         }
 
-        return new ArrayList<>();
+        List<Endpoint> saved;
+        try {
+            saved = NodeSnapshot.read(this.snapshotFile, this.queryHitCache, this.peerLatencies);
+        } catch (IOException e) {
+            LOGGER.warn("[Warm Start ({})] Could not read {}: {}", this.port, this.snapshotFile, e.getMessage());
+            return false;
+        }
+        if (saved.isEmpty()) {
+            return false;
+        }
+        LOGGER.info("[Warm Start ({})] Restored {} neighbour(s) and {} cached hit(s), probing the neighbours",
+            this.port, saved.size(), this.queryHitCache.size());
+
+        AtomicInteger outstanding = new AtomicInteger(saved.size());
+        AtomicInteger answered = new AtomicInteger();
+        for (Endpoint neighbour : saved) {
+            this.membership.measure(neighbour).thenAccept(rtt -> {
+                if (rtt != PeerLatencies.UNKNOWN) {
+                    answered.incrementAndGet();
+                    this.join(neighbour.ipAddress(), neighbour.port());
+                } else {
+                    this.peerLatencies.remove(neighbour);
+                    this.queryHitCache.removePeer(new Neighbour(neighbour));
+                }
+                if (outstanding.decrementAndGet() == 0) {
+                    this.onWarmStartProbed(answered.get(), saved.size());
+                }
+            });
+        }
+        return true;
     }
 
-    public void cacheFileNameForNode(String fileName, String hostIp, int hostPort) {
-        this.queryHitNodesMap.putIfAbsent(fileName, new ArrayList<>());
-        String nodeAddress = "%s:%d".formatted(hostIp, hostPort);
-        if (!this.queryHitNodesMap.get(fileName).contains(nodeAddress)) {
-            this.queryHitNodesMap.get(fileName).add(nodeAddress);
+    /**
+     * Registers once every saved neighbour has answered or timed out, so the bootstrap server keeps listing
+     * this node for newcomers. The peers it offers are joined only if fewer than
+     * {@link Metadata#MIN_NEIGHBOURS} saved neighbours, or fewer than all of a smaller table, answered.
+     */
+    private void onWarmStartProbed(int answered, int saved) {
+        this.rejoined = answered >= Math.min(saved, Metadata.MIN_NEIGHBOURS);
+        if (this.rejoined) {
+            Metrics.WARM_STARTS.increment();
+            LOGGER.info("[Warm Start ({})] Rejoined {} of {} saved neighbour(s)", this.port, answered, saved);
+        } else {
+            Metrics.WARM_START_FALLBACKS.increment();
+            LOGGER.info("[Warm Start ({})] Only {} of {} saved neighbour(s) answered, taking peers from the bootstrap server",
+                this.port, answered, saved);
         }
+        this.register();
+    }
+
+    public long newSearchId() {
+        long searchId;
+        do {
+            searchId = ThreadLocalRandom.current().nextLong();
+        } while (searchId == 0);
+        return searchId;
     }
 
     private void register() {
-        String registerMessage = String.format(Commands.REG, this.ipAddress, this.port, this.username);
-        this.sendToBootstrapSrv(registerMessage);
+        this.sendToBootstrapSrv(new RegisterMessage(MessageTypes.REG, this.endpoint, this.username));
     }
 
     private void unregister() {
-        String unregisterMessage = String.format(Commands.UNREG, this.ipAddress, this.port, this.username);
-        this.sendToBootstrapSrv(unregisterMessage);
+        this.sendToBootstrapSrv(new RegisterMessage(MessageTypes.UNREG, this.endpoint, this.username));
     }
 
     private void leave() {
         for (Neighbour neighbour : this.neighbours) {
-            String leaveMessage = String.format(Commands.LEAVE, this.ipAddress, this.port);
-            this.sendToNeighbour(neighbour.ipAddress(), neighbour.port(), leaveMessage);
+            this.sendTo(neighbour.endpoint(), new LeaveMessage(this.endpoint));
         }
     }
 
-    private void processReceivedMessages() {
-        new Thread(() -> {
-            while (true) {
-                Message message = null;
-                try {
-                    message = this.receiveQueue.take();
-                    if (Metadata.IGNORED_RESPONSES.contains(message.resType)) {
-                        continue;
-                    }
-                    this.responseHandlerMap.get(message.resType).handle(this, message);
-                } catch (InterruptedException e) {
-                    LOGGER.error("[Dispatch Failed ({})] {}", this.port, e.getMessage(), e);
-                } catch (NullPointerException e) {
-                    if (message != null) {
-                        LOGGER.error("[Response Handler not found ({})] {}", this.port, message.resType);
-                    }
-                }
-            }
-        }).start();
+    /**
+     * Queues a message for handling, unless its sender is over its rate limit. Control traffic has a bucket of
+     * its own, so a peer flooding searches still gets its pings and leaves through, and one flooding joins or
+     * pings cannot crowd out everyone else's control traffic.
+     */
+    private void receive(Message message) {
+        Metrics.received(message.resType).increment();
+        boolean control = TrafficClass.of(message) == TrafficClass.CONTROL;
+        PeerRateLimiter limiter = control ? this.controlRateLimiter : this.rateLimiter;
+        double limit = control ? Metadata.PEER_CONTROL_RATE_LIMIT : Metadata.PEER_RATE_LIMIT;
+        if (limit > 0 && !limiter.tryAcquire(message.origin, this.nanoTime())) {
+            Metrics.RATE_LIMITED.increment();
+            return;
+        }
+        this.pipeline.execute(orderingKey(message), new MessageTask(message, () -> this.handleMessage(message)));
+    }
+
+    private static int orderingKey(Message message) {
+        if (message instanceof SearchMessage search && search.searchId != 0) {
+            return Long.hashCode(search.searchId);
+        }
+        return message.origin.hashCode();
+    }
+
+    private void handleMessage(Message message) {
+        if (Metadata.IGNORED_RESPONSES.contains(message.resType)) {
+            return;
+        }
+
+        MessageHandler handler = this.responseHandlerMap.get(message.resType);
+        if (handler == null) {
+            LOGGER.error("[Response Handler not found ({})] {}", this.port, message.resType);
+            return;
+        }
+        handler.handle(this, message);
+    }
+
+    private static String localHostAddress() throws UnknownHostException {
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (UnknownHostException e) {
+            LOGGER.error("[Node initialize] Could not initialize Node");
+            throw e;
+        }
+    }
+
+    private static Transport createThreadedTransport() throws SocketException {
+        try {
+            return new ThreadedTransport();
+        } catch (SocketException e) {
+            LOGGER.error("[Node initialize] Could not initialize Node");
+            throw e;
+        }
     }
 
     private String generateUsername() {
@@ -308,21 +938,65 @@ public class Node {
     }
 
     private void initializeResponseHandlers() {
-        this.responseHandlerMap.put(MessageTypes.REGOK, new RegisterResponseHandler());
-        this.responseHandlerMap.put(MessageTypes.JOIN, new JoinMessageHandler());
-        this.responseHandlerMap.put(MessageTypes.JOINOK, new JoinResponseHandler());
-        this.responseHandlerMap.put(MessageTypes.LEAVE, new LeaveMessageHandler());
-        this.responseHandlerMap.put(MessageTypes.SEARCH, new SearchMessageHandler());
-        this.responseHandlerMap.put(MessageTypes.SEROK, new SearchResponseHandler());
+        this.responseHandlerMap.put(MessageTypes.REGOK, new TimedMessageHandler(new RegisterResponseHandler()));
+        this.responseHandlerMap.put(MessageTypes.JOIN, new TimedMessageHandler(new JoinMessageHandler()));
+        this.responseHandlerMap.put(MessageTypes.JOINOK, new TimedMessageHandler(new JoinResponseHandler()));
+        this.responseHandlerMap.put(MessageTypes.LEAVE, new TimedMessageHandler(new LeaveMessageHandler()));
+        this.responseHandlerMap.put(MessageTypes.SEARCH, new TimedMessageHandler(new SearchMessageHandler()));
+        this.responseHandlerMap.put(MessageTypes.SEROK, new TimedMessageHandler(new SearchResponseHandler()));
+        this.responseHandlerMap.put(MessageTypes.WALK_CHECK, new TimedMessageHandler(new WalkCheckHandler()));
+        this.responseHandlerMap.put(MessageTypes.WALK_CHECK_OK, new TimedMessageHandler(new WalkCheckResponseHandler()));
+        this.responseHandlerMap.put(MessageTypes.ROUTING_SUMMARY, new TimedMessageHandler(new RoutingSummaryHandler()));
+        this.responseHandlerMap.put(MessageTypes.DHT_FIND_NODE, new TimedMessageHandler(new DhtFindNodeHandler()));
+        this.responseHandlerMap.put(MessageTypes.DHT_FIND_VALUE, new TimedMessageHandler(new DhtFindValueHandler()));
+        this.responseHandlerMap.put(MessageTypes.DHT_NODES, new TimedMessageHandler(new DhtNodesHandler()));
+        this.responseHandlerMap.put(MessageTypes.DHT_VALUES, new TimedMessageHandler(new DhtValuesHandler()));
+        this.responseHandlerMap.put(MessageTypes.DHT_STORE, new TimedMessageHandler(new DhtStoreHandler()));
+        this.responseHandlerMap.put(MessageTypes.PING, new TimedMessageHandler(new PingHandler()));
+        this.responseHandlerMap.put(MessageTypes.PING_REQUEST, new TimedMessageHandler(new PingRequestHandler()));
+        this.responseHandlerMap.put(MessageTypes.PING_OK, new TimedMessageHandler(new PingResponseHandler()));
     }
 
-    private void sendToBootstrapSrv(String msg) {
-        SocketMessage message = new SocketMessage(this.bSrvIpAddress, this.bSrvPort, msg);
-        try {
-            this.sendQueue.put(message);
-        } catch (InterruptedException e) {
-            LOGGER.warn("[Enqueue failed ({})] To bootstrap server: {}", this.port, msg);
-        }
+    private void registerMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        registry.gauge(this.metricName("neighbours"), this.neighbours::size);
+        registry.gauge(this.metricName("query_hit_cache.size"), this.queryHitCache::size);
+        registry.gauge(this.metricName("query_hit_cache.hit_ratio"), this::queryHitRatio);
+        registry.gauge(this.metricName("query_hit_cache.hits"), this.queryHitCache::getHitCount);
+        registry.gauge(this.metricName("query_hit_cache.misses"), this.queryHitCache::getMissCount);
+        registry.gauge(this.metricName("query_hit_cache.evictions"), this.queryHitCache::getEvictionCount);
+        registry.gauge(this.metricName("query_hit_cache.expirations"), this.queryHitCache::getExpirationCount);
+        registry.gauge(this.metricName("routing_summaries"), this.routingSummaries::size);
+        registry.gauge(this.metricName("dht.contacts"), this.dht.getRoutingTable()::size);
+        registry.gauge(this.metricName("swim.members"), this.membership::size);
+    }
+
+    private void unregisterMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        registry.removeGauge(this.metricName("neighbours"));
+        registry.removeGauge(this.metricName("query_hit_cache.size"));
+        registry.removeGauge(this.metricName("query_hit_cache.hit_ratio"));
+        registry.removeGauge(this.metricName("query_hit_cache.hits"));
+        registry.removeGauge(this.metricName("query_hit_cache.misses"));
+        registry.removeGauge(this.metricName("query_hit_cache.evictions"));
+        registry.removeGauge(this.metricName("query_hit_cache.expirations"));
+        registry.removeGauge(this.metricName("routing_summaries"));
+        registry.removeGauge(this.metricName("dht.contacts"));
+        registry.removeGauge(this.metricName("swim.members"));
+    }
+
+    private String metricName(String name) {
+        return "node." + this.endpoint + "." + name;
+    }
+
+    private double queryHitRatio() {
+        long hits = this.queryHitCache.getHitCount();
+        long lookups = hits + this.queryHitCache.getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private void sendToBootstrapSrv(Message msg) {
+        this.sendTo(this.bSrvEndpoint, msg);
     }
 
     private void initializeFiles() {
@@ -332,7 +1006,13 @@ public class Node {
             this.files.add(new File(fileNames.get(i)));
         }
 
-        String filesStr = this.files.stream()
+        List<String> sharedFileNames = this.files.getFiles().stream().map(File::fileName).toList();
+        this.routingSummaries.setLocalFiles(sharedFileNames);
+        this.dht.setFiles(sharedFileNames);
+        this.content.setFiles(sharedFileNames);
+
+        String filesStr = this.files.getFiles()
+            .stream()
             .map(File::fileName)
             .collect(Collectors.joining(", "));
         LOGGER.info("[Initialized Files ({})] {}", this.port, filesStr);
@@ -340,19 +1020,14 @@ public class Node {
 
     private void sendSearchReqToNeighbour(
         String query,
-        String initiatorIp,
-        int initiatorPort,
+        Endpoint initiator,
         int hops,
+        long searchId,
+        boolean binaryReplies,
         Neighbour neighbour) {
 
-        String searchMsg = String.format(
-            Commands.SEARCH,
-            initiatorIp,
-            initiatorPort,
-            query,
-            hops);
-
-        this.sendToNeighbour(neighbour.ipAddress(), neighbour.port(), searchMsg);
-        this.addVisitedNode(query, neighbour);
+        SearchMessage searchMsg = new SearchMessage(initiator, query, hops, searchId);
+        searchMsg.binaryReplies = binaryReplies;
+        this.sendTo(neighbour.endpoint(), searchMsg);
     }
 }
@@ -0,0 +1,168 @@
+package org.uom.domain;
+
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.search.QueryHitCache;
+import org.uom.topology.PeerLatencies;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Saves and restores a node's routing state: its neighbours with their smoothed round-trip times, and its
+ * query-hit cache with the time each entry has left. The file is binary, with every peer written once in a
+ * table up front and referred to by index, and ends in a CRC-32 of the rest. It is written to a temporary
+ * file, forced to disk and moved over the previous one, so a crash at any point leaves either the old
+ * snapshot or the new one; a file that fails its checksum anyway is rejected as a whole.
+ */
+public final class NodeSnapshot {
+    private static final int MAGIC = 0x444E5331;
+    private static final int VERSION = 1;
+
+    private NodeSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot and returns its size in bytes.
+     */
+    public static int write(
+        Path file,
+        List<Neighbour> neighbours,
+        QueryHitCache queryHitCache,
+        PeerLatencies latencies) throws IOException {
+
+        List<String> fileNames = new ArrayList<>();
+        List<List<Neighbour>> hosts = new ArrayList<>();
+        List<Long> remaining = new ArrayList<>();
+        queryHitCache.forEach((fileName, peers, remainingNanos) -> {
+            fileNames.add(fileName);
+            hosts.add(peers);
+            remaining.add(remainingNanos);
+        });
+
+        Map<Endpoint, Integer> peerIndex = new LinkedHashMap<>();
+        neighbours.forEach(neighbour -> peerIndex.putIfAbsent(neighbour.endpoint(), peerIndex.size()));
+        hosts.forEach(peers -> peers.forEach(peer -> peerIndex.putIfAbsent(peer.endpoint(), peerIndex.size())));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(peerIndex.size());
+        for (Endpoint peer : peerIndex.keySet()) {
+            out.writeUTF(peer.ipAddress());
+            out.writeShort(peer.port());
+        }
+        out.writeInt(neighbours.size());
+        for (Neighbour neighbour : neighbours) {
+            out.writeInt(peerIndex.get(neighbour.endpoint()));
+            out.writeLong(latencies.get(neighbour.endpoint()));
+        }
+        out.writeInt(fileNames.size());
+        for (int i = 0; i < fileNames.size(); i++) {
+            out.writeUTF(fileNames.get(i));
+            out.writeInt((int) Math.min(TimeUnit.NANOSECONDS.toMillis(remaining.get(i)), Integer.MAX_VALUE));
+            out.writeByte(hosts.get(i).size());
+            for (Neighbour peer : hosts.get(i)) {
+                out.writeInt(peerIndex.get(peer.endpoint()));
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+            temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            bytes.writeTo(stream);
+            stream.flush();
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return bytes.size();
+    }
+
+    /**
+     * Loads the query-hit cache and round-trip times from a snapshot and returns the neighbours it lists,
+     * without adding them; cache entries count down the time since the snapshot was written. A missing file
+     * restores nothing; a truncated or corrupt one throws before anything is restored.
+     */
+    public static List<Endpoint> read(Path file, QueryHitCache queryHitCache, PeerLatencies latencies) throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < Integer.BYTES) {
+            throw new IOException("Truncated snapshot");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipNBytes(bytes.length - Integer.BYTES);
+        if (in.readInt() != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Integer.BYTES));
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Not a node snapshot");
+        }
+        long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(System.currentTimeMillis() - in.readLong(), 0));
+
+        EndpointRegistry endpoints = EndpointRegistry.getDefault();
+        Endpoint[] peers = new Endpoint[in.readInt()];
+        for (int i = 0; i < peers.length; i++) {
+            peers[i] = endpoints.get(in.readUTF(), in.readUnsignedShort());
+        }
+
+        List<Endpoint> neighbours = new ArrayList<>();
+        Map<Endpoint, Long> rtts = new HashMap<>();
+        int neighbourCount = in.readInt();
+        for (int i = 0; i < neighbourCount; i++) {
+            Endpoint neighbour = peers[in.readInt()];
+            long rtt = in.readLong();
+            neighbours.add(neighbour);
+            if (rtt != PeerLatencies.UNKNOWN) {
+                rtts.put(neighbour, rtt);
+            }
+        }
+
+        List<String> fileNames = new ArrayList<>();
+        List<List<Neighbour>> hosts = new ArrayList<>();
+        List<Long> remaining = new ArrayList<>();
+        int entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            fileNames.add(in.readUTF());
+            remaining.add(TimeUnit.MILLISECONDS.toNanos(in.readInt()) - elapsedNanos);
+            List<Neighbour> entryHosts = new ArrayList<>();
+            int hostCount = in.readUnsignedByte();
+            for (int j = 0; j < hostCount; j++) {
+                entryHosts.add(new Neighbour(peers[in.readInt()]));
+            }
+            hosts.add(entryHosts);
+        }
+
+        rtts.forEach(latencies::record);
+        for (int i = 0; i < fileNames.size(); i++) {
+            queryHitCache.restore(fileNames.get(i), hosts.get(i), remaining.get(i));
+        }
+        return neighbours;
+    }
+}
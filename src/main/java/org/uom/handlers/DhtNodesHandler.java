@@ -0,0 +1,13 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.model.message.DhtNodes;
+import org.uom.model.message.Message;
+
+public class DhtNodesHandler implements MessageHandler {
+    @Override
+    public void handle(Node node, Message message) {
+        node.getDht().onNodes(message.origin, (DhtNodes) message);
+    }
+}
@@ -0,0 +1,13 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.model.message.DhtStore;
+import org.uom.model.message.Message;
+
+public class DhtStoreHandler implements MessageHandler {
+    @Override
+    public void handle(Node node, Message message) {
+        node.getDht().onStore(message.origin, (DhtStore) message);
+    }
+}
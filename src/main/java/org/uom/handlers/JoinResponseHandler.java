@@ -8,7 +8,8 @@ import org.uom.model.message.Message;
 public class JoinResponseHandler implements MessageHandler {
     @Override
     public void handle(Node node, Message message) {
-        JoinResponse joinResponse = new JoinResponse(message);
+        JoinResponse joinResponse = (JoinResponse) message;
+        node.negotiateProtocol(message.origin, joinResponse.protocol);
         node.addNeighbour(joinResponse.originIp, joinResponse.originPort);
     }
 }
@@ -8,7 +8,12 @@ import org.uom.model.message.Message;
 public class LeaveMessageHandler implements MessageHandler {
     @Override
     public void handle(Node node, Message message) {
-        LeaveMessage leaveMessage = new LeaveMessage(message);
+        LeaveMessage leaveMessage = (LeaveMessage) message;
+        // Both ends may drop the same link at once to trim their tables
+        if (!node.isNeighbour(message.origin)) {
+            return;
+        }
         node.removeNeighbour(leaveMessage.ipAddress, leaveMessage.port);
+        node.getMembership().onLeave(message.origin);
     }
 }
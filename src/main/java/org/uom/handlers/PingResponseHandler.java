@@ -0,0 +1,13 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.model.message.Message;
+import org.uom.model.message.PingResponse;
+
+public class PingResponseHandler implements MessageHandler {
+    @Override
+    public void handle(Node node, Message message) {
+        node.getMembership().onPingResponse(message.origin, (PingResponse) message);
+    }
+}
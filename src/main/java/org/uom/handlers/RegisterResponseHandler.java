@@ -8,7 +8,11 @@ import org.uom.model.message.RegisterResponse;
 public class RegisterResponseHandler implements MessageHandler {
     @Override
     public void handle(Node node, Message message) {
-        RegisterResponse registerResponse = new RegisterResponse(message);
+        if (node.hasRejoined()) {
+            return;
+        }
+
+        RegisterResponse registerResponse = (RegisterResponse) message;
         if (registerResponse.neighbourIp1 != null) {
             node.join(registerResponse.neighbourIp1, registerResponse.neighbourPort1);
         }
@@ -0,0 +1,18 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.model.message.Message;
+import org.uom.model.message.RoutingSummary;
+
+public class RoutingSummaryHandler implements MessageHandler {
+    @Override
+    public void handle(Node node, Message message) {
+        // Summaries are only dropped when a neighbour is, so one from anyone else would never be
+        if (!node.isNeighbour(message.origin)) {
+            return;
+        }
+        RoutingSummary summary = (RoutingSummary) message;
+        node.updateRoutingSummary(message.origin, summary.levels);
+    }
+}
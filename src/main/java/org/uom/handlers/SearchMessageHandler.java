@@ -5,9 +5,11 @@ import org.slf4j.LoggerFactory;
 import org.uom.contracts.handlers.MessageHandler;
 import org.uom.domain.File;
 import org.uom.domain.Node;
+import org.uom.metrics.Metrics;
 import org.uom.model.message.Message;
 import org.uom.model.message.SearchMessage;
-import org.uom.utils.Constants.CommandResponses;
+import org.uom.model.message.SearchMode;
+import org.uom.model.message.SearchResponse;
 
 import java.util.List;
 
@@ -16,10 +18,26 @@ public class SearchMessageHandler implements MessageHandler {
 
     @Override
     public void handle(Node node, Message message) {
-        SearchMessage searchMessage = new SearchMessage(message);
+        SearchMessage searchMessage = (SearchMessage) message;
         List<File> matchingFiles;
 
-        if (searchMessage.initiatorIp.equals(node.getIpAddress()) && searchMessage.initiatorPort == node.getPort()) {
+        if (searchMessage.mode == SearchMode.WALK) {
+            this.handleWalk(node, searchMessage);
+            return;
+        }
+
+        if (searchMessage.searchId == 0) {
+            searchMessage.searchId = legacySearchId(searchMessage);
+        }
+
+        if (!node.markSearchSeen(searchMessage.searchId)) {
+            Metrics.SEARCH_DUPLICATES.increment();
+            LOGGER.info("[Duplicate Search ({})] Dropped repeated search for '{}'", node.getPort(), searchMessage.query);
+            return;
+        }
+
+        Metrics.SEARCH_HOPS_REMAINING.record(searchMessage.hops);
+        if (searchMessage.initiator.equals(node.getEndpoint())) {
             LOGGER.info("[Search Loopback ({})] Search loopback for '{}'", node.getPort(), searchMessage.query);
         } else if (searchMessage.hops <= 0) {
             LOGGER.info("[Max Hop ({})] Reached max hop count for '{}'", node.getPort(), searchMessage.query);
@@ -28,16 +46,32 @@ public class SearchMessageHandler implements MessageHandler {
             LOGGER.info("[Search File Found ({})] File found for query '{}'", node.getPort(), searchMessage.query);
             node.sendFileFound(searchMessage, matchingFiles);
         } else {
-            node.forwardSearch(
-                searchMessage.query,
-                searchMessage.initiatorIp,
-                searchMessage.initiatorPort,
-                searchMessage.hops);
+            node.forwardOrCollapseSearch(searchMessage);
         }
     }
 
+    private void handleWalk(Node node, SearchMessage walker) {
+        List<File> matchingFiles = walker.initiator.equals(node.getEndpoint())
+            ? List.of()
+            : node.getMatchingFiles(walker.query);
+
+        if (!matchingFiles.isEmpty()) {
+            LOGGER.info("[Walk File Found ({})] File found for query '{}'", node.getPort(), walker.query);
+            node.sendFileFound(walker, matchingFiles);
+        } else {
+            node.forwardWalk(walker);
+        }
+    }
+
+    private static long legacySearchId(SearchMessage message) {
+        long hash = message.initiatorIp.hashCode();
+        hash = hash * 31 + message.initiatorPort;
+        hash = hash * 0x9E3779B97F4A7C15L + message.query.hashCode();
+        return hash == 0 ? 1 : hash;
+    }
+
     private void sendFileNotFoundMessage(Node node, SearchMessage message) {
-        String searchFailMsg = String.format(CommandResponses.SEROK, 0, node.getIpAddress(), node.getPort(), 0, message.query);
-        node.sendToNeighbour(message.initiatorIp, message.initiatorPort, searchFailMsg);
+        SearchResponse searchFailMsg = new SearchResponse(0, node.getEndpoint(), 0, new String[]{message.query});
+        node.sendTo(message.initiator, searchFailMsg);
     }
 }
@@ -0,0 +1,30 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.metrics.Histogram;
+import org.uom.metrics.Metrics;
+import org.uom.model.message.Message;
+
+/**
+ * Records the latency of another handler into its per-implementation histogram.
+ */
+public class TimedMessageHandler implements MessageHandler {
+    private final MessageHandler delegate;
+    private final Histogram latency;
+
+    public TimedMessageHandler(MessageHandler delegate) {
+        this.delegate = delegate;
+        this.latency = Metrics.handlerLatency(delegate.getClass());
+    }
+
+    @Override
+    public void handle(Node node, Message message) {
+        long start = System.nanoTime();
+        try {
+            this.delegate.handle(node, message);
+        } finally {
+            this.latency.record((System.nanoTime() - start) / 1000);
+        }
+    }
+}
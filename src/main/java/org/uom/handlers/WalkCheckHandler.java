@@ -0,0 +1,16 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.model.message.Message;
+import org.uom.model.message.WalkCheck;
+import org.uom.model.message.WalkCheckResponse;
+
+public class WalkCheckHandler implements MessageHandler {
+    @Override
+    public void handle(Node node, Message message) {
+        WalkCheck check = (WalkCheck) message;
+        boolean proceed = node.getActiveSearches().getRunning(check.searchId) != null;
+        node.sendTo(message.origin, new WalkCheckResponse(check.searchId, proceed));
+    }
+}
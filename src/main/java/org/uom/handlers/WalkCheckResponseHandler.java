@@ -0,0 +1,14 @@
+package org.uom.handlers;
+
+import org.uom.contracts.handlers.MessageHandler;
+import org.uom.domain.Node;
+import org.uom.model.message.Message;
+import org.uom.model.message.WalkCheckResponse;
+
+public class WalkCheckResponseHandler implements MessageHandler {
+    @Override
+    public void handle(Node node, Message message) {
+        WalkCheckResponse response = (WalkCheckResponse) message;
+        node.resumeWalk(response.searchId, response.proceed);
+    }
+}
@@ -0,0 +1,7 @@
+package org.uom.membership;
+
+public enum MemberState {
+    ALIVE,
+    SUSPECT,
+    DEAD
+}
@@ -0,0 +1,17 @@
+package org.uom.membership;
+
+import org.uom.communication.Endpoint;
+
+/**
+ * A gossiped claim about one member. A higher incarnation always wins; at the same incarnation
+ * {@link MemberState#DEAD} overrides {@link MemberState#SUSPECT}, which overrides {@link MemberState#ALIVE}.
+ * Only the member itself raises its incarnation, to refute a suspicion.
+ */
+public record MemberUpdate(Endpoint member, MemberState state, int incarnation) {
+    public boolean overrides(MemberState currentState, int currentIncarnation) {
+        if (this.incarnation != currentIncarnation) {
+            return this.incarnation > currentIncarnation;
+        }
+        return this.state.compareTo(currentState) > 0;
+    }
+}
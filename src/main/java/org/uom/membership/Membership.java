@@ -0,0 +1,488 @@
+package org.uom.membership;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.communication.Endpoint;
+import org.uom.domain.Neighbour;
+import org.uom.domain.Node;
+import org.uom.metrics.Counter;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.Ping;
+import org.uom.model.message.PingRequest;
+import org.uom.model.message.PingResponse;
+import org.uom.topology.PeerLatencies;
+import org.uom.utils.Constants.Metadata;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SWIM failure detector for the neighbour table. Every {@link Metadata#SWIM_PROBE_INTERVAL_MILLIS} the node
+ * pings one neighbour, taking them in a shuffled round-robin order; if no answer comes within
+ * {@link Metadata#SWIM_PING_TIMEOUT_MILLIS}, or twice the neighbour's round-trip time, up to {@link Metadata#SWIM_INDIRECT_PROBES} other peers ping it
+ * on the node's behalf. A neighbour that answers neither way within three ping timeouts is suspected, and
+ * declared dead unless it refutes the suspicion within {@link Metadata#SWIM_SUSPICION_TIMEOUT_MILLIS}. A dead
+ * neighbour is dropped and replaced by a live member of the partial view.
+ *
+ * <p>Only a node whose own probe failed confirms a death, since it pings the suspect directly and so hears a
+ * refutation first-hand; members that merely hear of a suspicion wait for the verdict or for their own probe.
+ *
+ * <p>Membership changes travel as updates piggybacked on the probes themselves, each sent about
+ * {@code 3 log n} times, so the probe traffic per node is the same however large the network grows. The
+ * partial view is made up of the members these updates mention, up to {@link Metadata#SWIM_VIEW_SIZE} besides
+ * the neighbours.
+ *
+ * <p>Every direct answer to a ping, including pings sent on another member's behalf, is also a round-trip
+ * time sample for the node's {@link PeerLatencies}.
+ */
+public class Membership {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Membership.class);
+    private static final MemberUpdate[] NO_UPDATES = new MemberUpdate[0];
+    private static final int NOT_CONFIRMING = -1;
+    private final Node node;
+    private final Endpoint self;
+    private final LinkedHashMap<Endpoint, Member> members;
+    private final LinkedHashMap<Endpoint, Gossip> gossip;
+    private final Map<Long, Probe> probes;
+    private final ArrayDeque<Endpoint> probeOrder;
+    private final Counter suspicions;
+    private final Counter deaths;
+    private final Counter refutations;
+    private int incarnation;
+    private boolean started;
+    private boolean stopped;
+
+    public Membership(Node node) {
+        this.node = node;
+        this.self = node.getEndpoint();
+        this.members = new LinkedHashMap<>();
+        this.gossip = new LinkedHashMap<>();
+        this.probes = new HashMap<>();
+        this.probeOrder = new ArrayDeque<>();
+        this.suspicions = MetricsRegistry.getDefault().counter("swim.suspicions");
+        this.deaths = MetricsRegistry.getDefault().counter("swim.deaths");
+        this.refutations = MetricsRegistry.getDefault().counter("swim.refutations");
+    }
+
+    public synchronized void start() {
+        if (this.started || this.stopped) {
+            return;
+        }
+        this.started = true;
+        this.scheduleProbe();
+    }
+
+    public synchronized void stop() {
+        this.stopped = true;
+    }
+
+    public synchronized int getIncarnation() {
+        return this.incarnation;
+    }
+
+    public synchronized MemberState getState(Endpoint member) {
+        Member known = this.members.get(member);
+        return known == null ? null : known.state;
+    }
+
+    /**
+     * Number of members known to be alive, neighbours included.
+     */
+    public synchronized int size() {
+        int alive = 0;
+        for (Member member : this.members.values()) {
+            if (member.state != MemberState.DEAD) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * An explicit join proves the neighbour is alive, whatever was gossiped about it before.
+     */
+    public synchronized void onNeighbourAdded(Endpoint neighbour) {
+        Member member = this.members.get(neighbour);
+        if (member == null) {
+            member = this.add(neighbour, MemberState.ALIVE, 0);
+        }
+        member.state = MemberState.ALIVE;
+        this.enqueue(new MemberUpdate(neighbour, MemberState.ALIVE, member.incarnation));
+    }
+
+    /**
+     * A neighbour sends {@code LEAVE} both when it leaves the network and when it merely drops the link to
+     * trim its own table, so it is not gossiped as dead; one that really left stops answering and is found by
+     * its other neighbours' probes. It is replaced only if the table has fallen below
+     * {@link Metadata#MIN_NEIGHBOURS}.
+     */
+    public synchronized void onLeave(Endpoint member) {
+        if (this.started && this.node.getNeighbours().size() < Metadata.MIN_NEIGHBOURS) {
+            this.replace(member);
+        }
+    }
+
+    /**
+     * Pings any peer, neighbour or not, only to sample its round-trip time; no answer is not held against it.
+     * The result completes with the sample in nanoseconds, or {@link PeerLatencies#UNKNOWN} if no answer came
+     * within {@link Metadata#TOPOLOGY_PROBE_TIMEOUT_MILLIS}.
+     */
+    public synchronized CompletableFuture<Long> measure(Endpoint peer) {
+        long probeId = newProbeId();
+        CompletableFuture<Long> measured = new CompletableFuture<>();
+        this.probes.put(probeId, new Probe(peer, null, 0, this.node.nanoTime(), measured));
+        this.node.sendTo(peer, new Ping(probeId, this.takeGossip()));
+        this.node.schedule(() -> this.expire(probeId), Metadata.TOPOLOGY_PROBE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        return measured;
+    }
+
+    public synchronized void onPing(Endpoint origin, Ping ping) {
+        this.apply(ping.updates);
+        this.node.sendTo(origin, new PingResponse(ping.probeId, this.takeGossip()));
+    }
+
+    public synchronized void onPingRequest(Endpoint origin, PingRequest request) {
+        this.apply(request.updates);
+        long relayId = newProbeId();
+        this.probes.put(relayId, new Probe(request.target, origin, request.probeId, this.node.nanoTime(), null));
+        this.node.sendTo(request.target, new Ping(relayId, this.takeGossip()));
+        this.node.schedule(() -> this.expire(relayId), probeTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void onPingResponse(Endpoint origin, PingResponse response) {
+        this.apply(response.updates);
+        Probe probe = this.probes.remove(response.probeId);
+        if (probe != null && origin.equals(probe.target)) {
+            long rtt = this.node.nanoTime() - probe.sentAt;
+            this.node.getPeerLatencies().record(origin, rtt);
+            if (probe.measured != null) {
+                probe.measured.complete(rtt);
+            }
+        }
+        if (probe != null && probe.requester != null) {
+            this.node.sendTo(probe.requester, new PingResponse(probe.requesterProbeId, this.takeGossip()));
+        }
+    }
+
+    private void scheduleProbe() {
+        this.node.schedule(this::probe, Metadata.SWIM_PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void probe() {
+        if (this.stopped) {
+            return;
+        }
+        this.scheduleProbe();
+
+        Endpoint target = this.nextTarget();
+        if (target == null) {
+            return;
+        }
+        long probeId = newProbeId();
+        this.probes.put(probeId, new Probe(target, null, 0, this.node.nanoTime(), null));
+        this.node.sendTo(target, new Ping(probeId, this.takeGossip()));
+        long pingTimeout = this.pingTimeoutNanos(target);
+        this.node.schedule(() -> this.onPingTimeout(probeId), pingTimeout, TimeUnit.NANOSECONDS);
+        this.node.schedule(() -> this.onProbeTimeout(probeId), 3 * pingTimeout, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@link Metadata#SWIM_PING_TIMEOUT_MILLIS}, or twice the target's smoothed round-trip time if that is
+     * longer, so a distant neighbour is not put to indirect probes on every round.
+     */
+    private long pingTimeoutNanos(Endpoint target) {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(Metadata.SWIM_PING_TIMEOUT_MILLIS);
+        long rtt = this.node.getPeerLatencies().get(target);
+        return rtt == PeerLatencies.UNKNOWN ? timeout : Math.max(timeout, 2 * rtt);
+    }
+
+    /**
+     * Next neighbour in a round-robin over a freshly shuffled order, so every neighbour is probed once per
+     * round and a failed one is found within a bounded time.
+     */
+    private Endpoint nextTarget() {
+        for (int round = 0; round < 2; round++) {
+            Endpoint next;
+            while ((next = this.probeOrder.poll()) != null) {
+                if (this.node.isNeighbour(next)) {
+                    return next;
+                }
+            }
+            List<Endpoint> neighbours = this.neighbourEndpoints();
+            Collections.shuffle(neighbours, ThreadLocalRandom.current());
+            this.probeOrder.addAll(neighbours);
+        }
+        return null;
+    }
+
+    private synchronized void onPingTimeout(long probeId) {
+        Probe probe = this.probes.get(probeId);
+        if (probe == null) {
+            return;
+        }
+
+        List<Endpoint> helpers = this.neighbourEndpoints();
+        helpers.remove(probe.target);
+        Collections.shuffle(helpers, ThreadLocalRandom.current());
+        for (Endpoint helper : helpers.subList(0, Math.min(helpers.size(), Metadata.SWIM_INDIRECT_PROBES))) {
+            this.node.sendTo(helper, new PingRequest(probeId, probe.target, this.takeGossip()));
+        }
+    }
+
+    private synchronized void onProbeTimeout(long probeId) {
+        Probe probe = this.probes.remove(probeId);
+        if (probe != null) {
+            this.suspect(probe.target);
+        }
+    }
+
+    private synchronized void expire(long relayId) {
+        Probe probe = this.probes.remove(relayId);
+        if (probe != null && probe.measured != null) {
+            probe.measured.complete(PeerLatencies.UNKNOWN);
+        }
+    }
+
+    /**
+     * Suspects the member, unless it is already being confirmed here, and pings it again straight away and
+     * halfway through the suspicion timeout, carrying the suspicion, so a member that is alive after all hears
+     * of it and refutes it in time.
+     */
+    private void suspect(Endpoint target) {
+        Member member = this.members.get(target);
+        if (member == null) {
+            member = this.add(target, MemberState.ALIVE, 0);
+        }
+        if (member.state == MemberState.DEAD || member.confirming == member.incarnation) {
+            return;
+        }
+
+        if (member.state == MemberState.ALIVE) {
+            member.state = MemberState.SUSPECT;
+            this.enqueue(new MemberUpdate(target, MemberState.SUSPECT, member.incarnation));
+        }
+        this.suspicions.increment();
+        LOGGER.info("[SWIM Suspect ({})] {} did not answer a probe", this.self.port(), target);
+        this.startSuspicionTimer(target, member);
+        this.node.sendTo(target, new Ping(newProbeId(), this.takeGossip()));
+        int incarnation = member.incarnation;
+        this.node.schedule(() -> {
+            synchronized (this) {
+                Member suspect = this.members.get(target);
+                if (suspect != null && suspect.state == MemberState.SUSPECT && suspect.incarnation == incarnation) {
+                    this.node.sendTo(target, new Ping(newProbeId(), new MemberUpdate[]{
+                        new MemberUpdate(target, MemberState.SUSPECT, incarnation)}));
+                }
+            }
+        }, Metadata.SWIM_SUSPICION_TIMEOUT_MILLIS / 2, TimeUnit.MILLISECONDS);
+    }
+
+    private void startSuspicionTimer(Endpoint target, Member suspect) {
+        int incarnation = suspect.incarnation;
+        suspect.confirming = incarnation;
+        this.node.schedule(() -> {
+            synchronized (this) {
+                Member member = this.members.get(target);
+                if (member == null) {
+                    return;
+                }
+                if (member.confirming == incarnation) {
+                    member.confirming = NOT_CONFIRMING;
+                }
+                if (member.state == MemberState.SUSPECT && member.incarnation == incarnation) {
+                    member.state = MemberState.DEAD;
+                    MemberUpdate death = new MemberUpdate(target, MemberState.DEAD, incarnation);
+                    this.enqueue(death);
+                    this.announce(death);
+                    this.onDead(target);
+                }
+            }
+        }, Metadata.SWIM_SUSPICION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends a death this node confirmed itself straight to every live member it knows. The dead member's
+     * other neighbours are usually among them, having been gossiped by it while it was alive, so they drop
+     * it without waiting for their own probe to come round. This costs one message per known member per
+     * failure rather than anything per probe period.
+     */
+    private void announce(MemberUpdate death) {
+        MemberUpdate[] updates = {death};
+        for (Map.Entry<Endpoint, Member> entry : this.members.entrySet()) {
+            if (entry.getValue().state == MemberState.ALIVE) {
+                this.node.sendTo(entry.getKey(), new Ping(newProbeId(), updates));
+            }
+        }
+    }
+
+    private void onDead(Endpoint member) {
+        this.deaths.increment();
+        if (this.node.isNeighbour(member)) {
+            LOGGER.info("[SWIM Dead ({})] Dropping neighbour {}", this.self.port(), member);
+            this.node.removeNeighbour(member.ipAddress(), member.port());
+            this.replace(member);
+        }
+    }
+
+    /**
+     * Joins a random live member of the partial view that is not a neighbour yet.
+     */
+    private void replace(Endpoint dead) {
+        List<Endpoint> candidates = new ArrayList<>();
+        for (Map.Entry<Endpoint, Member> entry : this.members.entrySet()) {
+            Endpoint candidate = entry.getKey();
+            if (entry.getValue().state == MemberState.ALIVE && !candidate.equals(dead) && !this.node.isNeighbour(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+        if (candidates.isEmpty()) {
+            LOGGER.info("[SWIM Replace ({})] No live member to replace {} with", this.self.port(), dead);
+            return;
+        }
+
+        Endpoint replacement = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        LOGGER.info("[SWIM Replace ({})] Replacing {} with {}", this.self.port(), dead, replacement);
+        this.node.join(replacement.ipAddress(), replacement.port());
+    }
+
+    private void apply(MemberUpdate[] updates) {
+        for (MemberUpdate update : updates) {
+            this.apply(update);
+        }
+    }
+
+    private void apply(MemberUpdate update) {
+        Endpoint endpoint = update.member();
+        if (endpoint.equals(this.self)) {
+            if (update.state() != MemberState.ALIVE && update.incarnation() >= this.incarnation) {
+                this.incarnation = update.incarnation() + 1;
+                this.refutations.increment();
+                this.enqueue(new MemberUpdate(this.self, MemberState.ALIVE, this.incarnation));
+            }
+            return;
+        }
+
+        Member member = this.members.get(endpoint);
+        if (member == null) {
+            // Suspicions only matter to members already tracking the suspect
+            if (update.state() != MemberState.SUSPECT) {
+                this.add(endpoint, update.state(), update.incarnation());
+                this.enqueue(update);
+            }
+            return;
+        }
+        if (!update.overrides(member.state, member.incarnation)) {
+            return;
+        }
+
+        member.state = update.state();
+        member.incarnation = update.incarnation();
+        this.enqueue(update);
+        if (update.state() == MemberState.DEAD) {
+            this.onDead(endpoint);
+        }
+    }
+
+    /**
+     * Tracks a member, evicting the oldest members that are not neighbours beyond the view size.
+     */
+    private Member add(Endpoint endpoint, MemberState state, int incarnation) {
+        Member member = new Member(state, incarnation);
+        this.members.put(endpoint, member);
+
+        int excess = this.members.size() - Metadata.SWIM_VIEW_SIZE - this.node.getNeighbours().size();
+        for (Iterator<Endpoint> eldest = this.members.keySet().iterator(); excess > 0 && eldest.hasNext(); ) {
+            Endpoint candidate = eldest.next();
+            if (!candidate.equals(endpoint) && !this.node.isNeighbour(candidate)) {
+                eldest.remove();
+                excess--;
+            }
+        }
+        return member;
+    }
+
+    private void enqueue(MemberUpdate update) {
+        this.gossip.remove(update.member());
+        int transmissions = 3 * (Integer.SIZE - Integer.numberOfLeadingZeros(this.members.size() + 1));
+        this.gossip.put(update.member(), new Gossip(update, transmissions));
+        if (this.gossip.size() > 2 * Metadata.SWIM_VIEW_SIZE) {
+            this.gossip.remove(this.gossip.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * The updates sent fewest times so far, newest first among equals so a fresh suspicion or refutation is
+     * never crowded out, counting this transmission against each of them.
+     */
+    private MemberUpdate[] takeGossip() {
+        if (this.gossip.isEmpty()) {
+            return NO_UPDATES;
+        }
+
+        List<Gossip> pending = new ArrayList<>(this.gossip.values());
+        Collections.reverse(pending);
+        pending.sort(Comparator.comparingInt(g -> g.sent));
+        int count = Math.min(pending.size(), Metadata.SWIM_GOSSIP_ENTRIES);
+        MemberUpdate[] updates = new MemberUpdate[count];
+        for (int i = 0; i < count; i++) {
+            Gossip entry = pending.get(i);
+            updates[i] = entry.update;
+            if (++entry.sent >= entry.transmissions) {
+                this.gossip.remove(entry.update.member());
+            }
+        }
+        return updates;
+    }
+
+    private List<Endpoint> neighbourEndpoints() {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (Neighbour neighbour : this.node.getNeighbours()) {
+            endpoints.add(neighbour.endpoint());
+        }
+        return endpoints;
+    }
+
+    /**
+     * Long enough for a direct ping to time out and an indirect one to make its round trip.
+     */
+    private static long probeTimeoutMillis() {
+        return 3 * Metadata.SWIM_PING_TIMEOUT_MILLIS;
+    }
+
+    private static long newProbeId() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    private static final class Member {
+        private MemberState state;
+        private int incarnation;
+        private int confirming;
+
+        private Member(MemberState state, int incarnation) {
+            this.state = state;
+            this.incarnation = incarnation;
+            this.confirming = NOT_CONFIRMING;
+        }
+    }
+
+    private static final class Gossip {
+        private final MemberUpdate update;
+        private final int transmissions;
+        private int sent;
+
+        private Gossip(MemberUpdate update, int transmissions) {
+            this.update = update;
+            this.transmissions = transmissions;
+        }
+    }
+
+    private record Probe(
+        Endpoint target,
+        Endpoint requester,
+        long requesterProbeId,
+        long sentAt,
+        CompletableFuture<Long> measured) {
+    }
+}
@@ -0,0 +1,26 @@
+package org.uom.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a striped {@link LongAdder}, so concurrent increments do not contend.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        this.count.increment();
+    }
+
+    public void add(long value) {
+        this.count.add(value);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public void reset() {
+        this.count.reset();
+    }
+}
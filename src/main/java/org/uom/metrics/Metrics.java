@@ -0,0 +1,69 @@
+package org.uom.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Well-known metrics recorded on the message and search paths. The per-type counters are looked up by the
+ * message type string without building a name, so recording stays allocation-free after the first message of
+ * each type.
+ */
+public final class Metrics {
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getDefault();
+    private static final Map<String, Counter> RECEIVED = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> SENT = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HANDLER_LATENCY = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> SEARCHES_STARTED = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> SHED = new ConcurrentHashMap<>();
+
+    public static final Histogram SEARCH_FANOUT = REGISTRY.histogram("search.fanout");
+    public static final Histogram SEARCH_HOPS_REMAINING = REGISTRY.histogram("search.hops_remaining");
+    public static final Counter SEARCH_DUPLICATES = REGISTRY.counter("search.duplicates");
+    public static final Counter SEARCH_PRUNED = REGISTRY.counter("search.pruned");
+    public static final Counter SEARCH_HITS = REGISTRY.counter("search.hits");
+    public static final Counter SEARCH_MISSES = REGISTRY.counter("search.misses");
+    public static final Counter SEARCH_COLLAPSED = REGISTRY.counter("search.collapsed");
+    public static final Counter SEARCH_ID_EARLY_ROTATIONS = REGISTRY.counter("search.id_early_rotations");
+    public static final Counter SEARCH_RELAYED_HITS = REGISTRY.counter("search.relayed_hits");
+    public static final Histogram SEARCH_FIRST_RESULT = REGISTRY.histogram("search.first_result_us");
+    public static final Histogram SEARCH_RESULTS = REGISTRY.histogram("search.results");
+    public static final Histogram DHT_LOOKUP_HOPS = REGISTRY.histogram("dht.lookup.hops");
+    public static final Counter DHT_LOOKUP_FAILURES = REGISTRY.counter("dht.lookup.failures");
+    public static final Counter RATE_LIMITED = REGISTRY.counter("messages.rate_limited");
+    public static final Counter PIPELINE_REJECTED = REGISTRY.counter("pipeline.rejected");
+    public static final Counter WARM_STARTS = REGISTRY.counter("node.warm_starts");
+    public static final Counter WARM_START_FALLBACKS = REGISTRY.counter("node.warm_start_fallbacks");
+
+    private Metrics() {
+    }
+
+    public static Counter received(String messageType) {
+        Counter counter = RECEIVED.get(messageType);
+        return counter != null ? counter : RECEIVED.computeIfAbsent(messageType, t -> REGISTRY.counter("messages.received." + t));
+    }
+
+    public static Counter sent(String messageType) {
+        Counter counter = SENT.get(messageType);
+        return counter != null ? counter : SENT.computeIfAbsent(messageType, t -> REGISTRY.counter("messages.sent." + t));
+    }
+
+    public static Counter searchStarted(String strategy) {
+        Counter counter = SEARCHES_STARTED.get(strategy);
+        return counter != null ? counter : SEARCHES_STARTED.computeIfAbsent(strategy, s -> REGISTRY.counter("search.started." + s));
+    }
+
+    /**
+     * Messages of one traffic class dropped from a full queue.
+     */
+    public static Counter shed(String trafficClass) {
+        Counter counter = SHED.get(trafficClass);
+        return counter != null ? counter : SHED.computeIfAbsent(trafficClass, c -> REGISTRY.counter("queue.shed." + c));
+    }
+
+    /**
+     * Latency histogram, in microseconds, for one handler implementation.
+     */
+    public static Histogram handlerLatency(Class<?> handlerType) {
+        return HANDLER_LATENCY.computeIfAbsent(handlerType.getSimpleName(), n -> REGISTRY.histogram("handler.latency_us." + n));
+    }
+}
@@ -0,0 +1,118 @@
+package org.uom.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Named counters, histograms and gauges for the process. Metrics are created once and then recorded into
+ * directly; reading goes through {@link #snapshot()}, which flattens every metric into numeric values, or
+ * {@link #value} for a single one of them.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final List<String> HISTOGRAM_STATS = List.of("count", "mean", "p50", "p90", "p99", "max");
+    private final Map<String, Counter> counters;
+    private final Map<String, Histogram> histograms;
+    private final Map<String, Supplier<? extends Number>> gauges;
+
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+    }
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Counter counter(String name) {
+        Counter counter = this.counters.get(name);
+        return counter != null ? counter : this.counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        Histogram histogram = this.histograms.get(name);
+        return histogram != null ? histogram : this.histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    public void gauge(String name, Supplier<? extends Number> gauge) {
+        this.gauges.put(name, gauge);
+    }
+
+    public void removeGauge(String name) {
+        this.gauges.remove(name);
+    }
+
+    /**
+     * Zeroes every counter and histogram, keeping the instances so holders of them record into the fresh
+     * values. Gauges read live state and are left alone.
+     */
+    public void reset() {
+        this.counters.values().forEach(Counter::reset);
+        this.histograms.values().forEach(Histogram::reset);
+    }
+
+    public SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> values = new TreeMap<>();
+        this.counters.forEach((name, counter) -> values.put(name, counter.getCount()));
+        this.gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+        this.histograms.forEach((name, histogram) -> {
+            for (String stat : HISTOGRAM_STATS) {
+                values.put(name + "." + stat, histogramValue(histogram, stat));
+            }
+        });
+        return values;
+    }
+
+    /**
+     * One value of the {@link #snapshot()}, read without computing the others, or {@code null} if there is no
+     * such metric.
+     */
+    public Number value(String name) {
+        Counter counter = this.counters.get(name);
+        if (counter != null) {
+            return counter.getCount();
+        }
+        Supplier<? extends Number> gauge = this.gauges.get(name);
+        if (gauge != null) {
+            return gauge.get();
+        }
+        int dot = name.lastIndexOf('.');
+        Histogram histogram = dot < 0 ? null : this.histograms.get(name.substring(0, dot));
+        if (histogram == null || !HISTOGRAM_STATS.contains(name.substring(dot + 1))) {
+            return null;
+        }
+        return histogramValue(histogram, name.substring(dot + 1));
+    }
+
+    private static Number histogramValue(Histogram histogram, String stat) {
+        return switch (stat) {
+            case "count" -> histogram.getCount();
+            case "mean" -> histogram.getMean();
+            case "p50" -> histogram.getQuantile(0.50);
+            case "p90" -> histogram.getQuantile(0.90);
+            case "p99" -> histogram.getQuantile(0.99);
+            case "max" -> histogram.getMax();
+            default -> throw new IllegalArgumentException("Unknown histogram statistic: " + stat);
+        };
+    }
+
+    public void writeText(Appendable out) throws IOException {
+        for (Map.Entry<String, Number> entry : this.snapshot().entrySet()) {
+            out.append(entry.getKey()).append(' ').append(format(entry.getValue())).append('\n');
+        }
+    }
+
+    private static String format(Number value) {
+        if (value instanceof Double d) {
+            return String.format(Locale.ROOT, "%.3f", d);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+public class DhtFindNode extends Message {
+    public long rpcId;
+    public long target;
+
+    public DhtFindNode(long rpcId, long target) {
+        super(MessageTypes.DHT_FIND_NODE);
+        this.rpcId = rpcId;
+        this.target = target;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Commands.DHT_FIND_NODE, this.rpcId, this.target);
+    }
+}
@@ -0,0 +1,20 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+public class DhtFindValue extends Message {
+    public long rpcId;
+    public long key;
+
+    public DhtFindValue(long rpcId, long key) {
+        super(MessageTypes.DHT_FIND_VALUE);
+        this.rpcId = rpcId;
+        this.key = key;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Commands.DHT_FIND_VALUE, this.rpcId, this.key);
+    }
+}
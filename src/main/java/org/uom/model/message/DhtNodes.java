@@ -0,0 +1,28 @@
+package org.uom.model.message;
+
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
+/**
+ * Contacts closest to the looked-up id, returned for a find-node or an unanswered find-value request.
+ */
+public class DhtNodes extends Message {
+    public long rpcId;
+    public Endpoint[] nodes;
+
+    public DhtNodes(long rpcId, Endpoint[] nodes) {
+        super(MessageTypes.DHT_NODES);
+        this.rpcId = rpcId;
+        this.nodes = nodes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder endpoints = new StringBuilder();
+        for (Endpoint endpoint : this.nodes) {
+            endpoints.append(' ').append(endpoint.ipAddress()).append(' ').append(endpoint.port());
+        }
+        return String.format(CommandResponses.DHT_NODES, this.rpcId, this.nodes.length, endpoints);
+    }
+}
@@ -0,0 +1,21 @@
+package org.uom.model.message;
+
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+public class DhtStore extends Message {
+    public long key;
+    public Endpoint host;
+
+    public DhtStore(long key, Endpoint host) {
+        super(MessageTypes.DHT_STORE);
+        this.key = key;
+        this.host = host;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Commands.DHT_STORE, this.key, this.host.ipAddress(), this.host.port());
+    }
+}
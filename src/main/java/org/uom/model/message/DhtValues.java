@@ -0,0 +1,28 @@
+package org.uom.model.message;
+
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
+/**
+ * Hosts stored under the looked-up key, returned for a find-value request.
+ */
+public class DhtValues extends Message {
+    public long rpcId;
+    public Endpoint[] hosts;
+
+    public DhtValues(long rpcId, Endpoint[] hosts) {
+        super(MessageTypes.DHT_VALUES);
+        this.rpcId = rpcId;
+        this.hosts = hosts;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder endpoints = new StringBuilder();
+        for (Endpoint endpoint : this.hosts) {
+            endpoints.append(' ').append(endpoint.ipAddress()).append(' ').append(endpoint.port());
+        }
+        return String.format(CommandResponses.DHT_VALUES, this.rpcId, this.hosts.length, endpoints);
+    }
+}
@@ -1,12 +1,34 @@
 package org.uom.model.message;
 
+import org.uom.communication.Endpoint;
+import org.uom.communication.MessageCodec;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
 public class JoinMessage extends Message {
+    public Endpoint neighbour;
     public String neighbourIpAddress;
-    public String neighbourPort;
+    public int neighbourPort;
+    public int protocol;
+
+    public JoinMessage(Endpoint neighbour) {
+        this(neighbour, MessageCodec.PROTOCOL_TEXT);
+    }
+
+    /**
+     * A join offering the highest wire protocol version the sender speaks.
+     */
+    public JoinMessage(Endpoint neighbour, int protocol) {
+        super(MessageTypes.JOIN);
+        this.neighbour = neighbour;
+        this.neighbourIpAddress = neighbour.ipAddress();
+        this.neighbourPort = neighbour.port();
+        this.protocol = protocol;
+    }
 
-    public JoinMessage(Message response) {
-        super(response);
-        this.neighbourIpAddress = this.payload[2];
-        this.neighbourPort = this.payload[3];
+    @Override
+    public String toString() {
+        String join = String.format(Commands.JOIN, this.neighbourIpAddress, this.neighbourPort);
+        return this.protocol != MessageCodec.PROTOCOL_TEXT ? join + " " + this.protocol : join;
     }
 }
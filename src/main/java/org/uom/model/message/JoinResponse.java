@@ -1,15 +1,29 @@
 package org.uom.model.message;
 
+import org.uom.communication.MessageCodec;
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
 public class JoinResponse extends Message {
     public int value;
+    public int protocol;
 
-    public JoinResponse(Message response) {
-        super(response);
-        this.value = Integer.parseInt(this.payload[2]);
+    public JoinResponse(int value) {
+        this(value, MessageCodec.PROTOCOL_TEXT);
     }
 
-    public JoinResponse(String ipAddress, int port, String response, int value) {
-        super(ipAddress, port, response);
+    /**
+     * A join response confirming the wire protocol version both ends will use.
+     */
+    public JoinResponse(int value, int protocol) {
+        super(MessageTypes.JOINOK);
         this.value = value;
+        this.protocol = protocol;
+    }
+
+    @Override
+    public String toString() {
+        String response = String.format(CommandResponses.JOINOK, this.value);
+        return this.protocol != MessageCodec.PROTOCOL_TEXT ? response + " " + this.protocol : response;
     }
 }
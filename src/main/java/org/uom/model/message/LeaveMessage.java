@@ -1,12 +1,23 @@
 package org.uom.model.message;
 
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
 public class LeaveMessage extends Message {
+    public Endpoint endpoint;
     public String ipAddress;
     public int port;
 
-    public LeaveMessage(Message message) {
-        super(message);
-        this.ipAddress = this.payload[2];
-        this.port = Integer.parseInt(this.payload[3]);
+    public LeaveMessage(Endpoint endpoint) {
+        super(MessageTypes.LEAVE);
+        this.endpoint = endpoint;
+        this.ipAddress = endpoint.ipAddress();
+        this.port = endpoint.port();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Commands.LEAVE, this.ipAddress, this.port);
     }
 }
@@ -0,0 +1,22 @@
+package org.uom.model.message;
+
+import org.uom.membership.MemberUpdate;
+
+final class MemberUpdates {
+    private MemberUpdates() {
+    }
+
+    /**
+     * Formats updates as {@code " <ip> <port> <state> <incarnation>"} each, the state being its ordinal.
+     */
+    static String format(MemberUpdate[] updates) {
+        StringBuilder formatted = new StringBuilder();
+        for (MemberUpdate update : updates) {
+            formatted.append(' ').append(update.member().ipAddress())
+                .append(' ').append(update.member().port())
+                .append(' ').append(update.state().ordinal())
+                .append(' ').append(update.incarnation());
+        }
+        return formatted.toString();
+    }
+}
@@ -1,22 +1,25 @@
 package org.uom.model.message;
 
+import org.uom.communication.Endpoint;
+
 public class Message {
     public final String resType;
+    public Endpoint origin;
     public String originIp;
     public int originPort;
-    protected String[] payload;
 
-    public Message(String ipAddress, int port, String response) {
-        this.originIp = ipAddress;
-        this.originPort = port;
-        this.payload = response.split(" ");
-        this.resType = this.payload[1];
+    public Message(String resType) {
+        this.resType = resType;
+    }
+
+    public void setOrigin(Endpoint origin) {
+        this.origin = origin;
+        this.originIp = origin.ipAddress();
+        this.originPort = origin.port();
     }
 
-    protected Message(Message response) {
-        this.originIp = response.originIp;
-        this.originPort = response.originPort;
-        this.payload = response.payload;
-        this.resType = this.payload[1];
+    @Override
+    public String toString() {
+        return this.resType;
     }
 }
@@ -0,0 +1,25 @@
+package org.uom.model.message;
+
+import org.uom.membership.MemberUpdate;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+/**
+ * Failure-detector probe, answered with a {@link PingResponse} carrying the same probe id. Both directions
+ * piggyback membership updates.
+ */
+public class Ping extends Message {
+    public long probeId;
+    public MemberUpdate[] updates;
+
+    public Ping(long probeId, MemberUpdate[] updates) {
+        super(MessageTypes.PING);
+        this.probeId = probeId;
+        this.updates = updates;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Commands.PING, this.probeId, this.updates.length, MemberUpdates.format(this.updates));
+    }
+}
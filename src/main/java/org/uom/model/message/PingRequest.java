@@ -0,0 +1,33 @@
+package org.uom.model.message;
+
+import org.uom.communication.Endpoint;
+import org.uom.membership.MemberUpdate;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+/**
+ * Asks a peer to ping {@code target} on the sender's behalf and relay the answer under {@code probeId}.
+ */
+public class PingRequest extends Message {
+    public long probeId;
+    public Endpoint target;
+    public MemberUpdate[] updates;
+
+    public PingRequest(long probeId, Endpoint target, MemberUpdate[] updates) {
+        super(MessageTypes.PING_REQUEST);
+        this.probeId = probeId;
+        this.target = target;
+        this.updates = updates;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Commands.PING_REQUEST,
+            this.probeId,
+            this.target.ipAddress(),
+            this.target.port(),
+            this.updates.length,
+            MemberUpdates.format(this.updates));
+    }
+}
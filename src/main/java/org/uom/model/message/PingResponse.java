@@ -0,0 +1,21 @@
+package org.uom.model.message;
+
+import org.uom.membership.MemberUpdate;
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
+public class PingResponse extends Message {
+    public long probeId;
+    public MemberUpdate[] updates;
+
+    public PingResponse(long probeId, MemberUpdate[] updates) {
+        super(MessageTypes.PING_OK);
+        this.probeId = probeId;
+        this.updates = updates;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(CommandResponses.PING_OK, this.probeId, this.updates.length, MemberUpdates.format(this.updates));
+    }
+}
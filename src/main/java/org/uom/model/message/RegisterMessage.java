@@ -0,0 +1,23 @@
+package org.uom.model.message;
+
+import org.uom.communication.Endpoint;
+
+public class RegisterMessage extends Message {
+    public Endpoint endpoint;
+    public String ipAddress;
+    public int port;
+    public String username;
+
+    public RegisterMessage(String resType, Endpoint endpoint, String username) {
+        super(resType);
+        this.endpoint = endpoint;
+        this.ipAddress = endpoint.ipAddress();
+        this.port = endpoint.port();
+        this.username = username;
+    }
+
+    @Override
+    public String toString() {
+        return "%s %s %d %s".formatted(this.resType, this.ipAddress, this.port, this.username);
+    }
+}
@@ -9,22 +9,18 @@ public class RegisterResponse extends Message {
     public int neighbourPort1;
     public int neighbourPort2;
 
-    public RegisterResponse(Message response) {
-        super(response);
-
-        if (!this.resType.equals(MessageTypes.REGOK)) {
-            return;
-        }
-        if ((this.noOfNodes = Integer.parseInt(this.payload[2])) == 0) {
-            return;
-        }
-
-        this.neighbourIp1 = this.payload[3];
-        this.neighbourPort1 = Integer.parseInt(this.payload[4]);
+    public RegisterResponse(int noOfNodes, String neighbourIp1, int neighbourPort1, String neighbourIp2, int neighbourPort2) {
+        super(MessageTypes.REGOK);
+        this.noOfNodes = noOfNodes;
+        this.neighbourIp1 = neighbourIp1;
+        this.neighbourPort1 = neighbourPort1;
+        this.neighbourIp2 = neighbourIp2;
+        this.neighbourPort2 = neighbourPort2;
+    }
 
-        if (this.noOfNodes > 1) {
-            this.neighbourIp2 = this.payload[5];
-            this.neighbourPort2 = Integer.parseInt(this.payload[6]);
-        }
+    @Override
+    public String toString() {
+        return "%s %d %s %d %s %d".formatted(
+            this.resType, this.noOfNodes, this.neighbourIp1, this.neighbourPort1, this.neighbourIp2, this.neighbourPort2);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
+/**
+ * Acknowledges segments received from the sender instance identified by {@code epoch}.
+ */
+public class ReliableAck extends Message {
+    public long epoch;
+    public int[] seqs;
+
+    public ReliableAck(long epoch, int[] seqs) {
+        super(MessageTypes.RELIABLE_ACK);
+        this.epoch = epoch;
+        this.seqs = seqs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder seqs = new StringBuilder();
+        for (int seq : this.seqs) {
+            seqs.append(' ').append(seq);
+        }
+        return String.format(CommandResponses.RELIABLE_ACK, this.epoch, this.seqs.length, seqs);
+    }
+}
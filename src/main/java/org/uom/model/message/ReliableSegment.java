@@ -0,0 +1,42 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One numbered piece of a message sent through the reliable layer. The payload is part of the inner message's
+ * encoded frame and runs to the end of the segment's own frame; a message is split into {@code count} segments
+ * with consecutive sequence numbers, the first of which is {@code messageSeq}.
+ */
+public class ReliableSegment extends Message {
+    public long epoch;
+    public int seq;
+    public int messageSeq;
+    public int index;
+    public int count;
+    public byte[] payload;
+
+    public ReliableSegment(long epoch, int seq, int messageSeq, int index, int count, byte[] payload) {
+        super(MessageTypes.RELIABLE_SEGMENT);
+        this.epoch = epoch;
+        this.seq = seq;
+        this.messageSeq = messageSeq;
+        this.index = index;
+        this.count = count;
+        this.payload = payload;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Commands.RELIABLE_SEGMENT,
+            this.epoch,
+            this.seq,
+            this.messageSeq,
+            this.index,
+            this.count,
+            new String(this.payload, StandardCharsets.UTF_8));
+    }
+}
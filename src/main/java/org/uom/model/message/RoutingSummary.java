@@ -0,0 +1,35 @@
+package org.uom.model.message;
+
+import org.uom.search.BloomFilter;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * A node's attenuated Bloom filter: level 0 summarises its own files and level {@code i} what is reachable
+ * {@code i} hops further through its neighbours.
+ */
+public class RoutingSummary extends Message {
+    public BloomFilter[] levels;
+
+    public RoutingSummary(BloomFilter[] levels) {
+        super(MessageTypes.ROUTING_SUMMARY);
+        this.levels = levels;
+    }
+
+    @Override
+    public String toString() {
+        String encoded = Arrays.stream(this.levels)
+            .map(level -> Base64.getEncoder().encodeToString(level.toBytes()))
+            .collect(Collectors.joining(" "));
+        return String.format(
+            Commands.ROUTING_SUMMARY,
+            this.levels[0].bits(),
+            this.levels[0].hashes(),
+            this.levels.length,
+            encoded);
+    }
+}
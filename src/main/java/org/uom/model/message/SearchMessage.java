@@ -1,16 +1,41 @@
 package org.uom.model.message;
 
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
 public class SearchMessage extends Message {
+    public Endpoint initiator;
     public String initiatorIp;
     public int initiatorPort;
     public String query;
     public int hops;
+    public long searchId;
+    public SearchMode mode;
+    /**
+     * Set by an initiator that decodes binary frames, so hosts that are not its neighbours can still reply in
+     * binary. Only binary frames carry it; a search that passes through a text-only node arrives without it.
+     */
+    public boolean binaryReplies;
+
+    public SearchMessage(Endpoint initiator, String query, int hops, long searchId) {
+        this(initiator, query, hops, searchId, SearchMode.FLOOD);
+    }
+
+    public SearchMessage(Endpoint initiator, String query, int hops, long searchId, SearchMode mode) {
+        super(MessageTypes.SEARCH);
+        this.initiator = initiator;
+        this.initiatorIp = initiator.ipAddress();
+        this.initiatorPort = initiator.port();
+        this.query = query;
+        this.hops = hops;
+        this.searchId = searchId;
+        this.mode = mode;
+    }
 
-    public SearchMessage(Message response) {
-        super(response);
-        this.initiatorIp = this.payload[2];
-        this.initiatorPort = Integer.parseInt(this.payload[3]);
-        this.query = this.payload[4];
-        this.hops = Integer.parseInt(this.payload[5]);
+    @Override
+    public String toString() {
+        String search = String.format(Commands.SEARCH, this.initiatorIp, this.initiatorPort, this.query, this.hops, this.searchId);
+        return this.mode == SearchMode.WALK ? search + " W" : search;
     }
 }
@@ -0,0 +1,10 @@
+package org.uom.model.message;
+
+/**
+ * How a search travels. A flood is forwarded to every neighbour until its hops run out; a walk is forwarded
+ * to one neighbour at a time and is marked on the wire with a trailing {@code W} after the search id.
+ */
+public enum SearchMode {
+    FLOOD,
+    WALK
+}
@@ -1,18 +1,35 @@
 package org.uom.model.message;
 
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
 public class SearchResponse extends Message {
     public int fileCount;
+    public Endpoint fileHost;
     public String fileHostIp;
     public int fileHostPort;
     public int hops;
     public String[] fileNames;
 
-    public SearchResponse(Message response) {
-        super(response);
-        this.fileCount = Integer.parseInt(this.payload[2]);
-        this.fileHostIp = this.payload[3];
-        this.fileHostPort = Integer.parseInt(this.payload[4]);
-        this.hops = Integer.parseInt(this.payload[5]);
-        this.fileNames = this.payload[6].split(",");
+    public SearchResponse(int fileCount, Endpoint fileHost, int hops, String[] fileNames) {
+        super(MessageTypes.SEROK);
+        this.fileCount = fileCount;
+        this.fileHost = fileHost;
+        this.fileHostIp = fileHost.ipAddress();
+        this.fileHostPort = fileHost.port();
+        this.hops = hops;
+        this.fileNames = fileNames;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            CommandResponses.SEROK,
+            this.fileCount,
+            this.fileHostIp,
+            this.fileHostPort,
+            this.hops,
+            String.join(", ", this.fileNames));
     }
 }
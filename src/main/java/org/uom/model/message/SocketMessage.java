@@ -1,13 +1,23 @@
 package org.uom.model.message;
 
+import org.uom.communication.Endpoint;
+
 public class SocketMessage {
-    public String ipAddress;
-    public int port;
-    public String body;
+    public Endpoint endpoint;
+    public Message body;
+    public boolean binary;
+
+    public SocketMessage(Endpoint endpoint, Message message) {
+        this(endpoint, message, false);
+    }
 
-    public SocketMessage(String ipAddress, int port, String message) {
-        this.ipAddress = ipAddress;
-        this.port = port;
+    /**
+     * A message to be sent in the binary protocol if {@code binary} is set and it has a binary form. Only set
+     * it for peers known to decode binary frames.
+     */
+    public SocketMessage(Endpoint endpoint, Message message, boolean binary) {
+        this.endpoint = endpoint;
         this.body = message;
+        this.binary = binary;
     }
 }
@@ -0,0 +1,18 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
+public class UnregisterResponse extends Message {
+    public int value;
+
+    public UnregisterResponse(int value) {
+        super(MessageTypes.UNROK);
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(CommandResponses.UNROK, this.value);
+    }
+}
@@ -0,0 +1,18 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.Commands;
+import org.uom.utils.Constants.MessageTypes;
+
+public class WalkCheck extends Message {
+    public long searchId;
+
+    public WalkCheck(long searchId) {
+        super(MessageTypes.WALK_CHECK);
+        this.searchId = searchId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Commands.WALK_CHECK, this.searchId);
+    }
+}
@@ -0,0 +1,20 @@
+package org.uom.model.message;
+
+import org.uom.utils.Constants.CommandResponses;
+import org.uom.utils.Constants.MessageTypes;
+
+public class WalkCheckResponse extends Message {
+    public long searchId;
+    public boolean proceed;
+
+    public WalkCheckResponse(long searchId, boolean proceed) {
+        super(MessageTypes.WALK_CHECK_OK);
+        this.searchId = searchId;
+        this.proceed = proceed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(CommandResponses.WALK_CHECK_OK, this.searchId, this.proceed ? 1 : 0);
+    }
+}
@@ -0,0 +1,13 @@
+package org.uom.processing;
+
+import org.uom.model.message.Message;
+
+/**
+ * A pipeline task handling one received message, so the pipeline can queue it by its {@link TrafficClass}.
+ */
+public record MessageTask(Message message, Runnable handler) implements Runnable {
+    @Override
+    public void run() {
+        this.handler.run();
+    }
+}
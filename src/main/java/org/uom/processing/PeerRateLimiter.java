@@ -0,0 +1,59 @@
+package org.uom.processing;
+
+import org.uom.communication.Endpoint;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per peer. Each peer may send {@code burst} messages at once and {@code rate} a second after
+ * that. Buckets are kept for the most recently heard-from peers only; a peer that comes back after its
+ * bucket was evicted starts with a full one.
+ */
+public class PeerRateLimiter {
+    private final double tokensPerNano;
+    private final double burst;
+    private final LinkedHashMap<Endpoint, Bucket> buckets;
+
+    public PeerRateLimiter(double rate, double burst, int maxPeers) {
+        this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(burst, 1);
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Endpoint, Bucket> eldest) {
+                return this.size() > maxPeers;
+            }
+        };
+    }
+
+    /**
+     * Takes a token from the peer's bucket and returns {@code false} if it has none left.
+     */
+    public synchronized boolean tryAcquire(Endpoint peer, long now) {
+        Bucket bucket = this.buckets.get(peer);
+        if (bucket == null) {
+            bucket = new Bucket(this.burst, now);
+            this.buckets.put(peer, bucket);
+        } else {
+            bucket.tokens = Math.min(this.burst, bucket.tokens + (now - bucket.refilledAt) * this.tokensPerNano);
+            bucket.refilledAt = now;
+        }
+
+        if (bucket.tokens < 1) {
+            return false;
+        }
+        bucket.tokens--;
+        return true;
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
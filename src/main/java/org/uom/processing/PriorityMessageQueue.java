@@ -0,0 +1,337 @@
+package org.uom.processing;
+
+import org.uom.metrics.Metrics;
+import org.uom.model.message.Message;
+import org.uom.model.message.SearchMessage;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded queue of messages, or of things carrying one, that hands out {@link TrafficClass#CONTROL control}
+ * traffic before responses and responses before searches, each in arrival order. It never blocks producers:
+ * when full, it drops a message from the lowest class that is not above the arriving one's, chosen by the
+ * {@link ShedPolicy}, or the arriving message if every queued one outranks it. Searches are kept in buckets
+ * by hops left, so finding the one to drop costs the same however many are queued.
+ *
+ * <p>Elements carrying no message, such as timer tasks handed to a pipeline lane, are the node's own work: they
+ * are handed out before any message, do not count against the capacity and are never shed.
+ *
+ * <p>Iteration walks a snapshot and does not support removal.
+ */
+public class PriorityMessageQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final int HOP_BUCKETS = 16;
+    private static final TrafficClass[] CLASSES = TrafficClass.values();
+    private final int capacity;
+    private final ShedPolicy policy;
+    private final Function<? super E, Message> messageOf;
+    private final List<List<ArrayDeque<Entry<E>>>> buckets;
+    private final ArrayDeque<E> local;
+    private final int[] classSizes;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private long nextSeq;
+    private int size;
+
+    public PriorityMessageQueue(int capacity, ShedPolicy policy, Function<? super E, Message> messageOf) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.messageOf = messageOf;
+        this.buckets = new ArrayList<>(CLASSES.length);
+        for (TrafficClass trafficClass : CLASSES) {
+            int count = trafficClass == TrafficClass.SEARCH ? HOP_BUCKETS : 1;
+            List<ArrayDeque<Entry<E>>> classBuckets = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                classBuckets.add(new ArrayDeque<>());
+            }
+            this.buckets.add(classBuckets);
+        }
+        this.local = new ArrayDeque<>();
+        this.classSizes = new int[CLASSES.length];
+        this.lock = new ReentrantLock();
+        this.notEmpty = this.lock.newCondition();
+    }
+
+    /**
+     * Queues the element, shedding another to make room if full. Returns {@code false} if the element itself
+     * was the one shed.
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        Message message = this.messageOf.apply(element);
+        if (message == null) {
+            return this.offerLocal(element);
+        }
+        TrafficClass trafficClass = TrafficClass.of(message);
+        int bucket = bucketOf(trafficClass, message);
+
+        this.lock.lock();
+        try {
+            if (this.size - this.local.size() >= this.capacity && !this.shedFor(trafficClass, bucket)) {
+                Metrics.shed(trafficClass.metricName()).increment();
+                return false;
+            }
+            this.buckets.get(trafficClass.ordinal()).get(bucket).addLast(new Entry<>(element, this.nextSeq++));
+            this.classSizes[trafficClass.ordinal()]++;
+            this.size++;
+            this.notEmpty.signal();
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean offerLocal(E element) {
+        this.lock.lock();
+        try {
+            this.local.addLast(element);
+            this.size++;
+            this.notEmpty.signal();
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E element) {
+        this.offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) {
+        return this.offer(element);
+    }
+
+    @Override
+    public E poll() {
+        this.lock.lock();
+        try {
+            return this.size == 0 ? null : this.dequeue();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.size == 0) {
+                this.notEmpty.await();
+            }
+            return this.dequeue();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        this.lock.lockInterruptibly();
+        try {
+            while (this.size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = this.notEmpty.awaitNanos(nanos);
+            }
+            return this.dequeue();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        this.lock.lock();
+        try {
+            if (!this.local.isEmpty()) {
+                return this.local.peekFirst();
+            }
+            for (TrafficClass trafficClass : CLASSES) {
+                if (this.classSizes[trafficClass.ordinal()] > 0) {
+                    return this.oldestBucket(trafficClass).peekFirst().element;
+                }
+            }
+            return null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Room left for messages; elements without one can always be added.
+     */
+    @Override
+    public int remainingCapacity() {
+        this.lock.lock();
+        try {
+            return this.capacity - (this.size - this.local.size());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return this.drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        this.lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && this.size > 0) {
+                collection.add(this.dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        this.lock.lock();
+        try {
+            snapshot.addAll(this.local);
+            for (TrafficClass trafficClass : CLASSES) {
+                List<Entry<E>> entries = new ArrayList<>();
+                for (ArrayDeque<Entry<E>> bucket : this.buckets.get(trafficClass.ordinal())) {
+                    entries.addAll(bucket);
+                }
+                entries.sort(Comparator.comparingLong(entry -> entry.seq));
+                entries.forEach(entry -> snapshot.add(entry.element));
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private E dequeue() {
+        if (!this.local.isEmpty()) {
+            this.size--;
+            return this.local.removeFirst();
+        }
+        for (TrafficClass trafficClass : CLASSES) {
+            if (this.classSizes[trafficClass.ordinal()] > 0) {
+                return this.removeFirst(trafficClass, this.oldestBucket(trafficClass));
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    /**
+     * Drops a queued message to make room for one of the given class and bucket, or returns {@code false} if
+     * the arriving message should be dropped instead.
+     */
+    private boolean shedFor(TrafficClass arriving, int arrivingBucket) {
+        for (int ordinal = CLASSES.length - 1; ordinal >= arriving.ordinal(); ordinal--) {
+            if (this.classSizes[ordinal] == 0) {
+                continue;
+            }
+
+            TrafficClass victim = CLASSES[ordinal];
+            switch (this.policy) {
+                case NEWEST -> {
+                    if (victim == arriving) {
+                        return false;
+                    }
+                    ArrayDeque<Entry<E>> newest = this.newestBucket(victim);
+                    newest.removeLast();
+                    this.onRemoved(victim);
+                }
+                case OLDEST -> this.removeFirst(victim, this.oldestBucket(victim));
+                case LOWEST_HOPS -> {
+                    int lowest = this.lowestBucket(victim);
+                    if (victim == arriving && arrivingBucket <= lowest && victim == TrafficClass.SEARCH) {
+                        return false;
+                    }
+                    ArrayDeque<Entry<E>> bucket = victim == TrafficClass.SEARCH
+                        ? this.buckets.get(ordinal).get(lowest)
+                        : this.oldestBucket(victim);
+                    this.removeFirst(victim, bucket);
+                }
+            }
+            Metrics.shed(victim.metricName()).increment();
+            return true;
+        }
+        return false;
+    }
+
+    private E removeFirst(TrafficClass trafficClass, ArrayDeque<Entry<E>> bucket) {
+        E element = bucket.removeFirst().element;
+        this.onRemoved(trafficClass);
+        return element;
+    }
+
+    private void onRemoved(TrafficClass trafficClass) {
+        this.classSizes[trafficClass.ordinal()]--;
+        this.size--;
+    }
+
+    private ArrayDeque<Entry<E>> oldestBucket(TrafficClass trafficClass) {
+        ArrayDeque<Entry<E>> oldest = null;
+        for (ArrayDeque<Entry<E>> bucket : this.buckets.get(trafficClass.ordinal())) {
+            if (!bucket.isEmpty() && (oldest == null || bucket.peekFirst().seq < oldest.peekFirst().seq)) {
+                oldest = bucket;
+            }
+        }
+        return oldest;
+    }
+
+    private ArrayDeque<Entry<E>> newestBucket(TrafficClass trafficClass) {
+        ArrayDeque<Entry<E>> newest = null;
+        for (ArrayDeque<Entry<E>> bucket : this.buckets.get(trafficClass.ordinal())) {
+            if (!bucket.isEmpty() && (newest == null || bucket.peekLast().seq > newest.peekLast().seq)) {
+                newest = bucket;
+            }
+        }
+        return newest;
+    }
+
+    private int lowestBucket(TrafficClass trafficClass) {
+        List<ArrayDeque<Entry<E>>> classBuckets = this.buckets.get(trafficClass.ordinal());
+        for (int i = 0; i < classBuckets.size(); i++) {
+            if (!classBuckets.get(i).isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int bucketOf(TrafficClass trafficClass, Message message) {
+        if (trafficClass != TrafficClass.SEARCH) {
+            return 0;
+        }
+        int hops = message instanceof SearchMessage search ? search.hops : HOP_BUCKETS - 1;
+        return Math.max(0, Math.min(hops, HOP_BUCKETS - 1));
+    }
+
+    private record Entry<E>(E element, long seq) {
+    }
+}
@@ -0,0 +1,30 @@
+package org.uom.processing;
+
+/**
+ * Which message a full {@link PriorityMessageQueue} drops from the lowest class that is not above the
+ * arriving message's.
+ */
+public enum ShedPolicy {
+    /**
+     * The most recently queued, which is the arriving message itself if it is of that class.
+     */
+    NEWEST,
+    /**
+     * The longest queued, on the grounds that its sender has most likely given up on it.
+     */
+    OLDEST,
+    /**
+     * The oldest of the searches with the fewest hops left, which lose the least reach by being dropped; the
+     * longest queued for other classes.
+     */
+    LOWEST_HOPS;
+
+    public static ShedPolicy forName(String name) {
+        return switch (name) {
+            case "newest" -> NEWEST;
+            case "oldest" -> OLDEST;
+            case "lowest-hops" -> LOWEST_HOPS;
+            default -> throw new IllegalArgumentException("Unknown shed policy: " + name);
+        };
+    }
+}
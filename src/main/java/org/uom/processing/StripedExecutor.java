@@ -0,0 +1,101 @@
+package org.uom.processing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.contracts.processing.KeyedExecutor;
+import org.uom.metrics.Metrics;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.utils.Constants.Metadata;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed set of single-threaded lanes. Tasks submitted with the same key always run on the same lane, so they
+ * execute in submission order, while tasks with different keys run in parallel across lanes.
+ *
+ * <p>Each lane queues at most {@link Metadata#PIPELINE_QUEUE_CAPACITY} tasks in a {@link PriorityMessageQueue}:
+ * {@link MessageTask}s run by their message's traffic class, control before responses before searches, and
+ * a full lane sheds them by {@link Metadata#QUEUE_SHED_POLICY}. Order is kept within a class only. Other
+ * tasks, such as timers handed over by {@code Node.schedule}, run ahead of any message and are never shed.
+ */
+public class StripedExecutor implements KeyedExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StripedExecutor.class);
+    private static volatile StripedExecutor defaultExecutor;
+    private final Lane[] lanes;
+
+    public StripedExecutor(int nThreads, String name) {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("nThreads must be positive: " + nThreads);
+        }
+
+        this.lanes = new Lane[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            this.lanes[i] = new Lane(name + "-" + i);
+            this.lanes[i].start();
+        }
+    }
+
+    public static StripedExecutor getDefault() {
+        if (defaultExecutor == null) {
+            synchronized (StripedExecutor.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = new StripedExecutor(Metadata.PROCESSING_THREADS, "message-pipeline");
+                    MetricsRegistry.getDefault().gauge("pipeline.queued", defaultExecutor::getQueuedTaskCount);
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    @Override
+    public void execute(int key, Runnable task) {
+        int hash = key ^ (key >>> 16);
+        Lane lane = this.lanes[Math.floorMod(hash, this.lanes.length)];
+        if (!lane.queue.offer(task)) {
+            Metrics.PIPELINE_REJECTED.increment();
+            LOGGER.debug("[Pipeline Full ({})] Dropped {}", lane.getName(), task);
+        }
+    }
+
+    public int getQueuedTaskCount() {
+        int count = 0;
+        for (Lane lane : this.lanes) {
+            count += lane.queue.size();
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        for (Lane lane : this.lanes) {
+            lane.isRunning = false;
+            lane.interrupt();
+        }
+    }
+
+    private static class Lane extends Thread {
+        private final BlockingQueue<Runnable> queue;
+        private volatile boolean isRunning = true;
+
+        private Lane(String name) {
+            super(name);
+            this.setDaemon(true);
+            this.queue = new PriorityMessageQueue<>(
+                Metadata.PIPELINE_QUEUE_CAPACITY,
+                ShedPolicy.forName(Metadata.QUEUE_SHED_POLICY),
+                task -> task instanceof MessageTask messageTask ? messageTask.message() : null);
+        }
+
+        @Override
+        public void run() {
+            while (this.isRunning) {
+                try {
+                    this.queue.take().run();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    LOGGER.error("[Pipeline Task Failed ({})] {}", this.getName(), e.getMessage(), e);
+                }
+            }
+        }
+    }
+}
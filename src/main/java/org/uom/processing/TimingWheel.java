@@ -0,0 +1,272 @@
+package org.uom.processing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.contracts.processing.Scheduler;
+import org.uom.contracts.processing.Timeout;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.utils.Constants.Metadata;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel running the delayed tasks of every node in the process on one daemon thread. Time
+ * advances in fixed ticks. A task goes into one of 256 slots on the lowest of four wheels whose span reaches
+ * its deadline, and moves down a wheel each time the wheel below comes round, so scheduling, cancelling and
+ * expiring a task each cost O(1) however many are pending. Tasks beyond the top wheel's span wait in an
+ * overflow list that is looked at once per turn of that wheel.
+ *
+ * <p>Only the timer thread touches the wheels. New and cancelled tasks are handed to it through lock-free
+ * queues, and at each wake-up it takes them in and then processes every tick that has passed since the last,
+ * so a late wake-up costs one batch rather than one wake-up per tick. Tasks run on the timer thread and should
+ * be short, handing real work to the message pipeline as {@code Node.schedule} does.
+ */
+public class TimingWheel implements Scheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int UNLINKED = -1;
+    private static final int OVERFLOW = LEVELS;
+    private static volatile TimingWheel defaultWheel;
+    private final long tickNanos;
+    private final long origin;
+    private final Entry[][] slots;
+    private final Queue<Entry> additions;
+    private final Queue<Entry> cancellations;
+    private final AtomicInteger pending;
+    private final Thread thread;
+    private volatile boolean running;
+    private Entry overflow;
+    private long tick;
+
+    public TimingWheel(String name, long tick, TimeUnit unit) {
+        this.tickNanos = Math.max(unit.toNanos(tick), 1);
+        this.origin = System.nanoTime();
+        this.slots = new Entry[LEVELS][SLOTS];
+        this.additions = new ConcurrentLinkedQueue<>();
+        this.cancellations = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+        this.running = true;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static TimingWheel getDefault() {
+        if (defaultWheel == null) {
+            synchronized (TimingWheel.class) {
+                if (defaultWheel == null) {
+                    TimingWheel wheel = new TimingWheel("timer", Metadata.TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+                    MetricsRegistry.getDefault().gauge("timer.pending", wheel::size);
+                    defaultWheel = wheel;
+                }
+            }
+        }
+        return defaultWheel;
+    }
+
+    /**
+     * Runs the task on the timer thread once at least the delay has passed, rounded up to whole ticks.
+     */
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long due = System.nanoTime() - this.origin + Math.max(unit.toNanos(delay), 0);
+        Entry entry = new Entry(this, task, (due + this.tickNanos - 1) / this.tickNanos);
+        this.pending.incrementAndGet();
+        this.additions.add(entry);
+        return entry;
+    }
+
+    /**
+     * Number of tasks scheduled and neither run nor cancelled yet.
+     */
+    public int size() {
+        return this.pending.get();
+    }
+
+    public void shutdown() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+    }
+
+    private void run() {
+        while (this.running) {
+            long due = (System.nanoTime() - this.origin) / this.tickNanos;
+            this.drainCancellations();
+            this.drainAdditions();
+            while (this.tick <= due) {
+                this.advance(this.tick++);
+            }
+
+            long sleep = this.tick * this.tickNanos - (System.nanoTime() - this.origin);
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    private void drainCancellations() {
+        Entry entry;
+        while ((entry = this.cancellations.poll()) != null) {
+            if (entry.level != UNLINKED) {
+                this.unlink(entry);
+            }
+        }
+    }
+
+    private void drainAdditions() {
+        Entry entry;
+        while ((entry = this.additions.poll()) != null) {
+            if (entry.state.get() == Entry.PENDING) {
+                this.place(entry, this.tick);
+            }
+        }
+    }
+
+    /**
+     * Moves the tasks of every wheel that comes round at this tick down, highest wheel first so they can fall
+     * through more than one, and then runs the tasks due.
+     */
+    private void advance(long now) {
+        if ((now & lowMask(LEVELS)) == 0) {
+            Entry entry = this.overflow;
+            this.overflow = null;
+            this.replace(entry, now);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((now & lowMask(level)) == 0) {
+                int slot = (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK;
+                Entry entry = this.slots[level][slot];
+                this.slots[level][slot] = null;
+                this.replace(entry, now);
+            }
+        }
+
+        int slot = (int) now & SLOT_MASK;
+        Entry entry = this.slots[0][slot];
+        this.slots[0][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.detach();
+            entry.expire();
+            entry = next;
+        }
+    }
+
+    private void replace(Entry entry, long now) {
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.detach();
+            if (entry.state.get() == Entry.PENDING) {
+                this.place(entry, now);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Puts the task on the wheel of the highest digit in which its deadline differs from now. Its slot on that
+     * wheel is then still ahead, so it is moved down, or run, exactly when its deadline's turn comes.
+     */
+    private void place(Entry entry, long now) {
+        long deadline = Math.max(entry.deadline, now);
+        long diff = deadline ^ now;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        if (level >= LEVELS) {
+            entry.link(OVERFLOW, 0, this.overflow);
+            this.overflow = entry;
+            return;
+        }
+
+        int slot = (int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        entry.link(level, slot, this.slots[level][slot]);
+        this.slots[level][slot] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else if (entry.level == OVERFLOW) {
+            this.overflow = entry.next;
+        } else {
+            this.slots[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.detach();
+    }
+
+    private static long lowMask(int level) {
+        return (1L << (SLOT_BITS * level)) - 1;
+    }
+
+    private static final class Entry implements Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private final TimingWheel wheel;
+        private final long deadline;
+        private final AtomicInteger state;
+        private Runnable task;
+        private Entry prev;
+        private Entry next;
+        private int level;
+        private int slot;
+
+        private Entry(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(PENDING);
+            this.level = UNLINKED;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!this.state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            this.task = null;
+            this.wheel.pending.decrementAndGet();
+            this.wheel.cancellations.add(this);
+            return true;
+        }
+
+        private void link(int level, int slot, Entry head) {
+            this.level = level;
+            this.slot = slot;
+            this.prev = null;
+            this.next = head;
+            if (head != null) {
+                head.prev = this;
+            }
+        }
+
+        private void detach() {
+            this.level = UNLINKED;
+            this.prev = null;
+            this.next = null;
+        }
+
+        private void expire() {
+            Runnable task = this.task;
+            if (!this.state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            this.task = null;
+            this.wheel.pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("[Timer] Task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
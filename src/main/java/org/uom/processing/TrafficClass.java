@@ -0,0 +1,35 @@
+package org.uom.processing;
+
+import org.uom.model.message.Message;
+import org.uom.utils.Constants.Metadata;
+
+import java.util.Locale;
+
+/**
+ * Priority classes of queued messages, highest first. Control traffic holds the overlay together, responses
+ * finish work already under way and searches start new work, so a full queue sheds searches first and
+ * control last.
+ */
+public enum TrafficClass {
+    CONTROL,
+    RESPONSE,
+    SEARCH;
+
+    private final String metricName = this.name().toLowerCase(Locale.ROOT);
+
+    /**
+     * The class of a message by its type; types that are neither searches nor responses are control.
+     */
+    public static TrafficClass of(Message message) {
+        if (Metadata.SEARCH_TRAFFIC_TYPES.contains(message.resType)) {
+            return SEARCH;
+        } else if (Metadata.RESPONSE_TRAFFIC_TYPES.contains(message.resType)) {
+            return RESPONSE;
+        }
+        return CONTROL;
+    }
+
+    public String metricName() {
+        return this.metricName;
+    }
+}
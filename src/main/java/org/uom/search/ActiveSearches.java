@@ -0,0 +1,218 @@
+package org.uom.search;
+
+import org.uom.communication.Endpoint;
+import org.uom.contracts.processing.Scheduler;
+import org.uom.metrics.Metrics;
+import org.uom.utils.FileUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Searches started by this node that are still in progress, looked up by any of the search ids sent for
+ * them. A search is satisfied once responses have named {@code maxResults} distinct files or hosts matching
+ * its query; walkers checking back are told to stop from then on. Entries are dropped once the window has
+ * passed or the table is full.
+ */
+public class ActiveSearches {
+    private final int capacity;
+    private final long windowNanos;
+    private final Scheduler scheduler;
+    private final LinkedHashMap<Long, Search> byId;
+    private final List<Search> searches;
+
+    public ActiveSearches(int capacity, long window, TimeUnit unit, Scheduler scheduler) {
+        this.capacity = capacity;
+        this.windowNanos = unit.toNanos(window);
+        this.scheduler = scheduler;
+        this.byId = new LinkedHashMap<>();
+        this.searches = new ArrayList<>();
+    }
+
+    public Search start(String query, String strategy, int maxResults) {
+        Search search = new Search(query, strategy, maxResults, this.scheduler);
+        List<Search> ended = new ArrayList<>();
+        synchronized (this) {
+            this.purgeExpired(search.startedAt, ended);
+            this.searches.add(search);
+            if (this.searches.size() > this.capacity) {
+                ended.add(this.searches.remove(0));
+            }
+        }
+        // Outside the lock, since finishing runs the callers' completion callbacks
+        ended.forEach(Search::finish);
+        return search;
+    }
+
+    public synchronized void track(long searchId, Search search) {
+        this.byId.put(searchId, search);
+        if (this.byId.size() > this.capacity * 8) {
+            Iterator<Long> eldest = this.byId.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Returns the search for an id if it is still running and not yet satisfied.
+     */
+    public synchronized Search getRunning(long searchId) {
+        Search search = this.byId.get(searchId);
+        if (search == null || search.isFinished() || this.scheduler.nanoTime() - search.startedAt >= this.windowNanos) {
+            return null;
+        }
+        return search;
+    }
+
+    /**
+     * Adds the host's files to every running search whose query they match.
+     */
+    public void onResults(Endpoint host, String[] fileNames) {
+        List<Search> matched = new ArrayList<>();
+        List<SearchResult> results = new ArrayList<>();
+        synchronized (this) {
+            for (Search search : this.searches) {
+                if (search.isFinished()) {
+                    continue;
+                }
+                for (String fileName : fileNames) {
+                    if (FileUtils.hasMatchingFileName(fileName, search.query)) {
+                        matched.add(search);
+                        results.add(new SearchResult(fileName, host));
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < matched.size(); i++) {
+            matched.get(i).offer(results.get(i));
+        }
+    }
+
+    private void purgeExpired(long now, List<Search> ended) {
+        Iterator<Search> iterator = this.searches.iterator();
+        while (iterator.hasNext()) {
+            Search search = iterator.next();
+            if (search.isFinished() || now - search.startedAt >= this.windowNanos) {
+                ended.add(search);
+                iterator.remove();
+            }
+        }
+        this.byId.values().removeIf(Search::isFinished);
+    }
+
+    /**
+     * Handle on a search in progress. Results stream to the {@link #onResult} listeners as they arrive, each
+     * file and host once, and {@link #completion()} completes with all of them when the search ends: once it
+     * has {@code maxResults}, at its deadline, when its strategy runs out of places to look, or on
+     * {@link #cancel()}.
+     */
+    public static final class Search {
+        private final String query;
+        private final String strategy;
+        private final int maxResults;
+        private final Scheduler clock;
+        private final long startedAt;
+        private final LinkedHashSet<SearchResult> results;
+        private final List<Consumer<SearchResult>> listeners;
+        private final CompletableFuture<List<SearchResult>> completion;
+        private volatile boolean satisfied;
+        private volatile boolean done;
+
+        private Search(String query, String strategy, int maxResults, Scheduler clock) {
+            this.query = query;
+            this.strategy = strategy;
+            this.maxResults = Math.max(maxResults, 1);
+            this.clock = clock;
+            this.startedAt = clock.nanoTime();
+            this.results = new LinkedHashSet<>();
+            this.listeners = new ArrayList<>();
+            this.completion = new CompletableFuture<>();
+        }
+
+        public String query() {
+            return this.query;
+        }
+
+        public String strategy() {
+            return this.strategy;
+        }
+
+        public synchronized List<SearchResult> results() {
+            return List.copyOf(this.results);
+        }
+
+        /**
+         * Calls the listener with every result so far and then with each new one, on the thread that
+         * received it.
+         */
+        public void onResult(Consumer<SearchResult> listener) {
+            List<SearchResult> sofar;
+            synchronized (this) {
+                sofar = List.copyOf(this.results);
+                if (!this.done) {
+                    this.listeners.add(listener);
+                }
+            }
+            sofar.forEach(listener);
+        }
+
+        public CompletableFuture<List<SearchResult>> completion() {
+            return this.completion;
+        }
+
+        public boolean isSatisfied() {
+            return this.satisfied;
+        }
+
+        public boolean isFinished() {
+            return this.satisfied || this.done;
+        }
+
+        /**
+         * Stops the search; walkers checking back are told to stop and no further results are taken.
+         */
+        public void cancel() {
+            this.finish();
+        }
+
+        public void finish() {
+            List<SearchResult> finalResults;
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+                this.listeners.clear();
+                finalResults = List.copyOf(this.results);
+            }
+            Metrics.SEARCH_RESULTS.record(finalResults.size());
+            this.completion.complete(finalResults);
+        }
+
+        /**
+         * Adds a result unless it is a repeat or the search has ended, finishing the search once it has
+         * {@code maxResults}.
+         */
+        public void offer(SearchResult result) {
+            List<Consumer<SearchResult>> notify;
+            synchronized (this) {
+                if (this.done || !this.results.add(result)) {
+                    return;
+                }
+                if (this.results.size() == 1) {
+                    Metrics.SEARCH_FIRST_RESULT.record(TimeUnit.NANOSECONDS.toMicros(this.clock.nanoTime() - this.startedAt));
+                }
+                if (this.results.size() >= this.maxResults) {
+                    this.satisfied = true;
+                }
+                notify = List.copyOf(this.listeners);
+            }
+            notify.forEach(listener -> listener.accept(result));
+            if (this.satisfied) {
+                this.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.uom.search;
+
+import org.uom.utils.Hashing;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size Bloom filter over keyword tokens. Bit positions come from double hashing the token's
+ * {@link Hashing#hash64} value, so two nodes with the same size and hash count always agree on a token's bits.
+ */
+public class BloomFilter {
+    private final long[] words;
+    private final int bits;
+    private final int hashes;
+
+    public BloomFilter(int bits, int hashes) {
+        if (bits <= 0 || bits % Long.SIZE != 0) {
+            throw new IllegalArgumentException("Bloom filter size must be a positive multiple of 64: " + bits);
+        }
+        if (hashes <= 0) {
+            throw new IllegalArgumentException("Bloom filter needs at least one hash: " + hashes);
+        }
+        this.words = new long[bits / Long.SIZE];
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    public int bits() {
+        return this.bits;
+    }
+
+    public int hashes() {
+        return this.hashes;
+    }
+
+    public void add(String token) {
+        long hash = Hashing.hash64(token);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < this.hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, this.bits);
+            this.words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String token) {
+        long hash = Hashing.hash64(token);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < this.hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, this.bits);
+            if ((this.words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean mightContainAll(String[] tokens) {
+        for (String token : tokens) {
+            if (!this.mightContain(token)) {
+                return false;
+            }
+        }
+        return tokens.length > 0;
+    }
+
+    /**
+     * Adds every token of the other filter, which must have the same size and hash count.
+     */
+    public void or(BloomFilter other) {
+        for (int i = 0; i < this.words.length; i++) {
+            this.words[i] |= other.words[i];
+        }
+    }
+
+    public boolean isCompatible(BloomFilter other) {
+        return this.bits == other.bits && this.hashes == other.hashes;
+    }
+
+    public boolean isEmpty() {
+        for (long word : this.words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(this.words, 0);
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[this.words.length * Long.BYTES];
+        for (int i = 0; i < this.words.length; i++) {
+            long word = this.words[i];
+            for (int j = 0; j < Long.BYTES; j++) {
+                bytes[i * Long.BYTES + j] = (byte) (word >>> (j * 8));
+            }
+        }
+        return bytes;
+    }
+
+    public static BloomFilter fromBytes(byte[] bytes, int hashes) {
+        BloomFilter filter = new BloomFilter(bytes.length * Byte.SIZE, hashes);
+        for (int i = 0; i < filter.words.length; i++) {
+            long word = 0;
+            for (int j = 0; j < Long.BYTES; j++) {
+                word |= (bytes[i * Long.BYTES + j] & 0xFFL) << (j * 8);
+            }
+            filter.words[i] = word;
+        }
+        return filter;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BloomFilter that)) {
+            return false;
+        }
+        return this.hashes == that.hashes && Arrays.equals(this.words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.words) + this.hashes;
+    }
+}
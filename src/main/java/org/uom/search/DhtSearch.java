@@ -0,0 +1,57 @@
+package org.uom.search;
+
+import org.uom.communication.Endpoint;
+import org.uom.contracts.search.SearchStrategy;
+import org.uom.domain.Node;
+import org.uom.model.message.SearchMessage;
+import org.uom.search.ActiveSearches.Search;
+
+import java.util.List;
+
+/**
+ * Resolves the query as an exact file name in the DHT and asks up to {@code confirmHosts} of the hosts found,
+ * directly, whether they still share it; they answer like any search hit. Queries no host published, such as
+ * keywords, fall back to a flood of {@code maxHops}.
+ */
+public class DhtSearch implements SearchStrategy {
+    private final int maxHops;
+    private final int confirmHosts;
+
+    public DhtSearch(int maxHops, int confirmHosts) {
+        this.maxHops = maxHops;
+        this.confirmHosts = confirmHosts;
+    }
+
+    @Override
+    public String name() {
+        return "dht";
+    }
+
+    @Override
+    public void start(Node node, Search search) {
+        node.lookupFile(search.query()).thenAccept(hosts -> this.onResolved(node, search, hosts));
+    }
+
+    private void onResolved(Node node, Search search, List<Endpoint> hosts) {
+        long searchId = node.newSearchId();
+        node.getActiveSearches().track(searchId, search);
+        node.markSearchSeen(searchId);
+
+        int asked = 0;
+        for (Endpoint host : hosts) {
+            if (asked == this.confirmHosts) {
+                break;
+            }
+            if (!host.equals(node.getEndpoint())) {
+                SearchMessage confirm = new SearchMessage(node.getEndpoint(), search.query(), 1, searchId);
+                confirm.binaryReplies = node.speaksBinary();
+                node.sendTo(host, confirm);
+                asked++;
+            }
+        }
+
+        if (asked == 0) {
+            node.forwardSearch(search.query(), node.getEndpoint(), this.maxHops + 1, searchId);
+        }
+    }
+}
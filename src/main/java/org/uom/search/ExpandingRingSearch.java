@@ -0,0 +1,48 @@
+package org.uom.search;
+
+import org.uom.contracts.search.SearchStrategy;
+import org.uom.domain.Node;
+import org.uom.search.ActiveSearches.Search;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Floods with a hop limit of one, then retries with one more hop each time a round ends without an answer,
+ * up to {@code maxHops}. Popular files are found by the cheap inner rings; only rare ones pay for a wide
+ * flood.
+ */
+public class ExpandingRingSearch implements SearchStrategy {
+    private final int maxHops;
+    private final long roundTimeoutMillis;
+
+    public ExpandingRingSearch(int maxHops, long roundTimeoutMillis) {
+        this.maxHops = maxHops;
+        this.roundTimeoutMillis = roundTimeoutMillis;
+    }
+
+    @Override
+    public String name() {
+        return "ring";
+    }
+
+    @Override
+    public void start(Node node, Search search) {
+        this.round(node, search, 1);
+    }
+
+    private void round(Node node, Search search, int hops) {
+        if (search.isFinished()) {
+            return;
+        }
+        if (hops > this.maxHops) {
+            search.finish();
+            return;
+        }
+
+        long searchId = node.newSearchId();
+        node.getActiveSearches().track(searchId, search);
+        node.markSearchSeen(searchId);
+        node.forwardSearch(search.query(), node.getEndpoint(), hops + 1, searchId);
+        node.schedule(() -> this.round(node, search, hops + 1), this.roundTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,72 @@
+package org.uom.search;
+
+import org.uom.domain.File;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class FileIndex {
+    private final TokenIndex<File> index;
+    private final ReadWriteLock lock;
+
+    public FileIndex() {
+        this.index = new TokenIndex<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    public boolean add(File file) {
+        this.lock.writeLock().lock();
+        try {
+            return this.index.add(file, file.fileName());
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(File file) {
+        this.lock.writeLock().lock();
+        try {
+            return this.index.remove(file);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public List<File> search(String query) {
+        this.lock.readLock().lock();
+        try {
+            return this.index.search(query);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(File file) {
+        this.lock.readLock().lock();
+        try {
+            return this.index.contains(file);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public List<File> getFiles() {
+        this.lock.readLock().lock();
+        try {
+            return new ArrayList<>(this.index.items());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.index.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+}
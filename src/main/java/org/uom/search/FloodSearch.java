@@ -0,0 +1,30 @@
+package org.uom.search;
+
+import org.uom.contracts.search.SearchStrategy;
+import org.uom.domain.Node;
+import org.uom.search.ActiveSearches.Search;
+
+/**
+ * Sends the query to every neighbour, each of which forwards it to all of theirs until {@code maxHops}
+ * levels have been searched.
+ */
+public class FloodSearch implements SearchStrategy {
+    private final int maxHops;
+
+    public FloodSearch(int maxHops) {
+        this.maxHops = maxHops;
+    }
+
+    @Override
+    public String name() {
+        return "flood";
+    }
+
+    @Override
+    public void start(Node node, Search search) {
+        long searchId = node.newSearchId();
+        node.getActiveSearches().track(searchId, search);
+        node.markSearchSeen(searchId);
+        node.forwardSearch(search.query(), node.getEndpoint(), this.maxHops + 1, searchId);
+    }
+}
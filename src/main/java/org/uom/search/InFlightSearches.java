@@ -0,0 +1,176 @@
+package org.uom.search;
+
+import org.uom.communication.Endpoint;
+import org.uom.model.message.SearchMessage;
+import org.uom.model.message.SearchResponse;
+import org.uom.utils.FileUtils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flooded searches this node forwarded recently, keyed by query, so that identical searches from other
+ * initiators can wait on them instead of being forwarded again. Hits that reach this node for a query are
+ * passed on to the initiators waiting on it, and a late arrival is handed the hits seen so far. A search this
+ * node starts itself can likewise be answered from them.
+ *
+ * <p>Only searches that have had a hit take waiters: this node sees just the hits of the hosts it forwarded
+ * to, so one that has seen none may never see any. An entry takes waiters for one window after it was
+ * forwarded, each waiter is sent at most {@code hitsPerWaiter} hits, and a hit from a host already seen is not
+ * passed on again, so hits relayed between nodes that wait on each other do not circulate.
+ */
+public class InFlightSearches {
+    private static final int MAX_WAITERS = 64;
+    private final int capacity;
+    private final int hitsPerSearch;
+    private final int hitsPerWaiter;
+    private final long windowNanos;
+    private final LinkedHashMap<String, InFlight> byQuery;
+
+    public InFlightSearches(int capacity, int hitsPerSearch, int hitsPerWaiter, long window, TimeUnit unit) {
+        this.capacity = capacity;
+        this.hitsPerSearch = hitsPerSearch;
+        this.hitsPerWaiter = hitsPerWaiter;
+        this.windowNanos = unit.toNanos(window);
+        this.byQuery = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds the search's initiator to the waiters of an in-flight search for the same query that reaches at
+     * least as far and has had a hit, and returns the hits seen for it so far that the initiator should be
+     * sent. Returns {@code null} if there is none to wait on, in which case the search should be forwarded and
+     * {@link #start started}.
+     */
+    public synchronized List<SearchResponse> attach(SearchMessage search, long now) {
+        this.purgeExpired(now);
+        InFlight inFlight = this.byQuery.get(key(search.query));
+        if (inFlight == null
+            || inFlight.hits.isEmpty()
+            || search.hops > inFlight.hops
+            || search.initiator.equals(inFlight.initiator)
+            || inFlight.waiters.size() >= MAX_WAITERS) {
+            return null;
+        }
+
+        Waiter waiter = inFlight.waiters.computeIfAbsent(
+            search.initiator, initiator -> new Waiter(initiator, search.binaryReplies));
+        List<SearchResponse> replay = new ArrayList<>();
+        for (SearchResponse hit : inFlight.hits) {
+            if (waiter.sent >= this.hitsPerWaiter) {
+                break;
+            }
+            waiter.sent++;
+            replay.add(hit);
+        }
+        return replay;
+    }
+
+    /**
+     * The hits seen so far for an in-flight search for the query, or none if there is no such search.
+     */
+    public synchronized List<SearchResponse> hits(String query, long now) {
+        this.purgeExpired(now);
+        InFlight inFlight = this.byQuery.get(key(query));
+        return inFlight == null ? List.of() : List.copyOf(inFlight.hits);
+    }
+
+    /**
+     * Records a search this node has just forwarded, replacing any earlier one for the same query.
+     */
+    public synchronized void start(SearchMessage search, long now) {
+        String key = key(search.query);
+        this.byQuery.remove(key);
+        this.byQuery.put(key, new InFlight(search.query, search.initiator, search.hops, now));
+        if (this.byQuery.size() > this.capacity) {
+            Iterator<InFlight> eldest = this.byQuery.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Records a hit against every in-flight search whose query it matches and returns the initiators waiting
+     * on those that had not had a hit from this host yet, and that have not been sent enough hits already.
+     */
+    public synchronized List<Waiter> onResponse(SearchResponse response, long now) {
+        this.purgeExpired(now);
+        Set<Waiter> waiters = new LinkedHashSet<>();
+        for (InFlight inFlight : this.byQuery.values()) {
+            if (!matches(response.fileNames, inFlight.query) || !inFlight.hosts.add(response.fileHost)) {
+                continue;
+            }
+            if (inFlight.hits.size() < this.hitsPerSearch) {
+                inFlight.hits.add(response);
+            }
+            for (Waiter waiter : inFlight.waiters.values()) {
+                if (waiter.sent < this.hitsPerWaiter) {
+                    waiter.sent++;
+                    waiters.add(waiter);
+                }
+            }
+        }
+        return List.copyOf(waiters);
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<InFlight> iterator = this.byQuery.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().startedAt >= this.windowNanos) {
+            iterator.remove();
+        }
+    }
+
+    private static boolean matches(String[] fileNames, String query) {
+        for (String fileName : fileNames) {
+            if (FileUtils.hasMatchingFileName(fileName, query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(String query) {
+        return String.join(" ", FileUtils.tokenize(query));
+    }
+
+    /**
+     * An initiator waiting on an in-flight search, and whether it takes replies in binary.
+     */
+    public static final class Waiter {
+        private final Endpoint initiator;
+        private final boolean binaryReplies;
+        private int sent;
+
+        private Waiter(Endpoint initiator, boolean binaryReplies) {
+            this.initiator = initiator;
+            this.binaryReplies = binaryReplies;
+        }
+
+        public Endpoint initiator() {
+            return this.initiator;
+        }
+
+        public boolean binaryReplies() {
+            return this.binaryReplies;
+        }
+    }
+
+    private static final class InFlight {
+        private final String query;
+        private final Endpoint initiator;
+        private final int hops;
+        private final long startedAt;
+        private final Map<Endpoint, Waiter> waiters;
+        private final Set<Endpoint> hosts;
+        private final List<SearchResponse> hits;
+
+        private InFlight(String query, Endpoint initiator, int hops, long startedAt) {
+            this.query = query;
+            this.initiator = initiator;
+            this.hops = hops;
+            this.startedAt = startedAt;
+            this.waiters = new LinkedHashMap<>();
+            this.hosts = new HashSet<>();
+            this.hits = new ArrayList<>();
+        }
+    }
+}
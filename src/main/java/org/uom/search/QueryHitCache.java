@@ -0,0 +1,205 @@
+package org.uom.search;
+
+import org.uom.contracts.processing.Scheduler;
+import org.uom.domain.Neighbour;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, expiring cache of which peers answered for which file names. Entries are evicted in
+ * least-recently-used order once the cache is full. Expired entries are dropped by {@link #purgeExpired},
+ * which the node runs from a timer, or by a lookup that comes across one first. Lookups go through a
+ * {@link TokenIndex} over the cached file names, so a query is resolved without scanning every key. Time is
+ * read from the scheduler's clock, so TTLs run on virtual time in a simulation.
+ */
+public class QueryHitCache {
+    private final int maxEntries;
+    private final int maxPeersPerFile;
+    private final long ttlNanos;
+    private final Scheduler scheduler;
+    private final LinkedHashMap<String, Entry> entries;
+    private final TokenIndex<String> index;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder expirations;
+
+    public QueryHitCache(int maxEntries, int maxPeersPerFile, long ttl, TimeUnit unit, Scheduler scheduler) {
+        this.maxEntries = maxEntries;
+        this.maxPeersPerFile = maxPeersPerFile;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.scheduler = scheduler;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.index = new TokenIndex<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.expirations = new LongAdder();
+    }
+
+    public synchronized void put(String fileName, Neighbour peer) {
+        long expiresAt = this.scheduler.nanoTime() + this.ttlNanos;
+        Entry entry = this.entries.get(fileName);
+        if (entry == null) {
+            entry = new Entry(this.maxPeersPerFile);
+            this.entries.put(fileName, entry);
+            this.index.add(fileName, fileName);
+            this.evictIfFull();
+        }
+        entry.expiresAt = expiresAt;
+        entry.addPeer(peer);
+    }
+
+    public synchronized List<Neighbour> get(String query) {
+        long now = this.scheduler.nanoTime();
+        List<Neighbour> peers = new ArrayList<>();
+        for (String fileName : this.index.search(query)) {
+            Entry entry = this.entries.get(fileName);
+            if (now - entry.expiresAt >= 0) {
+                this.remove(fileName);
+                this.expirations.increment();
+                continue;
+            }
+            for (int i = 0; i < entry.peerCount; i++) {
+                if (!peers.contains(entry.peers[i])) {
+                    peers.add(entry.peers[i]);
+                }
+            }
+        }
+
+        if (peers.isEmpty()) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return peers;
+    }
+
+    /**
+     * Puts back an entry saved from an earlier run with the time it had left, unless it has run out since.
+     */
+    public synchronized void restore(String fileName, List<Neighbour> peers, long remainingNanos) {
+        if (remainingNanos <= 0 || peers.isEmpty()) {
+            return;
+        }
+        for (Neighbour peer : peers) {
+            this.put(fileName, peer);
+        }
+        this.entries.get(fileName).expiresAt = this.scheduler.nanoTime() + Math.min(remainingNanos, this.ttlNanos);
+    }
+
+    /**
+     * Calls the visitor with every entry that has not expired, least recently used first, and the
+     * nanoseconds it has left.
+     */
+    public synchronized void forEach(EntryVisitor visitor) {
+        long now = this.scheduler.nanoTime();
+        for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+            Entry value = entry.getValue();
+            if (value.expiresAt - now > 0) {
+                visitor.visit(entry.getKey(), List.copyOf(Arrays.asList(value.peers).subList(0, value.peerCount)), value.expiresAt - now);
+            }
+        }
+    }
+
+    public synchronized void removePeer(Neighbour peer) {
+        Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getValue().removePeer(peer) && entry.getValue().peerCount == 0) {
+                iterator.remove();
+                this.index.remove(entry.getKey());
+            }
+        }
+    }
+
+    public synchronized void purgeExpired() {
+        long now = this.scheduler.nanoTime();
+        Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (now - entry.getValue().expiresAt >= 0) {
+                iterator.remove();
+                this.index.remove(entry.getKey());
+                this.expirations.increment();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return this.expirations.sum();
+    }
+
+    private void evictIfFull() {
+        Iterator<String> iterator = this.entries.keySet().iterator();
+        while (this.entries.size() > this.maxEntries && iterator.hasNext()) {
+            String fileName = iterator.next();
+            iterator.remove();
+            this.index.remove(fileName);
+            this.evictions.increment();
+        }
+    }
+
+    private void remove(String fileName) {
+        this.entries.remove(fileName);
+        this.index.remove(fileName);
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(String fileName, List<Neighbour> peers, long remainingNanos);
+    }
+
+    private static class Entry {
+        private final Neighbour[] peers;
+        private int peerCount;
+        private long expiresAt;
+
+        private Entry(int maxPeers) {
+            this.peers = new Neighbour[maxPeers];
+        }
+
+        private void addPeer(Neighbour peer) {
+            for (int i = 0; i < this.peerCount; i++) {
+                if (this.peers[i].equals(peer)) {
+                    return;
+                }
+            }
+
+            if (this.peerCount == this.peers.length) {
+                System.arraycopy(this.peers, 1, this.peers, 0, this.peerCount - 1);
+                this.peerCount--;
+            }
+            this.peers[this.peerCount++] = peer;
+        }
+
+        private boolean removePeer(Neighbour peer) {
+            for (int i = 0; i < this.peerCount; i++) {
+                if (this.peers[i].equals(peer)) {
+                    System.arraycopy(this.peers, i + 1, this.peers, i, this.peerCount - i - 1);
+                    this.peers[--this.peerCount] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.uom.search;
+
+import org.uom.contracts.search.SearchStrategy;
+import org.uom.domain.Neighbour;
+import org.uom.domain.Node;
+import org.uom.model.message.SearchMessage;
+import org.uom.model.message.SearchMode;
+import org.uom.search.ActiveSearches.Search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends {@code walkers} independent random walks, each to a different neighbour where possible. A walker
+ * moves to one neighbour per hop and checks back with the initiator every few hops, stopping as soon as the
+ * search has been answered, so cost grows with the distance to the file rather than with the overlay size.
+ */
+public class RandomWalkSearch implements SearchStrategy {
+    private final int walkers;
+    private final int maxHops;
+
+    public RandomWalkSearch(int walkers, int maxHops) {
+        this.walkers = walkers;
+        this.maxHops = maxHops;
+    }
+
+    @Override
+    public String name() {
+        return "walk";
+    }
+
+    @Override
+    public void start(Node node, Search search) {
+        List<Neighbour> neighbours = new ArrayList<>(node.getNeighbours());
+        if (neighbours.isEmpty()) {
+            search.finish();
+            return;
+        }
+
+        Collections.shuffle(neighbours, ThreadLocalRandom.current());
+        for (int i = 0; i < this.walkers; i++) {
+            long searchId = node.newSearchId();
+            node.getActiveSearches().track(searchId, search);
+            Neighbour neighbour = neighbours.get(i % neighbours.size());
+            SearchMessage walker = new SearchMessage(node.getEndpoint(), search.query(), this.maxHops, searchId, SearchMode.WALK);
+            walker.binaryReplies = node.speaksBinary();
+            node.sendTo(neighbour.endpoint(), walker);
+        }
+    }
+}
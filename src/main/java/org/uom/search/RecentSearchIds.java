@@ -0,0 +1,106 @@
+package org.uom.search;
+
+import org.uom.contracts.processing.Scheduler;
+import org.uom.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-bounded set of recently seen search ids, kept as two open-addressing generations of {@code long}s.
+ * New ids go into the current generation; when it is half full or older than half the window it becomes the
+ * previous generation and the old previous one is cleared and reused, with O(1) insert and lookup and no
+ * allocation after construction. An id is remembered for at most the whole window, and for at least half of it
+ * only while fewer than {@code capacity / 2} distinct ids arrive per half window. A faster stream rotates early
+ * and shortens the window; each such rotation is counted in {@link Metrics#SEARCH_ID_EARLY_ROTATIONS}.
+ */
+public class RecentSearchIds {
+    private static final long EMPTY = 0L;
+    private final int mask;
+    private final int maxCount;
+    private final long halfWindowNanos;
+    private final Scheduler scheduler;
+    private long[] current;
+    private long[] previous;
+    private int currentCount;
+    private long generationStart;
+
+    public RecentSearchIds(int capacity, long window, TimeUnit unit, Scheduler scheduler) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1;
+        this.mask = tableSize - 1;
+        this.maxCount = tableSize / 2;
+        this.halfWindowNanos = unit.toNanos(window) / 2;
+        this.scheduler = scheduler;
+        this.current = new long[tableSize];
+        this.previous = new long[tableSize];
+        this.generationStart = scheduler.nanoTime();
+    }
+
+    /**
+     * Records the id and returns {@code true} if it was not seen within the window.
+     */
+    public synchronized boolean add(long searchId) {
+        if (searchId == EMPTY) {
+            return true;
+        }
+
+        long now = this.scheduler.nanoTime();
+        if (now - this.generationStart >= this.halfWindowNanos) {
+            this.rotate(now);
+        } else if (this.currentCount >= this.maxCount) {
+            Metrics.SEARCH_ID_EARLY_ROTATIONS.increment();
+            this.rotate(now);
+        }
+
+        if (contains(this.previous, searchId, this.mask)) {
+            return false;
+        }
+
+        int slot = slot(searchId, this.mask);
+        while (this.current[slot] != EMPTY) {
+            if (this.current[slot] == searchId) {
+                return false;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.current[slot] = searchId;
+        this.currentCount++;
+        return true;
+    }
+
+    /**
+     * Starts a new generation if the current one is older than half the window, so ids age out on time on a
+     * node that sees no new searches.
+     */
+    public synchronized void expire() {
+        long now = this.scheduler.nanoTime();
+        if (now - this.generationStart >= this.halfWindowNanos) {
+            this.rotate(now);
+        }
+    }
+
+    private void rotate(long now) {
+        long[] cleared = this.previous;
+        Arrays.fill(cleared, EMPTY);
+        this.previous = this.current;
+        this.current = cleared;
+        this.currentCount = 0;
+        this.generationStart = now;
+    }
+
+    private static boolean contains(long[] table, long searchId, int mask) {
+        int slot = slot(searchId, mask);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == searchId) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static int slot(long searchId, int mask) {
+        long hash = searchId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
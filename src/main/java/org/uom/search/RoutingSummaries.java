@@ -0,0 +1,124 @@
+package org.uom.search;
+
+import org.uom.communication.Endpoint;
+import org.uom.utils.FileUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Attenuated Bloom filters for routing searches. The node's own files make up level 0 of the summary it
+ * advertises, and level {@code i} is the union of its neighbours' level {@code i - 1}, so a neighbour's
+ * summary tells which keywords can be found within {@code depth} hops through it. Each neighbour costs
+ * {@code depth * bits / 8} bytes however much content lies behind it.
+ */
+public class RoutingSummaries {
+    private final int depth;
+    private final int bits;
+    private final int hashes;
+    private final BloomFilter local;
+    private final Map<Endpoint, BloomFilter[]> neighbours;
+    private BloomFilter[] advertised;
+
+    public RoutingSummaries(int depth, int bits, int hashes) {
+        this.depth = depth;
+        this.bits = bits;
+        this.hashes = hashes;
+        this.local = new BloomFilter(bits, hashes);
+        this.neighbours = new HashMap<>();
+    }
+
+    public synchronized void setLocalFiles(Iterable<String> fileNames) {
+        this.local.clear();
+        for (String fileName : fileNames) {
+            for (String token : FileUtils.tokenize(fileName)) {
+                this.local.add(token);
+            }
+        }
+    }
+
+    /**
+     * Stores the summary a neighbour advertised. Summaries built with a different filter size or hash count
+     * are dropped, and the neighbour is then treated as one without a summary.
+     */
+    public synchronized void update(Endpoint neighbour, BloomFilter[] levels) {
+        for (BloomFilter level : levels) {
+            if (!level.isCompatible(this.local)) {
+                this.neighbours.remove(neighbour);
+                return;
+            }
+        }
+        this.neighbours.put(neighbour, levels);
+    }
+
+    public synchronized void remove(Endpoint neighbour) {
+        this.neighbours.remove(neighbour);
+    }
+
+    /**
+     * Whether a search with {@code hops} hops left might find all query tokens through the neighbour. A
+     * neighbour without a summary, or a search reaching past the summary's depth, is always worth trying.
+     */
+    public synchronized boolean mayReach(Endpoint neighbour, String[] tokens, int hops) {
+        BloomFilter[] levels = this.neighbours.get(neighbour);
+        if (levels == null || hops > levels.length) {
+            return true;
+        }
+        for (int i = 0; i < hops; i++) {
+            if (levels[i].mightContainAll(tokens)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The fewest hops through the neighbour after which all query tokens might be found, or -1 if its summary
+     * rules them out or there is none.
+     */
+    public synchronized int distance(Endpoint neighbour, String[] tokens) {
+        BloomFilter[] levels = this.neighbours.get(neighbour);
+        if (levels == null) {
+            return -1;
+        }
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i].mightContainAll(tokens)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized BloomFilter[] summary() {
+        BloomFilter[] levels = new BloomFilter[this.depth];
+        levels[0] = new BloomFilter(this.bits, this.hashes);
+        levels[0].or(this.local);
+        for (int i = 1; i < this.depth; i++) {
+            levels[i] = new BloomFilter(this.bits, this.hashes);
+            for (BloomFilter[] neighbour : this.neighbours.values()) {
+                if (i - 1 < neighbour.length) {
+                    levels[i].or(neighbour[i - 1]);
+                }
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the current summary if it differs from the one last returned here, otherwise null. Summaries
+     * only change as far as {@code depth} hops from an edit, so re-advertising on change settles quickly.
+     */
+    public synchronized BloomFilter[] takeChangedSummary() {
+        BloomFilter[] current = this.summary();
+        if (Arrays.equals(current, this.advertised)) {
+            return null;
+        }
+        this.advertised = current;
+        return current;
+    }
+
+    public synchronized int size() {
+        return this.neighbours.size();
+    }
+}
@@ -0,0 +1,9 @@
+package org.uom.search;
+
+import org.uom.communication.Endpoint;
+
+/**
+ * One file found by a search and the host sharing it. A search reports each pair once.
+ */
+public record SearchResult(String fileName, Endpoint host) {
+}
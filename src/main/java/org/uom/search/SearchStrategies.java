@@ -0,0 +1,19 @@
+package org.uom.search;
+
+import org.uom.contracts.search.SearchStrategy;
+import org.uom.utils.Constants.Metadata;
+
+public final class SearchStrategies {
+    private SearchStrategies() {
+    }
+
+    public static SearchStrategy forName(String name) {
+        return switch (name) {
+            case "flood" -> new FloodSearch(Metadata.MAX_HOPS);
+            case "walk" -> new RandomWalkSearch(Metadata.WALKERS, Metadata.WALK_HOPS);
+            case "ring" -> new ExpandingRingSearch(Metadata.MAX_HOPS, Metadata.RING_TIMEOUT_MILLIS);
+            case "dht" -> new DhtSearch(Metadata.MAX_HOPS, Metadata.DHT_CONFIRM_HOSTS);
+            default -> throw new IllegalArgumentException("Unknown search strategy: " + name);
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package org.uom.search;
+
+import org.uom.utils.FileUtils;
+
+import java.util.*;
+
+/**
+ * Inverted index from case-folded word tokens to the items whose names contain them. A query is answered by
+ * scanning the posting set of its rarest token and checking the remaining tokens as a consecutive phrase,
+ * which gives the same whole-word semantics as {@link FileUtils#hasMatchingFileName(String, String)}.
+ * Not thread-safe.
+ */
+public class TokenIndex<T> {
+    private final Map<T, String[]> itemTokens;
+    private final Map<String, Set<T>> postings;
+
+    public TokenIndex() {
+        this.itemTokens = new LinkedHashMap<>();
+        this.postings = new HashMap<>();
+    }
+
+    public boolean add(T item, String name) {
+        String[] tokens = FileUtils.tokenize(name);
+        if (this.itemTokens.putIfAbsent(item, tokens) != null) {
+            return false;
+        }
+        for (String token : tokens) {
+            this.postings.computeIfAbsent(token, t -> new HashSet<>()).add(item);
+        }
+        return true;
+    }
+
+    public boolean remove(T item) {
+        String[] tokens = this.itemTokens.remove(item);
+        if (tokens == null) {
+            return false;
+        }
+        for (String token : tokens) {
+            Set<T> items = this.postings.get(token);
+            if (items != null && items.remove(item) && items.isEmpty()) {
+                this.postings.remove(token);
+            }
+        }
+        return true;
+    }
+
+    public List<T> search(String query) {
+        String[] queryTokens = FileUtils.tokenize(query);
+        if (queryTokens.length == 0) {
+            return new ArrayList<>();
+        }
+
+        Set<T> candidates = null;
+        for (String token : queryTokens) {
+            Set<T> items = this.postings.get(token);
+            if (items == null) {
+                return new ArrayList<>();
+            }
+            if (candidates == null || items.size() < candidates.size()) {
+                candidates = items;
+            }
+        }
+
+        List<T> matches = new ArrayList<>();
+        for (T item : candidates) {
+            if (queryTokens.length == 1 || FileUtils.containsPhrase(this.itemTokens.get(item), queryTokens)) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+
+    public boolean contains(T item) {
+        return this.itemTokens.containsKey(item);
+    }
+
+    public Set<T> items() {
+        return this.itemTokens.keySet();
+    }
+
+    public int size() {
+        return this.itemTokens.size();
+    }
+}
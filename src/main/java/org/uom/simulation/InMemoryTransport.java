@@ -0,0 +1,59 @@
+package org.uom.simulation;
+
+import org.uom.communication.Endpoint;
+import org.uom.contracts.communication.Transport;
+import org.uom.model.message.Message;
+import org.uom.model.message.SocketMessage;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport attached to a {@link SimulatedNetwork} instead of a socket. Messages are handed to the consumer
+ * on the simulation thread when the network delivers them.
+ */
+public class InMemoryTransport implements Transport {
+    private final SimulatedNetwork network;
+    private final Endpoint endpoint;
+    private Consumer<Message> messageConsumer;
+    private boolean stopped;
+
+    public InMemoryTransport(SimulatedNetwork network, Endpoint endpoint) {
+        this.network = network;
+        this.endpoint = endpoint;
+        this.network.attach(this);
+    }
+
+    public Endpoint getEndpoint() {
+        return this.endpoint;
+    }
+
+    @Override
+    public int getPort() {
+        return this.endpoint.port();
+    }
+
+    @Override
+    public void start(Consumer<Message> messageConsumer) {
+        this.messageConsumer = messageConsumer;
+    }
+
+    @Override
+    public void send(SocketMessage message) {
+        if (!this.stopped) {
+            this.network.send(this.endpoint, message);
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.network.detach(this);
+        this.messageConsumer = null;
+        this.stopped = true;
+    }
+
+    void receive(Message message) {
+        if (this.messageConsumer != null) {
+            this.messageConsumer.accept(message);
+        }
+    }
+}
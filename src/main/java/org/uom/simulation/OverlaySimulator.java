@@ -0,0 +1,636 @@
+package org.uom.simulation;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.communication.MessageCodec;
+import org.uom.contracts.processing.KeyedExecutor;
+import org.uom.contracts.search.SearchStrategy;
+import org.uom.domain.File;
+import org.uom.domain.Neighbour;
+import org.uom.domain.Node;
+import org.uom.metrics.Histogram;
+import org.uom.metrics.Metrics;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.model.message.Message;
+import org.uom.model.message.ReliableSegment;
+import org.uom.model.message.SearchResponse;
+import org.uom.search.ActiveSearches.Search;
+import org.uom.search.DhtSearch;
+import org.uom.search.SearchStrategies;
+import org.uom.utils.Constants.MessageTypes;
+import org.uom.utils.Constants.Metadata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Builds an overlay of real {@link Node}s on a {@link SimulatedNetwork} and runs searches through it one at a
+ * time, reporting messages per search, success rate and the hop distance of the first hit. Everything runs on
+ * one thread in virtual time, so large overlays fit in a single JVM.
+ *
+ * <p>Options are {@code key=value} arguments: {@code nodes}, {@code searches}, {@code seed},
+ * {@code minLatencyMs}, {@code maxLatencyMs}, {@code loss}, {@code reorder}, {@code joinIntervalMs},
+ * {@code searchIdCapacity}, {@code routingSummaries}, {@code reliable}, {@code swim}, {@code crash}, the
+ * fraction of nodes to crash before the searches, {@code regions} and {@code regionLatencyMs}, the number of
+ * regions nodes are spread over and the extra latency between two of them, {@code optimize}, which turns on
+ * the latency-aware topology optimizer, {@code restart}, the fraction of nodes to restart after a first round
+ * of searches, with {@code warm} saying whether they come back from a snapshot (the default) or start cold,
+ * {@code catalogue}, the number of distinct file names
+ * to share instead of the built-in list, and {@code strategies}, a comma-separated list of search strategies.
+ * Each strategy runs on its own overlay built from the same seed, so their reports are directly comparable.
+ * Nodes join the DHT only for the {@code dht} strategy; they republish once the overlay is built instead of
+ * periodically, which would keep the simulation from ever running out of events. For the same reason nodes
+ * do not sweep expired cache entries and search ids; lookups still skip them once expired. SWIM probes and optimizer
+ * rounds never stop, so with {@code swim=true} or {@code optimize=true} each phase runs for a fixed stretch of
+ * virtual time instead.
+ */
+public class OverlaySimulator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OverlaySimulator.class);
+    private static final int MAX_TRACKED_HOPS = 32;
+    private static final KeyedExecutor INLINE = (key, task) -> task.run();
+    private static final long SETTLE_MICROS = 2_000_000;
+    private static final long CRASH_WINDOW_MICROS = 5_000_000;
+    private static final long CRASH_SAMPLE_MICROS = 50_000;
+    private final Simulation simulation;
+    private final SimulatedNetwork network;
+    private final SimulatedBootstrap bootstrap;
+    private final Random random;
+    private final Random protocolRandom;
+    private final SearchStrategy strategy;
+    private final List<String> fileNames;
+    private final List<Node> nodes;
+    private final Map<Endpoint, InMemoryTransport> transports;
+    private final Path snapshotDir;
+    private double binaryFraction;
+    private Histogram messagesPerSearch;
+    private Histogram bytesPerSearch;
+    private Histogram queriesPerSearch;
+    private Histogram firstHitMicros;
+    private long[] hopCounts;
+    private SearchTrace trace;
+    private int searches;
+    private int successes;
+
+    public OverlaySimulator(SimulatedNetwork network, SearchStrategy strategy, long seed) {
+        this(network, strategy, seed, null);
+    }
+
+    /**
+     * A simulator whose nodes save their snapshots to the directory when stopped and warm-start from them
+     * when restarted.
+     */
+    public OverlaySimulator(SimulatedNetwork network, SearchStrategy strategy, long seed, Path snapshotDir) {
+        this.simulation = network.getSimulation();
+        this.network = network;
+        this.bootstrap = new SimulatedBootstrap(network, EndpointRegistry.getDefault().get("10.255.255.254", 55555), seed);
+        this.random = new Random(seed);
+        this.protocolRandom = new Random(seed);
+        this.binaryFraction = 1;
+        this.strategy = strategy;
+        this.fileNames = new ArrayList<>(Metadata.FILE_NAMES);
+        Collections.sort(this.fileNames);
+        this.nodes = new ArrayList<>();
+        this.transports = new HashMap<>();
+        this.snapshotDir = snapshotDir;
+        this.resetStats();
+        this.network.setListener(this::onDeliver);
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        int nodeCount = Integer.parseInt(options.getOrDefault("nodes", "10000"));
+        int searchCount = Integer.parseInt(options.getOrDefault("searches", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        long minLatency = millisToMicros(options.getOrDefault("minLatencyMs", "5"));
+        long maxLatency = millisToMicros(options.getOrDefault("maxLatencyMs", "50"));
+        double loss = Double.parseDouble(options.getOrDefault("loss", "0"));
+        double reorder = Double.parseDouble(options.getOrDefault("reorder", "0"));
+        long joinInterval = millisToMicros(options.getOrDefault("joinIntervalMs", "1"));
+        Metadata.SEARCH_ID_CAPACITY = Integer.parseInt(options.getOrDefault("searchIdCapacity", "128"));
+        Metadata.ROUTING_SUMMARIES = Boolean.parseBoolean(options.getOrDefault("routingSummaries", "true"));
+        Metadata.RELIABLE_DELIVERY = Boolean.parseBoolean(options.getOrDefault("reliable", "false"));
+        Metadata.SWIM = Boolean.parseBoolean(options.getOrDefault("swim", "false"));
+        Metadata.TOPOLOGY_OPTIMIZER = Boolean.parseBoolean(options.getOrDefault("optimize", "false"));
+        double crash = Double.parseDouble(options.getOrDefault("crash", "0"));
+        double restart = Double.parseDouble(options.getOrDefault("restart", "0"));
+        boolean warm = Boolean.parseBoolean(options.getOrDefault("warm", "true"));
+        int regions = Integer.parseInt(options.getOrDefault("regions", "1"));
+        long regionLatency = millisToMicros(options.getOrDefault("regionLatencyMs", "40"));
+        int catalogue = Integer.parseInt(options.getOrDefault("catalogue", "0"));
+        double binary = Double.parseDouble(options.getOrDefault("binary", "1"));
+        int crowd = Integer.parseInt(options.getOrDefault("crowd", "0"));
+        long crowdSpread = millisToMicros(options.getOrDefault("crowdSpreadMs", "200"));
+        Metadata.SEARCH_COLLAPSING = Boolean.parseBoolean(options.getOrDefault("collapse", "true"));
+        if (catalogue > 0) {
+            Set<String> fileNames = new HashSet<>();
+            for (int i = 0; i < catalogue; i++) {
+                fileNames.add("Title %05d".formatted(i));
+            }
+            Metadata.FILE_NAMES = fileNames;
+        }
+        String[] strategies = options.getOrDefault("strategies", Metadata.SEARCH_STRATEGY).split(",");
+
+        if (LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME) instanceof ch.qos.logback.classic.Logger root) {
+            root.setLevel(Level.WARN);
+        }
+
+        Metadata.DHT_REPUBLISH_SECONDS = 0;
+        Metadata.NODE_SNAPSHOT_INTERVAL_SECONDS = 0;
+        Metadata.EXPIRY_SWEEP_SECONDS = 0;
+        for (String name : strategies) {
+            SearchStrategy strategy = SearchStrategies.forName(name.trim());
+            Metadata.DHT = strategy instanceof DhtSearch;
+            Simulation simulation = new Simulation();
+            SimulatedNetwork network = new SimulatedNetwork(
+                simulation, seed, minLatency, maxLatency, loss, reorder, regions, regionLatency);
+            Path snapshotDir = restart > 0 && warm ? createSnapshotDir() : null;
+            OverlaySimulator simulator = new OverlaySimulator(network, strategy, seed, snapshotDir);
+            simulator.setBinaryFraction(binary);
+
+            long start = System.nanoTime();
+            simulator.buildOverlay(nodeCount, joinInterval);
+            long built = System.nanoTime();
+            String builtTopology = simulator.topologyReport();
+            String crashReport = crash > 0 ? simulator.crash(crash) : "";
+            String crowdReport = crowd > 0 ? simulator.flashCrowd(crowd, crowdSpread) : "";
+            String restartReport = "";
+            if (restart > 0) {
+                simulator.runSearches(searchCount);
+                restartReport = "Before restart: " + simulator.report() + simulator.restart(restart);
+                simulator.resetStats();
+            }
+            simulator.runSearches(searchCount);
+            long finished = System.nanoTime();
+
+            System.out.printf(Locale.ROOT, "== Strategy: %s ==%nOverlay built in %.1f s, searches ran in %.1f s%n",
+                strategy.name(), (built - start) / 1e9, (finished - built) / 1e9);
+            System.out.print("At build: " + builtTopology);
+            System.out.print(crashReport);
+            System.out.print(crowdReport);
+            System.out.print(restartReport);
+            System.out.print(simulator.report());
+            simulator.shutdown();
+        }
+    }
+
+    public void buildOverlay(int nodeCount, long joinIntervalMicros) {
+        for (int i = 0; i < nodeCount; i++) {
+            int index = i;
+            this.simulation.schedule(i * joinIntervalMicros, () -> this.nodes.add(this.createNode(index)));
+        }
+        this.simulation.runUntil(nodeCount * joinIntervalMicros);
+        this.settle();
+
+        if (Metadata.DHT) {
+            this.nodes.forEach(node -> node.getDht().republish());
+            this.settle();
+        }
+    }
+
+    /**
+     * Crashes a random fraction of the nodes without a {@code LEAVE} and follows how fast the survivors drop
+     * them from their neighbour tables.
+     */
+    public String crash(double fraction) {
+        int count = (int) Math.round(this.nodes.size() * fraction);
+        Collections.shuffle(this.nodes, this.random);
+        List<Node> crashed = new ArrayList<>(this.nodes.subList(0, count));
+        this.nodes.subList(0, count).clear();
+
+        Set<Endpoint> dead = new HashSet<>();
+        for (Node node : crashed) {
+            dead.add(node.getEndpoint());
+            node.getMembership().stop();
+            node.getTopology().stop();
+            this.transports.get(node.getEndpoint()).stop();
+        }
+
+        long crashedAt = this.simulation.now();
+        long sentBefore = this.network.getSentCount();
+        Map<Endpoint, Integer> initialLinks = this.countStaleLinks(dead);
+        int initial = initialLinks.values().stream().mapToInt(Integer::intValue).sum();
+        Set<Endpoint> undetected = new HashSet<>(initialLinks.keySet());
+        List<Long> firstDetection = new ArrayList<>();
+        long halfGone = -1;
+        long mostGone = -1;
+        long allGone = -1;
+        for (long elapsed = CRASH_SAMPLE_MICROS; elapsed <= CRASH_WINDOW_MICROS && allGone < 0; elapsed += CRASH_SAMPLE_MICROS) {
+            this.simulation.runUntil(crashedAt + elapsed);
+            Map<Endpoint, Integer> links = this.countStaleLinks(dead);
+            for (Iterator<Endpoint> it = undetected.iterator(); it.hasNext(); ) {
+                Endpoint crashedNode = it.next();
+                if (links.getOrDefault(crashedNode, 0) < initialLinks.get(crashedNode)) {
+                    firstDetection.add(elapsed / 1000);
+                    it.remove();
+                }
+            }
+            int stale = links.values().stream().mapToInt(Integer::intValue).sum();
+            if (halfGone < 0 && stale * 2 <= initial) {
+                halfGone = elapsed;
+            }
+            if (mostGone < 0 && stale * 10 <= initial) {
+                mostGone = elapsed;
+            }
+            if (stale == 0) {
+                allGone = elapsed;
+            }
+        }
+        double seconds = (this.simulation.now() - crashedAt) / 1e6;
+        long isolated = this.nodes.stream().filter(node -> node.getNeighbours().isEmpty()).count();
+
+        return String.format(Locale.ROOT,
+            "Crashed %d nodes: first detected after p50 %d ms, p90 %d ms, %d never%n"
+                + "%d stale neighbour links, half gone after %s, 90%% after %s, all after %s, %d survivors isolated, "
+                + "%.1f messages per node per second%n",
+            count, quantile(firstDetection, 0.5), quantile(firstDetection, 0.9), undetected.size(),
+            initial, formatMillis(halfGone), formatMillis(mostGone), formatMillis(allGone), isolated,
+            (this.network.getSentCount() - sentBefore) / seconds / Math.max(this.nodes.size(), 1));
+    }
+
+    /**
+     * Stops a random fraction of the nodes and starts each again at the same address with the same files, and
+     * follows what it costs them to get back into the overlay.
+     */
+    public String restart(double fraction) {
+        int count = (int) Math.round(this.nodes.size() * fraction);
+        Collections.shuffle(this.nodes, this.random);
+        long sentBefore = this.network.getSentCount();
+        for (int i = 0; i < count; i++) {
+            Node node = this.nodes.get(i);
+            List<String> fileNames = node.getSharedFiles().stream().map(File::fileName).toList();
+            node.stop();
+            this.nodes.set(i, this.createNode(node.getIpAddress(), fileNames));
+        }
+        this.settle();
+
+        List<Node> restarted = this.nodes.subList(0, count);
+        long isolated = restarted.stream().filter(node -> node.getNeighbours().isEmpty()).count();
+        double degree = restarted.stream().mapToInt(node -> node.getNeighbours().size()).average().orElse(0);
+        long cachedHits = restarted.stream().mapToLong(node -> node.getQueryHitCache().size()).sum();
+        return String.format(Locale.ROOT,
+            "Restarted %d nodes %s: %.1f messages per restart, degree mean %.1f, %d isolated, %.1f cached hits each%n",
+            count, this.snapshotDir != null ? "from snapshots" : "cold",
+            count == 0 ? 0 : (double) (this.network.getSentCount() - sentBefore) / count,
+            degree, isolated, count == 0 ? 0 : (double) cachedHits / count);
+    }
+
+    /**
+     * Starts searches for the same file from {@code count} nodes that do not share it, at random moments
+     * within the spread, and reports how many found it and what they cost together.
+     */
+    public String flashCrowd(int count, long spreadMicros) {
+        String query = this.fileNames.get(this.random.nextInt(this.fileNames.size()));
+        List<Node> candidates = new ArrayList<>(this.nodes);
+        candidates.removeIf(node -> !node.getMatchingFiles(query).isEmpty());
+        Collections.shuffle(candidates, this.random);
+        List<Node> initiators = candidates.subList(0, Math.min(count, candidates.size()));
+
+        long sentBefore = this.network.getSentCount();
+        long bytesBefore = this.network.getSentBytes();
+        long collapsedBefore = Metrics.SEARCH_COLLAPSED.getCount();
+        long relayedBefore = Metrics.SEARCH_RELAYED_HITS.getCount();
+        long startedAt = this.simulation.now();
+        List<Search> searches = new ArrayList<>();
+        Histogram firstHit = new Histogram();
+        for (Node initiator : initiators) {
+            long delay = spreadMicros <= 0 ? 0 : (long) (this.random.nextDouble() * spreadMicros);
+            this.simulation.schedule(delay, () -> {
+                long searchStart = this.simulation.now();
+                Search search = initiator.searchFile(query, this.strategy);
+                search.onResult(result -> {
+                    if (search.results().size() == 1) {
+                        firstHit.record(this.simulation.now() - searchStart);
+                    }
+                });
+                searches.add(search);
+            });
+        }
+        this.simulation.runUntil(startedAt + spreadMicros);
+        this.settle();
+
+        long found = searches.stream().filter(search -> !search.results().isEmpty()).count();
+        int started = Math.max(searches.size(), 1);
+        return String.format(Locale.ROOT,
+            "Flash crowd of %d for '%s': %.2f%% found it, first hit p50 %.1f ms, p99 %.1f ms%n"
+                + "%.1f messages and %.0f bytes per search, %d searches collapsed, %d hits relayed%n",
+            searches.size(), query, 100.0 * found / started,
+            firstHit.getQuantile(0.5) / 1000.0, firstHit.getQuantile(0.99) / 1000.0,
+            (double) (this.network.getSentCount() - sentBefore) / started,
+            (double) (this.network.getSentBytes() - bytesBefore) / started,
+            Metrics.SEARCH_COLLAPSED.getCount() - collapsedBefore,
+            Metrics.SEARCH_RELAYED_HITS.getCount() - relayedBefore);
+    }
+
+    /**
+     * Share of the nodes created from now on that offer the binary protocol; the rest speak only text.
+     */
+    public void setBinaryFraction(double binaryFraction) {
+        this.binaryFraction = binaryFraction;
+    }
+
+    /**
+     * Forgets the searches run so far and zeroes the process-wide metrics, so the next report covers only
+     * what follows, and runs of different strategies in one process do not add up.
+     */
+    public void resetStats() {
+        MetricsRegistry.getDefault().reset();
+        this.messagesPerSearch = new Histogram();
+        this.bytesPerSearch = new Histogram();
+        this.queriesPerSearch = new Histogram();
+        this.firstHitMicros = new Histogram();
+        this.hopCounts = new long[MAX_TRACKED_HOPS + 1];
+        this.searches = 0;
+        this.successes = 0;
+    }
+
+    public void runSearches(int count) {
+        if (this.nodes.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            Node initiator = this.nodes.get(this.random.nextInt(this.nodes.size()));
+            String query = this.pickMissingFile(initiator);
+            if (query == null) {
+                continue;
+            }
+
+            this.trace = new SearchTrace(
+                initiator.getEndpoint(), this.simulation.now(), this.network.getSentCount(), this.network.getSentBytes());
+            initiator.searchFile(query, this.strategy);
+            this.settle();
+
+            this.searches++;
+            this.messagesPerSearch.record(this.network.getSentCount() - this.trace.sentBefore);
+            this.bytesPerSearch.record(this.network.getSentBytes() - this.trace.bytesBefore);
+            this.queriesPerSearch.record(this.trace.queries);
+            if (this.trace.firstHitHops >= 0) {
+                this.successes++;
+                this.hopCounts[Math.min(this.trace.firstHitHops, MAX_TRACKED_HOPS)]++;
+                this.firstHitMicros.record(this.trace.firstHitAt - this.trace.startedAt);
+            }
+            this.trace = null;
+        }
+    }
+
+    /**
+     * Stops every node so it releases its metrics, and deletes their snapshots; the network is discarded, so
+     * nothing is delivered.
+     */
+    public void shutdown() {
+        this.network.setListener(null);
+        this.nodes.forEach(Node::stop);
+        this.nodes.clear();
+        if (this.snapshotDir != null) {
+            try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(this.snapshotDir)) {
+                for (Path snapshot : snapshots) {
+                    Files.delete(snapshot);
+                }
+                Files.delete(this.snapshotDir);
+            } catch (IOException e) {
+                LOGGER.warn("[Simulation] Could not delete snapshots in {}: {}", this.snapshotDir, e.getMessage());
+            }
+        }
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Nodes: %d, searches: %d, success rate: %.2f%%%n",
+            this.nodes.size(), this.searches, this.searches == 0 ? 0 : 100.0 * this.successes / this.searches));
+        report.append(String.format(Locale.ROOT, "Messages per search: mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+            this.messagesPerSearch.getMean(),
+            this.messagesPerSearch.getQuantile(0.5),
+            this.messagesPerSearch.getQuantile(0.9),
+            this.messagesPerSearch.getQuantile(0.99),
+            this.messagesPerSearch.getMax()));
+        report.append(String.format(Locale.ROOT, "Bytes per search: mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+            this.bytesPerSearch.getMean(),
+            this.bytesPerSearch.getQuantile(0.5),
+            this.bytesPerSearch.getQuantile(0.9),
+            this.bytesPerSearch.getQuantile(0.99),
+            this.bytesPerSearch.getMax()));
+        report.append(String.format(Locale.ROOT, "Queries per search: mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+            this.queriesPerSearch.getMean(),
+            this.queriesPerSearch.getQuantile(0.5),
+            this.queriesPerSearch.getQuantile(0.9),
+            this.queriesPerSearch.getQuantile(0.99),
+            this.queriesPerSearch.getMax()));
+        if (Metadata.DHT) {
+            report.append(String.format(Locale.ROOT, "DHT lookup hops: mean %.1f, p50 %d, p99 %d, max %d, failures %d%n",
+                Metrics.DHT_LOOKUP_HOPS.getMean(),
+                Metrics.DHT_LOOKUP_HOPS.getQuantile(0.5),
+                Metrics.DHT_LOOKUP_HOPS.getQuantile(0.99),
+                Metrics.DHT_LOOKUP_HOPS.getMax(),
+                Metrics.DHT_LOOKUP_FAILURES.getCount()));
+        }
+        if (Metadata.RELIABLE_DELIVERY) {
+            MetricsRegistry registry = MetricsRegistry.getDefault();
+            report.append(String.format(Locale.ROOT, "Reliable delivery: %d retransmits, %d duplicates, %d failures%n",
+                registry.counter("reliable.retransmits").getCount(),
+                registry.counter("reliable.duplicates").getCount(),
+                registry.counter("reliable.failures").getCount()));
+        }
+        report.append(this.topologyReport());
+        report.append(String.format(Locale.ROOT, "Time to first hit (ms): mean %.1f, p50 %.1f, p99 %.1f%n",
+            this.firstHitMicros.getMean() / 1000,
+            this.firstHitMicros.getQuantile(0.5) / 1000.0,
+            this.firstHitMicros.getQuantile(0.99) / 1000.0));
+        report.append("Hops to first hit:\n");
+        for (int hops = 0; hops <= MAX_TRACKED_HOPS; hops++) {
+            if (this.hopCounts[hops] > 0) {
+                report.append(String.format(Locale.ROOT, "  %2d%s: %d%n",
+                    hops, hops == MAX_TRACKED_HOPS ? "+" : "", this.hopCounts[hops]));
+            }
+        }
+        report.append(String.format(Locale.ROOT, "Network: %d sent (%d bytes), %d delivered, %d dropped, %d events%n",
+            this.network.getSentCount(),
+            this.network.getSentBytes(),
+            this.network.getDeliveredCount(),
+            this.network.getDroppedCount(),
+            this.simulation.getExecutedCount()));
+        return report.toString();
+    }
+
+    /**
+     * Degree and latency of the neighbour links, counting each link once from each end.
+     */
+    public String topologyReport() {
+        long links = 0;
+        long crossRegion = 0;
+        long latencyMicros = 0;
+        int maxDegree = 0;
+        for (Node node : this.nodes) {
+            maxDegree = Math.max(maxDegree, node.getNeighbours().size());
+            for (Neighbour neighbour : node.getNeighbours()) {
+                links++;
+                latencyMicros += this.network.meanLatencyMicros(node.getEndpoint(), neighbour.endpoint());
+                if (this.network.region(node.getEndpoint()) != this.network.region(neighbour.endpoint())) {
+                    crossRegion++;
+                }
+            }
+        }
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        return String.format(Locale.ROOT,
+            "Topology: degree mean %.1f, max %d, neighbour latency mean %.1f ms, %.1f%% cross-region, %d swaps, %d evictions%n",
+            this.nodes.isEmpty() ? 0 : (double) links / this.nodes.size(), maxDegree,
+            links == 0 ? 0 : latencyMicros / 1000.0 / links, links == 0 ? 0 : 100.0 * crossRegion / links,
+            registry.counter("topology.swaps").getCount(), registry.counter("topology.evictions").getCount());
+    }
+
+    /**
+     * Runs until the network is quiet, or, with periodic probing, for long enough for a search to finish.
+     */
+    private void settle() {
+        if (Metadata.SWIM || Metadata.TOPOLOGY_OPTIMIZER) {
+            this.simulation.runUntil(this.simulation.now() + SETTLE_MICROS);
+        } else {
+            this.simulation.run();
+        }
+    }
+
+    /**
+     * Number of survivors still holding each crashed node as a neighbour.
+     */
+    private Map<Endpoint, Integer> countStaleLinks(Set<Endpoint> dead) {
+        Map<Endpoint, Integer> stale = new HashMap<>();
+        for (Node node : this.nodes) {
+            for (Neighbour neighbour : node.getNeighbours()) {
+                if (dead.contains(neighbour.endpoint())) {
+                    stale.merge(neighbour.endpoint(), 1, Integer::sum);
+                }
+            }
+        }
+        return stale;
+    }
+
+    private static long quantile(List<Long> values, double quantile) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(Math.min(sorted.size() - 1, (int) (quantile * sorted.size())));
+    }
+
+    private static String formatMillis(long micros) {
+        return micros < 0 ? "never" : (micros / 1000) + " ms";
+    }
+
+    private Node createNode(int index) {
+        String ipAddress = "10.%d.%d.%d".formatted((index >> 16) & 0xFF, (index >> 8) & 0xFF, index & 0xFF);
+        List<String> fileNames = new ArrayList<>();
+        for (int i = 0; i < Metadata.FILES_COUNT; i++) {
+            fileNames.add(this.fileNames.get(this.random.nextInt(this.fileNames.size())));
+        }
+        return this.createNode(ipAddress, fileNames);
+    }
+
+    private Node createNode(String ipAddress, List<String> sharedFileNames) {
+        Endpoint endpoint = EndpointRegistry.getDefault().get(ipAddress, 40000);
+        Endpoint bootstrap = this.bootstrap.getEndpoint();
+        InMemoryTransport transport = new InMemoryTransport(this.network, endpoint);
+        this.transports.put(endpoint, transport);
+        Metadata.BINARY_PROTOCOL = this.protocolRandom.nextDouble() < this.binaryFraction;
+        Node node = new Node(
+            ipAddress,
+            bootstrap.ipAddress(),
+            bootstrap.port(),
+            transport,
+            INLINE,
+            this.simulation,
+            this.snapshotDir == null ? null : this.snapshotDir.resolve(ipAddress + ".snapshot"));
+
+        for (String fileName : this.fileNames) {
+            node.unshareFile(fileName);
+        }
+        sharedFileNames.forEach(node::shareFile);
+        return node;
+    }
+
+    private static Path createSnapshotDir() {
+        try {
+            return Files.createTempDirectory("overlay-snapshots");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String pickMissingFile(Node initiator) {
+        for (int attempt = 0; attempt < this.fileNames.size(); attempt++) {
+            String fileName = this.fileNames.get(this.random.nextInt(this.fileNames.size()));
+            if (initiator.getMatchingFiles(fileName).isEmpty()) {
+                return fileName;
+            }
+        }
+        LOGGER.warn("[Simulation] {} shares every file, skipping search", initiator.getEndpoint());
+        return null;
+    }
+
+    private void onDeliver(Endpoint from, Endpoint to, Message message) {
+        SearchTrace trace = this.trace;
+        if (trace == null) {
+            return;
+        }
+        if (message instanceof ReliableSegment segment) {
+            if (segment.count != 1) {
+                return;
+            }
+            message = MessageCodec.decode(ByteBuffer.wrap(segment.payload), from);
+        }
+
+        if (message.resType == MessageTypes.SEARCH) {
+            trace.queries++;
+            trace.depths.putIfAbsent(to, trace.depths.getOrDefault(from, 0) + 1);
+        } else if (message.resType == MessageTypes.SEROK
+            && to.equals(trace.initiator)
+            && ((SearchResponse) message).fileCount > 0
+            && trace.firstHitHops < 0) {
+            trace.firstHitHops = trace.depths.getOrDefault(from, 0);
+            trace.firstHitAt = this.simulation.now();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static long millisToMicros(String millis) {
+        return Math.round(Double.parseDouble(millis) * 1000);
+    }
+
+    private static final class SearchTrace {
+        private final Endpoint initiator;
+        private final long startedAt;
+        private final long sentBefore;
+        private final long bytesBefore;
+        private final Map<Endpoint, Integer> depths;
+        private int queries;
+        private int firstHitHops = -1;
+        private long firstHitAt;
+
+        private SearchTrace(Endpoint initiator, long startedAt, long sentBefore, long bytesBefore) {
+            this.initiator = initiator;
+            this.startedAt = startedAt;
+            this.sentBefore = sentBefore;
+            this.bytesBefore = bytesBefore;
+            this.depths = new HashMap<>();
+            this.depths.put(initiator, 0);
+        }
+    }
+}
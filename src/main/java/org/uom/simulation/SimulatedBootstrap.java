@@ -0,0 +1,80 @@
+package org.uom.simulation;
+
+import org.uom.communication.Endpoint;
+import org.uom.model.message.Message;
+import org.uom.model.message.RegisterMessage;
+import org.uom.model.message.RegisterResponse;
+import org.uom.model.message.SocketMessage;
+import org.uom.utils.Constants.MessageTypes;
+
+import java.util.*;
+
+/**
+ * Stand-in for the bootstrap server: answers each registration with up to two randomly chosen nodes that
+ * registered before it. A node registering again is offered fresh peers other than itself and kept once, as
+ * the real server does.
+ */
+public class SimulatedBootstrap {
+    private final InMemoryTransport transport;
+    private final Random random;
+    private final List<Endpoint> registered;
+    private final Set<Endpoint> known;
+
+    public SimulatedBootstrap(SimulatedNetwork network, Endpoint endpoint, long seed) {
+        this.transport = new InMemoryTransport(network, endpoint);
+        this.random = new Random(seed);
+        this.registered = new ArrayList<>();
+        this.known = new HashSet<>();
+        this.transport.start(this::handle);
+    }
+
+    public Endpoint getEndpoint() {
+        return this.transport.getEndpoint();
+    }
+
+    private void handle(Message message) {
+        if (!(message instanceof RegisterMessage register)) {
+            return;
+        }
+
+        if (register.resType == MessageTypes.UNREG) {
+            this.unregister(register.endpoint);
+            return;
+        }
+
+        if (this.known.contains(register.endpoint)) {
+            this.unregister(register.endpoint);
+        }
+
+        RegisterResponse response;
+        int count = this.registered.size();
+        if (count == 0) {
+            response = new RegisterResponse(0, null, 0, null, 0);
+        } else if (count == 1) {
+            Endpoint peer = this.registered.get(0);
+            response = new RegisterResponse(1, peer.ipAddress(), peer.port(), null, 0);
+        } else {
+            int first = this.random.nextInt(count);
+            int second = (first + 1 + this.random.nextInt(count - 1)) % count;
+            Endpoint peer1 = this.registered.get(first);
+            Endpoint peer2 = this.registered.get(second);
+            response = new RegisterResponse(2, peer1.ipAddress(), peer1.port(), peer2.ipAddress(), peer2.port());
+        }
+
+        this.registered.add(register.endpoint);
+        this.known.add(register.endpoint);
+        this.transport.send(new SocketMessage(register.origin, response));
+    }
+
+    private void unregister(Endpoint endpoint) {
+        if (!this.known.remove(endpoint)) {
+            return;
+        }
+        int index = this.registered.indexOf(endpoint);
+        if (index >= 0) {
+            int last = this.registered.size() - 1;
+            this.registered.set(index, this.registered.get(last));
+            this.registered.remove(last);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.uom.simulation;
+
+import org.uom.communication.Endpoint;
+import org.uom.communication.MessageCodec;
+import org.uom.model.message.Message;
+import org.uom.model.message.SocketMessage;
+import org.uom.utils.Hashing;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Datagram network between {@link InMemoryTransport}s. Every message is encoded and decoded through
+ * {@link MessageCodec}, so receivers get their own copy exactly as they would off the wire, and is then
+ * delivered after a random latency. Messages can be dropped, and a reordered message is held back long enough
+ * for later ones to overtake it.
+ *
+ * <p>Endpoints can be spread over several regions by the hash of their address; a message between two regions
+ * takes {@code regionLatencyMicros} longer, as it would between data centres.
+ */
+public class SimulatedNetwork {
+    private final Simulation simulation;
+    private final Random random;
+    private final long minLatencyMicros;
+    private final long maxLatencyMicros;
+    private final double lossRate;
+    private final double reorderRate;
+    private final int regions;
+    private final long regionLatencyMicros;
+    private final Map<Endpoint, InMemoryTransport> transports;
+    private final ByteBuffer buffer;
+    private DeliveryListener listener;
+    private long sentCount;
+    private long sentBytes;
+    private long droppedCount;
+    private long deliveredCount;
+
+    public SimulatedNetwork(
+        Simulation simulation,
+        long seed,
+        long minLatencyMicros,
+        long maxLatencyMicros,
+        double lossRate,
+        double reorderRate) {
+
+        this(simulation, seed, minLatencyMicros, maxLatencyMicros, lossRate, reorderRate, 1, 0);
+    }
+
+    public SimulatedNetwork(
+        Simulation simulation,
+        long seed,
+        long minLatencyMicros,
+        long maxLatencyMicros,
+        double lossRate,
+        double reorderRate,
+        int regions,
+        long regionLatencyMicros) {
+
+        if (minLatencyMicros < 0 || maxLatencyMicros < minLatencyMicros) {
+            throw new IllegalArgumentException("Invalid latency range: " + minLatencyMicros + ".." + maxLatencyMicros);
+        }
+        this.simulation = simulation;
+        this.random = new Random(seed);
+        this.minLatencyMicros = minLatencyMicros;
+        this.maxLatencyMicros = maxLatencyMicros;
+        this.lossRate = lossRate;
+        this.reorderRate = reorderRate;
+        this.regions = Math.max(regions, 1);
+        this.regionLatencyMicros = regionLatencyMicros;
+        this.transports = new HashMap<>();
+        this.buffer = ByteBuffer.allocate(65536);
+    }
+
+    public Simulation getSimulation() {
+        return this.simulation;
+    }
+
+    public void setListener(DeliveryListener listener) {
+        this.listener = listener;
+    }
+
+    public long getSentCount() {
+        return this.sentCount;
+    }
+
+    /**
+     * Encoded size of every message sent, including those then lost.
+     */
+    public long getSentBytes() {
+        return this.sentBytes;
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    public long getDeliveredCount() {
+        return this.deliveredCount;
+    }
+
+    public int region(Endpoint endpoint) {
+        return (int) Long.remainderUnsigned(Hashing.mix64(endpoint.key()), this.regions);
+    }
+
+    /**
+     * Latency between two endpoints before loss and reordering, averaged over the random part.
+     */
+    public long meanLatencyMicros(Endpoint from, Endpoint to) {
+        return (this.minLatencyMicros + this.maxLatencyMicros) / 2 + this.regionPenalty(from, to);
+    }
+
+    void attach(InMemoryTransport transport) {
+        if (this.transports.putIfAbsent(transport.getEndpoint(), transport) != null) {
+            throw new IllegalStateException("Address already in use: " + transport.getEndpoint());
+        }
+    }
+
+    void detach(InMemoryTransport transport) {
+        this.transports.remove(transport.getEndpoint(), transport);
+    }
+
+    void send(Endpoint from, SocketMessage message) {
+        this.sentCount++;
+        boolean lost = this.random.nextDouble() < this.lossRate;
+
+        Message decoded;
+        this.buffer.clear();
+        try {
+            MessageCodec.encode(message, this.buffer);
+            this.buffer.flip();
+            this.sentBytes += this.buffer.remaining();
+            decoded = lost ? null : MessageCodec.decode(this.buffer, from);
+        } catch (BufferOverflowException | IllegalArgumentException e) {
+            decoded = null;
+        }
+        Message copy = decoded;
+        if (copy == null) {
+            this.droppedCount++;
+            return;
+        }
+
+        Endpoint to = message.endpoint;
+        this.simulation.schedule(this.latency() + this.regionPenalty(from, to), () -> this.deliver(from, to, copy));
+    }
+
+    private void deliver(Endpoint from, Endpoint to, Message message) {
+        InMemoryTransport transport = this.transports.get(to);
+        if (transport == null) {
+            this.droppedCount++;
+            return;
+        }
+
+        this.deliveredCount++;
+        if (this.listener != null) {
+            this.listener.onDeliver(from, to, message);
+        }
+        transport.receive(message);
+    }
+
+    private long latency() {
+        long latency = this.minLatencyMicros;
+        if (this.maxLatencyMicros > this.minLatencyMicros) {
+            latency += (long) (this.random.nextDouble() * (this.maxLatencyMicros - this.minLatencyMicros));
+        }
+        if (this.reorderRate > 0 && this.random.nextDouble() < this.reorderRate) {
+            latency += this.maxLatencyMicros;
+        }
+        return latency;
+    }
+
+    private long regionPenalty(Endpoint from, Endpoint to) {
+        return this.regions > 1 && this.region(from) != this.region(to) ? this.regionLatencyMicros : 0;
+    }
+
+    @FunctionalInterface
+    public interface DeliveryListener {
+        void onDeliver(Endpoint from, Endpoint to, Message message);
+    }
+}
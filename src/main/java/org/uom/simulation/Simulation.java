@@ -0,0 +1,113 @@
+package org.uom.simulation;
+
+import org.uom.contracts.processing.Scheduler;
+import org.uom.contracts.processing.Timeout;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discrete-event scheduler running on virtual time. Events run one at a time on the calling thread in
+ * timestamp order, ties broken by scheduling order, so a run is deterministic for a given seed.
+ */
+public class Simulation implements Scheduler {
+    private final PriorityQueue<Event> events;
+    private long now;
+    private long sequence;
+    private long executed;
+
+    public Simulation() {
+        this.events = new PriorityQueue<>();
+    }
+
+    /**
+     * Current virtual time, in microseconds.
+     */
+    public long now() {
+        return this.now;
+    }
+
+    public long getExecutedCount() {
+        return this.executed;
+    }
+
+    public boolean isIdle() {
+        return this.events.isEmpty();
+    }
+
+    public Timeout schedule(long delayMicros, Runnable task) {
+        Event event = new Event(this.now + Math.max(0, delayMicros), this.sequence++, task);
+        this.events.add(event);
+        return event;
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return this.schedule(unit.toMicros(delay), task);
+    }
+
+    @Override
+    public long nanoTime() {
+        return TimeUnit.MICROSECONDS.toNanos(this.now);
+    }
+
+    /**
+     * Runs events until none are left.
+     */
+    public void run() {
+        this.runUntil(Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs every event due at or before {@code deadline} and then advances the clock to it.
+     */
+    public void runUntil(long deadline) {
+        Event event;
+        while ((event = this.events.peek()) != null && event.time <= deadline) {
+            this.events.poll();
+            if (event.cancelled) {
+                continue;
+            }
+            this.now = event.time;
+            this.executed++;
+            event.ran = true;
+            event.task.run();
+        }
+        if (deadline != Long.MAX_VALUE) {
+            this.now = Math.max(this.now, deadline);
+        }
+    }
+
+    /**
+     * A cancelled event stays queued, since removing it from the middle of the heap costs O(n), and is
+     * skipped when its time comes.
+     */
+    private static final class Event implements Comparable<Event>, Timeout {
+        private final long time;
+        private final long sequence;
+        private final Runnable task;
+        private boolean cancelled;
+        private boolean ran;
+
+        private Event(long time, long sequence, Runnable task) {
+            this.time = time;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (this.cancelled || this.ran) {
+                return false;
+            }
+            this.cancelled = true;
+            return true;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(this.time, other.time);
+            return byTime != 0 ? byTime : Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.uom.topology;
+
+import org.uom.communication.Endpoint;
+import org.uom.utils.Constants.Metadata;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Smoothed round-trip time to each peer this node has pinged, as {@code srtt = 7/8 srtt + 1/8 sample}, so a
+ * single delayed reply barely moves it. Only the {@link Metadata#TOPOLOGY_TRACKED_PEERS} most recently
+ * measured peers are kept.
+ */
+public class PeerLatencies {
+    public static final long UNKNOWN = -1;
+    private final LinkedHashMap<Endpoint, Long> smoothed;
+
+    public PeerLatencies() {
+        this.smoothed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Endpoint, Long> eldest) {
+                return this.size() > Metadata.TOPOLOGY_TRACKED_PEERS;
+            }
+        };
+    }
+
+    public synchronized void record(Endpoint peer, long rttNanos) {
+        Long previous = this.smoothed.get(peer);
+        this.smoothed.put(peer, previous == null ? rttNanos : (7 * previous + rttNanos) / 8);
+    }
+
+    /**
+     * Smoothed round-trip time in nanoseconds, or {@link #UNKNOWN} if the peer has not been measured.
+     */
+    public synchronized long get(Endpoint peer) {
+        Long rtt = this.smoothed.get(peer);
+        return rtt == null ? UNKNOWN : rtt;
+    }
+
+    public synchronized void remove(Endpoint peer) {
+        this.smoothed.remove(peer);
+    }
+
+    public synchronized int size() {
+        return this.smoothed.size();
+    }
+}
@@ -0,0 +1,228 @@
+package org.uom.topology;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uom.communication.Endpoint;
+import org.uom.domain.Neighbour;
+import org.uom.domain.Node;
+import org.uom.metrics.Counter;
+import org.uom.metrics.MetricsRegistry;
+import org.uom.utils.Constants.Metadata;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the neighbour table bounded and, with {@link Metadata#TOPOLOGY_OPTIMIZER}, close. A table that grows
+ * past {@link Metadata#MAX_NEIGHBOURS} drops its slowest neighbour. Peers that answer this node's searches
+ * become candidates; every {@link Metadata#TOPOLOGY_OPTIMIZE_MILLIS} a few of them are pinged, and the closest
+ * one replaces the slowest neighbour if its round-trip time is below {@link Metadata#TOPOLOGY_SWAP_RATIO} of
+ * the neighbour's, so links do not flap between peers at much the same distance. The slow neighbour is only
+ * dropped once the closer peer has accepted the join; a swap that has not completed by the next round is
+ * abandoned.
+ *
+ * <p>The {@link Metadata#TOPOLOGY_LONG_LINKS} farthest neighbours are never swapped out or dropped. Without
+ * them, nodes in one region would end up linked only to each other and the overlay would split along region
+ * boundaries.
+ */
+public class TopologyOptimizer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopologyOptimizer.class);
+    private final Node node;
+    private final PeerLatencies latencies;
+    private final LinkedHashMap<Endpoint, Boolean> candidates;
+    private final Counter swaps;
+    private final Counter evictions;
+    private Endpoint swapJoining;
+    private Endpoint swapReplacing;
+    private boolean started;
+    private boolean stopped;
+
+    public TopologyOptimizer(Node node, PeerLatencies latencies) {
+        this.node = node;
+        this.latencies = latencies;
+        this.candidates = new LinkedHashMap<>();
+        this.swaps = MetricsRegistry.getDefault().counter("topology.swaps");
+        this.evictions = MetricsRegistry.getDefault().counter("topology.evictions");
+    }
+
+    public synchronized void start() {
+        if (this.started || this.stopped) {
+            return;
+        }
+        this.started = true;
+        this.scheduleRound();
+    }
+
+    public synchronized void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * A peer that answered a search. With the optimizer off it is joined straight away while the table has
+     * room; otherwise it is kept as a candidate until it has been measured.
+     */
+    public synchronized void onSearchResponse(Endpoint responder) {
+        if (responder.equals(this.node.getEndpoint()) || this.node.isNeighbour(responder)) {
+            return;
+        }
+        if (!Metadata.TOPOLOGY_OPTIMIZER) {
+            if (this.node.getNeighbours().size() < Metadata.MAX_NEIGHBOURS) {
+                LOGGER.info("[Topology ({})] Sending Join Request to ({})", this.node.getPort(), responder);
+                this.node.join(responder.ipAddress(), responder.port());
+            }
+            return;
+        }
+
+        this.candidates.remove(responder);
+        this.candidates.put(responder, Boolean.FALSE);
+        if (this.candidates.size() > Metadata.TOPOLOGY_CANDIDATES) {
+            this.candidates.remove(this.candidates.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Completes a pending swap for the peer just added, then drops the slowest neighbour other than it while the
+     * table is over its bound. The dropped neighbour is sent a {@code LEAVE}, so it drops the link too and can
+     * replace it if it has too few.
+     */
+    public synchronized void onNeighbourAdded(Endpoint added) {
+        this.candidates.remove(added);
+        if (added.equals(this.swapJoining)) {
+            Endpoint replaced = this.swapReplacing;
+            this.swapJoining = null;
+            this.swapReplacing = null;
+            if (this.node.isNeighbour(replaced)) {
+                this.swaps.increment();
+                LOGGER.info("[Topology Swap ({})] Replaced {} with {}", this.node.getPort(), replaced, added);
+                this.node.dropNeighbour(replaced);
+            }
+        }
+        while (this.node.getNeighbours().size() > Metadata.MAX_NEIGHBOURS) {
+            Endpoint victim = this.evictionVictim(added);
+            if (victim == null) {
+                return;
+            }
+            this.evictions.increment();
+            LOGGER.info("[Topology Evict ({})] Dropping {} to stay within {} neighbours",
+                this.node.getPort(), victim, Metadata.MAX_NEIGHBOURS);
+            this.node.dropNeighbour(victim);
+        }
+    }
+
+    public synchronized int getCandidateCount() {
+        return this.candidates.size();
+    }
+
+    private void scheduleRound() {
+        this.node.schedule(this::optimize, Metadata.TOPOLOGY_OPTIMIZE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void optimize() {
+        if (this.stopped) {
+            return;
+        }
+        this.scheduleRound();
+        this.swapJoining = null;
+        this.swapReplacing = null;
+        this.measure();
+
+        Endpoint closest = this.closestCandidate();
+        if (closest == null) {
+            return;
+        }
+        if (this.node.getNeighbours().size() < Metadata.MIN_NEIGHBOURS) {
+            LOGGER.info("[Topology ({})] Joining {} to reach {} neighbours", this.node.getPort(), closest, Metadata.MIN_NEIGHBOURS);
+            this.candidates.remove(closest);
+            this.node.join(closest.ipAddress(), closest.port());
+            return;
+        }
+
+        List<Endpoint> ranked = this.rankedNeighbours(null);
+        if (ranked.isEmpty()) {
+            return;
+        }
+        Endpoint slowest = ranked.get(0);
+        long closestRtt = this.latencies.get(closest);
+        long slowestRtt = this.latencies.get(slowest);
+        if (closestRtt < slowestRtt * Metadata.TOPOLOGY_SWAP_RATIO) {
+            LOGGER.info("[Topology Swap ({})] Joining {} ({} ms) to replace {} ({} ms)", this.node.getPort(),
+                closest, TimeUnit.NANOSECONDS.toMillis(closestRtt), slowest, TimeUnit.NANOSECONDS.toMillis(slowestRtt));
+            this.candidates.remove(closest);
+            this.swapJoining = closest;
+            this.swapReplacing = slowest;
+            this.node.join(closest.ipAddress(), closest.port());
+        }
+    }
+
+    /**
+     * Pings up to {@link Metadata#TOPOLOGY_PROBES_PER_ROUND} unmeasured peers, neighbours first. A candidate
+     * that was pinged once and never answered is forgotten.
+     */
+    private void measure() {
+        int budget = Metadata.TOPOLOGY_PROBES_PER_ROUND;
+        for (Neighbour neighbour : this.node.getNeighbours()) {
+            if (budget > 0 && this.latencies.get(neighbour.endpoint()) == PeerLatencies.UNKNOWN) {
+                this.node.getMembership().measure(neighbour.endpoint());
+                budget--;
+            }
+        }
+
+        for (Iterator<Map.Entry<Endpoint, Boolean>> it = this.candidates.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Endpoint, Boolean> candidate = it.next();
+            if (this.node.isNeighbour(candidate.getKey())) {
+                it.remove();
+            } else if (this.latencies.get(candidate.getKey()) != PeerLatencies.UNKNOWN) {
+                continue;
+            } else if (candidate.getValue()) {
+                it.remove();
+            } else if (budget > 0) {
+                this.node.getMembership().measure(candidate.getKey());
+                candidate.setValue(Boolean.TRUE);
+                budget--;
+            }
+        }
+    }
+
+    private Endpoint closestCandidate() {
+        Endpoint closest = null;
+        long closestRtt = Long.MAX_VALUE;
+        for (Endpoint candidate : this.candidates.keySet()) {
+            long rtt = this.latencies.get(candidate);
+            if (rtt != PeerLatencies.UNKNOWN && rtt < closestRtt) {
+                closest = candidate;
+                closestRtt = rtt;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Measured neighbours other than {@code keep}, slowest first, without the long links.
+     */
+    private List<Endpoint> rankedNeighbours(Endpoint keep) {
+        List<Endpoint> measured = new ArrayList<>();
+        for (Neighbour neighbour : this.node.getNeighbours()) {
+            if (!neighbour.endpoint().equals(keep) && this.latencies.get(neighbour.endpoint()) != PeerLatencies.UNKNOWN) {
+                measured.add(neighbour.endpoint());
+            }
+        }
+        measured.sort(Comparator.comparingLong(this.latencies::get).reversed());
+        return measured.subList(Math.min(measured.size(), Metadata.TOPOLOGY_LONG_LINKS), measured.size());
+    }
+
+    /**
+     * The slowest neighbour that is not a long link, or failing that the oldest unmeasured one.
+     */
+    private Endpoint evictionVictim(Endpoint keep) {
+        List<Endpoint> ranked = this.rankedNeighbours(keep);
+        if (!ranked.isEmpty()) {
+            return ranked.get(0);
+        }
+        for (Neighbour neighbour : this.node.getNeighbours()) {
+            if (!neighbour.endpoint().equals(keep) && this.latencies.get(neighbour.endpoint()) == PeerLatencies.UNKNOWN) {
+                return neighbour.endpoint();
+            }
+        }
+        return null;
+    }
+}
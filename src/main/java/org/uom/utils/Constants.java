@@ -39,23 +39,148 @@ public final class Constants {
 
         public static int FILES_COUNT = 3;
         public static int MAX_HOPS = 3;
+        public static String SEARCH_STRATEGY = "flood";
+        public static int WALKERS = 4;
+        public static int WALK_HOPS = 64;
+        public static int WALK_CHECK_INTERVAL = 4;
+        public static int PARKED_WALKERS = 1024;
+        public static long RING_TIMEOUT_MILLIS = 500;
+        public static int ACTIVE_SEARCHES = 256;
+        public static long ACTIVE_SEARCH_SECONDS = 60;
+        public static int SEARCH_MAX_RESULTS = 1;
+        public static int QUERY_HIT_CACHE_SIZE = 4096;
+        public static int QUERY_HIT_PEERS_PER_FILE = 8;
+        public static long QUERY_HIT_TTL_SECONDS = 600;
+        public static int SEARCH_ID_CAPACITY = 8192;
+        public static long SEARCH_ID_WINDOW_SECONDS = 60;
+        public static long EXPIRY_SWEEP_SECONDS = 30;
+        public static boolean SEARCH_COLLAPSING = true;
+        public static int IN_FLIGHT_SEARCHES = 256;
+        public static long SEARCH_COLLAPSE_WINDOW_MILLIS = 2000;
+        public static boolean USE_NIO_TRANSPORT = true;
+        public static long TIMER_TICK_MILLIS = 1;
+        public static int IO_THREADS = Runtime.getRuntime().availableProcessors();
+        public static int PROCESSING_THREADS = Runtime.getRuntime().availableProcessors();
+        public static boolean BATCH_SENDS = false;
+        public static int BATCH_MAX_MESSAGES = 64;
+        public static int BATCH_MAX_DATAGRAM_SIZE = 1400;
+        public static long BATCH_LINGER_MILLIS = 1;
+        public static long ENDPOINT_RESOLVE_TTL_SECONDS = 300;
+        public static int ENDPOINT_REGISTRY_CAPACITY = 1 << 20;
+        public static boolean METRICS_JMX = true;
+        public static int METRICS_HTTP_PORT = 9404;
+        public static int BOOTSTRAP_PORT = 55555;
+        public static int BOOTSTRAP_SHARDS = 64;
+        public static int BOOTSTRAP_MAX_NODES = 1_000_000;
+        public static String BOOTSTRAP_SNAPSHOT_FILE = "bootstrap.snapshot";
+        public static long BOOTSTRAP_SNAPSHOT_INTERVAL_SECONDS = 30;
+        public static String NODE_SNAPSHOT_DIR = "snapshots";
+        public static long NODE_SNAPSHOT_INTERVAL_SECONDS = 30;
+        public static boolean ROUTING_SUMMARIES = true;
+        public static int ROUTING_SUMMARY_DEPTH = 3;
+        public static int ROUTING_SUMMARY_BITS = 1024;
+        public static int ROUTING_SUMMARY_HASHES = 4;
+        public static long ROUTING_SUMMARY_ADVERTISE_MILLIS = 200;
+        public static boolean DHT = false;
+        public static int DHT_K = 8;
+        public static int DHT_ALPHA = 3;
+        public static long DHT_RPC_TIMEOUT_MILLIS = 500;
+        public static int DHT_MAX_KEYS = 65536;
+        public static int DHT_VALUES_PER_KEY = 16;
+        public static long DHT_RECORD_TTL_SECONDS = 3600;
+        public static long DHT_REPUBLISH_SECONDS = 1800;
+        public static int DHT_CONFIRM_HOSTS = 2;
+        public static boolean CONTENT_SERVER = true;
+        public static String CONTENT_DIR = "content";
+        public static long CONTENT_GENERATED_SIZE = 4 << 20;
+        public static int CONTENT_CHUNK_SIZE = 256 << 10;
+        public static int CONTENT_SERVER_THREADS = 8;
+        public static int CONTENT_CONNECTIONS_PER_SOURCE = 2;
+        public static int CONTENT_TIMEOUT_MILLIS = 10_000;
+        public static boolean BINARY_PROTOCOL = true;
+        public static int PIPELINE_QUEUE_CAPACITY = 16_384;
+        public static int TRANSPORT_QUEUE_CAPACITY = 16_384;
+        public static String QUEUE_SHED_POLICY = "lowest-hops";
+        public static Set<String> SEARCH_TRAFFIC_TYPES = Set.of(
+            MessageTypes.SEARCH,
+            MessageTypes.DHT_FIND_NODE,
+            MessageTypes.DHT_FIND_VALUE,
+            MessageTypes.DHT_STORE);
+        public static Set<String> RESPONSE_TRAFFIC_TYPES = Set.of(
+            MessageTypes.SEROK,
+            MessageTypes.WALK_CHECK,
+            MessageTypes.WALK_CHECK_OK,
+            MessageTypes.DHT_NODES,
+            MessageTypes.DHT_VALUES);
+        public static double PEER_RATE_LIMIT = 1000;
+        public static double PEER_RATE_BURST = 5000;
+        public static double PEER_CONTROL_RATE_LIMIT = 200;
+        public static double PEER_CONTROL_RATE_BURST = 1000;
+        public static int RATE_LIMITED_PEERS = 4096;
+        public static boolean RELIABLE_DELIVERY = false;
+        public static Set<String> RELIABLE_TYPES = Set.of(
+            MessageTypes.JOIN,
+            MessageTypes.JOINOK,
+            MessageTypes.LEAVE,
+            MessageTypes.LEAVEOK,
+            MessageTypes.SEARCH,
+            MessageTypes.SEROK);
+        public static int RELIABLE_FRAGMENT_SIZE = 1200;
+        public static int RELIABLE_MAX_RETRIES = 5;
+        public static long RELIABLE_INITIAL_RTO_MILLIS = 200;
+        public static long RELIABLE_MIN_RTO_MILLIS = 100;
+        public static long RELIABLE_MAX_RTO_MILLIS = 5000;
+        public static int RELIABLE_MAX_PEERS = 4096;
+        public static int RELIABLE_DEDUPE_WINDOW = 1024;
+        public static boolean SWIM = true;
+        public static long SWIM_PROBE_INTERVAL_MILLIS = 200;
+        public static long SWIM_PING_TIMEOUT_MILLIS = 100;
+        public static long SWIM_SUSPICION_TIMEOUT_MILLIS = 300;
+        public static int SWIM_INDIRECT_PROBES = 3;
+        public static int SWIM_GOSSIP_ENTRIES = 6;
+        public static int SWIM_VIEW_SIZE = 32;
+        public static int MIN_NEIGHBOURS = 3;
+        public static int MAX_NEIGHBOURS = 8;
+        public static boolean TOPOLOGY_OPTIMIZER = true;
+        public static long TOPOLOGY_OPTIMIZE_MILLIS = 1000;
+        public static int TOPOLOGY_CANDIDATES = 16;
+        public static int TOPOLOGY_PROBES_PER_ROUND = 2;
+        public static long TOPOLOGY_PROBE_TIMEOUT_MILLIS = 1000;
+        public static double TOPOLOGY_SWAP_RATIO = 0.7;
+        public static int TOPOLOGY_LONG_LINKS = 1;
+        public static int TOPOLOGY_TRACKED_PEERS = 1024;
     }
 
     public static class Commands {
-        public static String MSG_FMT = "%d %s";
         public static String REG = "REG %s %d %s";
         public static String UNREG = "UNREG %s %d %s";
         public static String JOIN = "JOIN %s %d";
         public static String LEAVE = "LEAVE %s %d";
-        public static String SEARCH = "SER %s %d %s %d";
+        public static String SEARCH = "SER %s %d %s %d %016x";
+        public static String WALK_CHECK = "WCHK %016x";
+        public static String ROUTING_SUMMARY = "RSUM %d %d %d %s";
+        public static String DHT_FIND_NODE = "DFNODE %016x %016x";
+        public static String DHT_FIND_VALUE = "DFVAL %016x %016x";
+        public static String DHT_STORE = "DSTORE %016x %s %d";
+        public static String RELIABLE_SEGMENT = "RDT %016x %d %d %d %d %s";
+        public static String PING = "PING %016x %d%s";
+        public static String PING_REQUEST = "PINGREQ %016x %s %d %d%s";
     }
 
     public static class CommandResponses {
         public static final String SEROK = "SEROK %d %s %d %d %s";
         public static String JOINOK = "JOINOK %d";
+        public static String UNROK = "UNROK %d";
+        public static String WALK_CHECK_OK = "WCHKOK %016x %d";
+        public static String DHT_NODES = "DNODES %016x %d%s";
+        public static String DHT_VALUES = "DVALS %016x %d%s";
+        public static String RELIABLE_ACK = "RACK %016x %d%s";
+        public static String PING_OK = "PINGOK %016x %d%s";
     }
 
     public static class MessageTypes {
+        public static String REG = "REG";
+        public static String UNREG = "UNREG";
         public static String REGOK = "REGOK";
         public static String UNROK = "UNROK";
         public static String JOIN = "JOIN";
@@ -64,5 +189,18 @@ public final class Constants {
         public static String LEAVEOK = "LEAVEOK";
         public static String SEARCH = "SER";
         public static String SEROK = "SEROK";
+        public static String WALK_CHECK = "WCHK";
+        public static String WALK_CHECK_OK = "WCHKOK";
+        public static String ROUTING_SUMMARY = "RSUM";
+        public static String DHT_FIND_NODE = "DFNODE";
+        public static String DHT_FIND_VALUE = "DFVAL";
+        public static String DHT_NODES = "DNODES";
+        public static String DHT_VALUES = "DVALS";
+        public static String DHT_STORE = "DSTORE";
+        public static String RELIABLE_SEGMENT = "RDT";
+        public static String RELIABLE_ACK = "RACK";
+        public static String PING = "PING";
+        public static String PING_REQUEST = "PINGREQ";
+        public static String PING_OK = "PINGOK";
     }
 }
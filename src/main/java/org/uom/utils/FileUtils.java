@@ -1,12 +1,57 @@
 package org.uom.utils;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class FileUtils {
+    private static final String[] NO_TOKENS = new String[0];
+
     public static boolean hasMatchingFileName(String fileName, String query) {
-        Pattern pattern = Pattern.compile(".*\\b" + query + "\\b.*", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(fileName);
-        return matcher.find();
+        return containsPhrase(tokenize(fileName), tokenize(query));
+    }
+
+    /**
+     * Splits a name into lower-cased word tokens, where a word is a run of letters, digits or underscores.
+     * Two names match the way {@code \bquery\b} does when the query's tokens appear consecutively in the name.
+     */
+    public static String[] tokenize(String value) {
+        List<String> tokens = null;
+        int length = value.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean isWordChar = i < length && isWordChar(value.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                if (tokens == null) {
+                    tokens = new ArrayList<>(4);
+                }
+                tokens.add(value.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens == null ? NO_TOKENS : tokens.toArray(NO_TOKENS);
+    }
+
+    public static boolean containsPhrase(String[] tokens, String[] phrase) {
+        if (phrase.length == 0) {
+            return false;
+        }
+
+        for (int i = 0; i <= tokens.length - phrase.length; i++) {
+            int j = 0;
+            while (j < phrase.length && tokens[i + j].equals(phrase[j])) {
+                j++;
+            }
+            if (j == phrase.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
     }
 }
@@ -0,0 +1,209 @@
+package org.uom.communication;
+
+import org.junit.jupiter.api.Test;
+import org.uom.membership.MemberState;
+import org.uom.membership.MemberUpdate;
+import org.uom.model.message.*;
+import org.uom.search.BloomFilter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCodecTest {
+    private static final Endpoint PEER = EndpointRegistry.getDefault().get("129.82.123.45", 5001);
+    private static final Endpoint HOST = EndpointRegistry.getDefault().get("64.12.123.190", 34001);
+    private static final long SEARCH_ID = 0x0123456789abcdefL;
+
+    @Test
+    void decodesLegacySearchWithoutId() {
+        SearchMessage search = (SearchMessage) decode("SER 129.82.123.45 5001 Lord of the rings 3");
+
+        assertSame(PEER, search.initiator);
+        assertEquals("Lord of the rings", search.query);
+        assertEquals(3, search.hops);
+        assertEquals(0, search.searchId);
+        assertEquals(SearchMode.FLOOD, search.mode);
+    }
+
+    @Test
+    void roundTripsSearchWithoutId() {
+        SearchMessage search = roundTrip(new SearchMessage(PEER, "Lord of the rings", 3, 0));
+
+        assertEquals("Lord of the rings", search.query);
+        assertEquals(3, search.hops);
+        assertEquals(0, search.searchId);
+        assertEquals(SearchMode.FLOOD, search.mode);
+    }
+
+    @Test
+    void roundTripsSearchWithId() {
+        SearchMessage search = roundTrip(new SearchMessage(PEER, "Lord of the rings", 3, SEARCH_ID));
+
+        assertSame(PEER, search.initiator);
+        assertEquals("Lord of the rings", search.query);
+        assertEquals(3, search.hops);
+        assertEquals(SEARCH_ID, search.searchId);
+        assertEquals(SearchMode.FLOOD, search.mode);
+    }
+
+    @Test
+    void roundTripsWalkSearch() {
+        SearchMessage search = roundTrip(new SearchMessage(PEER, "Tintin in Tibet", 12, SEARCH_ID, SearchMode.WALK));
+
+        assertEquals("Tintin in Tibet", search.query);
+        assertEquals(12, search.hops);
+        assertEquals(SEARCH_ID, search.searchId);
+        assertEquals(SearchMode.WALK, search.mode);
+    }
+
+    @Test
+    void keepsHexLastWordInQuery() {
+        String query = "checksum deadbeefdeadbeef";
+
+        SearchMessage legacy = roundTrip(new SearchMessage(PEER, query, 2, 0));
+        assertEquals(query, legacy.query);
+        assertEquals(2, legacy.hops);
+        assertEquals(0, legacy.searchId);
+
+        SearchMessage withId = roundTrip(new SearchMessage(PEER, query, 2, SEARCH_ID));
+        assertEquals(query, withId.query);
+        assertEquals(2, withId.hops);
+        assertEquals(SEARCH_ID, withId.searchId);
+
+        SearchMessage walk = roundTrip(new SearchMessage(PEER, query, 2, SEARCH_ID, SearchMode.WALK));
+        assertEquals(query, walk.query);
+        assertEquals(SEARCH_ID, walk.searchId);
+        assertEquals(SearchMode.WALK, walk.mode);
+    }
+
+    @Test
+    void decodesLegacySearchResponse() {
+        SearchResponse response = (SearchResponse) decode(
+            "SEROK 3 64.12.123.190 34001 2 baby_go_home.mp3, baby_come_back.mp3, baby.mpeg");
+
+        assertEquals(3, response.fileCount);
+        assertSame(HOST, response.fileHost);
+        assertEquals(2, response.hops);
+        assertArrayEquals(new String[]{"baby_go_home.mp3", "baby_come_back.mp3", "baby.mpeg"}, response.fileNames);
+    }
+
+    @Test
+    void roundTripsSearchResponseNames() {
+        String[] names = {"Lord of the Rings", "Harry Potter", "Tintin in Tibet"};
+        SearchResponse response = roundTrip(new SearchResponse(names.length, HOST, 1, names));
+
+        assertEquals(names.length, response.fileCount);
+        assertSame(HOST, response.fileHost);
+        assertEquals(1, response.hops);
+        assertArrayEquals(names, response.fileNames);
+    }
+
+    @Test
+    void decodesFramesBatchedInOneDatagram() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        MessageCodec.encode(new SearchMessage(PEER, "Harry Potter", 4, SEARCH_ID), buffer);
+        MessageCodec.encode(new JoinMessage(HOST), buffer);
+        buffer.flip();
+
+        assertTrue(MessageCodec.hasFrame(buffer));
+        assertInstanceOf(SearchMessage.class, MessageCodec.decode(buffer, PEER));
+        assertTrue(MessageCodec.hasFrame(buffer));
+        assertSame(HOST, ((JoinMessage) MessageCodec.decode(buffer, PEER)).neighbour);
+        assertFalse(MessageCodec.hasFrame(buffer));
+    }
+
+    @Test
+    void roundTripsBinarySearch() {
+        SearchMessage sent = new SearchMessage(PEER, "Lord of the rings", 3, SEARCH_ID, SearchMode.WALK);
+        sent.binaryReplies = true;
+        SearchMessage search = roundTripBinary(sent);
+
+        assertSame(PEER, search.initiator);
+        assertEquals("Lord of the rings", search.query);
+        assertEquals(3, search.hops);
+        assertEquals(SEARCH_ID, search.searchId);
+        assertEquals(SearchMode.WALK, search.mode);
+        assertTrue(search.binaryReplies);
+    }
+
+    @Test
+    void roundTripsBinarySearchResponse() {
+        String[] names = {"Lord of the Rings", "Harry Potter"};
+        SearchResponse response = roundTripBinary(new SearchResponse(names.length, HOST, 2, names));
+
+        assertSame(HOST, response.fileHost);
+        assertEquals(2, response.hops);
+        assertArrayEquals(names, response.fileNames);
+    }
+
+    @Test
+    void roundTripsBinaryWalkCheckAndPings() {
+        assertEquals(SEARCH_ID, roundTripBinary(new WalkCheck(SEARCH_ID)).searchId);
+
+        MemberUpdate[] updates = {new MemberUpdate(HOST, MemberState.SUSPECT, 7)};
+        Ping ping = roundTripBinary(new Ping(SEARCH_ID, updates));
+        assertEquals(SEARCH_ID, ping.probeId);
+        assertArrayEquals(updates, ping.updates);
+
+        PingRequest request = roundTripBinary(new PingRequest(SEARCH_ID, HOST, updates));
+        assertSame(HOST, request.target);
+        assertArrayEquals(updates, request.updates);
+    }
+
+    @Test
+    void roundTripsBinaryRoutingSummary() {
+        BloomFilter level = new BloomFilter(256, 3);
+        level.add("rings");
+        RoutingSummary summary = roundTripBinary(new RoutingSummary(new BloomFilter[]{level, new BloomFilter(256, 3)}));
+
+        assertEquals(2, summary.levels.length);
+        assertEquals(level, summary.levels[0]);
+        assertTrue(summary.levels[0].mightContain("rings"));
+    }
+
+    @Test
+    void rejectsNumericFieldThatOverflows() {
+        assertThrows(IllegalArgumentException.class, () -> decode("SER 129.82.123.45 5001 rings 4294967297"));
+        assertThrows(IllegalArgumentException.class, () -> decode("UNROK 2147483648"));
+        assertEquals(Integer.MIN_VALUE, ((UnregisterResponse) decode("UNROK -2147483648")).value);
+    }
+
+    @Test
+    void rejectsPortOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> decode("JOIN 129.82.123.45 70537"));
+        assertThrows(IllegalArgumentException.class, () -> decode("LEAVE 129.82.123.45 -1"));
+        assertThrows(IllegalArgumentException.class, () -> decode("SER 129.82.123.45 65536 rings 2"));
+    }
+
+    /**
+     * Frames the body the way the original protocol does, with a length that counts the prefix itself.
+     */
+    private static Message decode(String body) {
+        String frame = String.format("%04d %s", body.length() + 5, body);
+        return MessageCodec.decode(ByteBuffer.wrap(frame.getBytes(StandardCharsets.UTF_8)), PEER);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <M extends Message> M roundTrip(M message) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        MessageCodec.encode(message, buffer);
+        buffer.flip();
+        Message decoded = MessageCodec.decode(buffer, PEER);
+        assertFalse(buffer.hasRemaining());
+        return (M) decoded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <M extends Message> M roundTripBinary(M message) {
+        assertTrue(BinaryCodec.canEncode(message));
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        MessageCodec.encode(new SocketMessage(PEER, message, true), buffer);
+        buffer.flip();
+        assertTrue(BinaryCodec.isFrame(buffer));
+        Message decoded = MessageCodec.decode(buffer, PEER);
+        assertFalse(buffer.hasRemaining());
+        return (M) decoded;
+    }
+}
@@ -0,0 +1,30 @@
+package org.uom.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void interpolatesQuantilesWithinBucket() {
+        Histogram histogram = new Histogram();
+        for (long value = 1024; value < 2048; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1536, histogram.getQuantile(0.50), 2);
+        assertEquals(1946, histogram.getQuantile(0.90), 2);
+        assertEquals(2047, histogram.getQuantile(1.0));
+    }
+
+    @Test
+    void neverReportsQuantileAboveMax() {
+        Histogram histogram = new Histogram();
+        histogram.record(1100);
+        histogram.record(1200);
+
+        assertTrue(histogram.getQuantile(0.99) <= 1200);
+        assertTrue(histogram.getQuantile(0.50) >= 1024);
+    }
+}
@@ -0,0 +1,23 @@
+package org.uom.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void readsSingleMetricWithoutSnapshot() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test.counter").increment();
+        registry.histogram("test.latency").record(1500);
+        registry.gauge("test.gauge", () -> 7);
+
+        assertEquals(1L, registry.value("test.counter"));
+        assertEquals(7, registry.value("test.gauge"));
+        assertEquals(1L, registry.value("test.latency.count"));
+        assertEquals(1500L, registry.value("test.latency.max"));
+        assertNull(registry.value("test.latency.p75"));
+        assertNull(registry.value("missing"));
+    }
+}
@@ -0,0 +1,169 @@
+package org.uom.processing;
+
+import org.junit.jupiter.api.Test;
+import org.uom.communication.Endpoint;
+import org.uom.communication.EndpointRegistry;
+import org.uom.model.message.JoinMessage;
+import org.uom.model.message.Message;
+import org.uom.model.message.SearchMessage;
+import org.uom.model.message.SearchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityMessageQueueTest {
+    private static final Endpoint PEER = EndpointRegistry.getDefault().get("127.0.0.1", 5000);
+
+    @Test
+    void handsOutControlThenResponsesThenSearches() {
+        PriorityMessageQueue<Message> queue = queue(10, ShedPolicy.OLDEST);
+        Message search = search(3);
+        Message response = response();
+        Message join = join();
+        queue.offer(search);
+        queue.offer(response);
+        queue.offer(join);
+
+        assertEquals(List.of(join, response, search), drain(queue));
+    }
+
+    @Test
+    void keepsArrivalOrderWithinSearchesAcrossHopBuckets() {
+        PriorityMessageQueue<Message> queue = queue(10, ShedPolicy.LOWEST_HOPS);
+        Message first = search(1);
+        Message second = search(5);
+        Message third = search(2);
+        queue.offer(first);
+        queue.offer(second);
+        queue.offer(third);
+
+        assertEquals(List.of(first, second, third), drain(queue));
+    }
+
+    @Test
+    void newestDropsArrivingSearchWhenFullOfSearches() {
+        PriorityMessageQueue<Message> queue = queue(2, ShedPolicy.NEWEST);
+        Message first = search(3);
+        Message second = search(3);
+        queue.offer(first);
+        queue.offer(second);
+
+        assertFalse(queue.offer(search(3)));
+        assertEquals(List.of(first, second), drain(queue));
+    }
+
+    @Test
+    void oldestDropsLongestQueuedSearch() {
+        PriorityMessageQueue<Message> queue = queue(2, ShedPolicy.OLDEST);
+        Message first = search(3);
+        Message second = search(3);
+        Message third = search(3);
+        queue.offer(first);
+        queue.offer(second);
+
+        assertTrue(queue.offer(third));
+        assertEquals(List.of(second, third), drain(queue));
+    }
+
+    @Test
+    void lowestHopsDropsSearchWithFewestHopsLeft() {
+        PriorityMessageQueue<Message> queue = queue(2, ShedPolicy.LOWEST_HOPS);
+        Message far = search(5);
+        Message near = search(1);
+        Message arriving = search(3);
+        queue.offer(far);
+        queue.offer(near);
+
+        assertTrue(queue.offer(arriving));
+        assertEquals(List.of(far, arriving), drain(queue));
+        queue.offer(far);
+        queue.offer(arriving);
+        assertFalse(queue.offer(search(1)));
+    }
+
+    @Test
+    void shedsSearchesToAdmitControl() {
+        for (ShedPolicy policy : ShedPolicy.values()) {
+            PriorityMessageQueue<Message> queue = queue(2, policy);
+            Message search = search(3);
+            Message response = response();
+            Message join = join();
+            queue.offer(search);
+            queue.offer(response);
+
+            assertTrue(queue.offer(join), policy.name());
+            assertEquals(List.of(join, response), drain(queue), policy.name());
+        }
+    }
+
+    @Test
+    void rejectsSearchWhenFullOfControl() {
+        for (ShedPolicy policy : ShedPolicy.values()) {
+            PriorityMessageQueue<Message> queue = queue(2, policy);
+            queue.offer(join());
+            queue.offer(join());
+
+            assertFalse(queue.offer(search(3)), policy.name());
+            assertEquals(2, queue.size(), policy.name());
+        }
+    }
+
+    @Test
+    void neverShedsTasksWithoutMessage() {
+        for (ShedPolicy policy : ShedPolicy.values()) {
+            PriorityMessageQueue<Runnable> queue = new PriorityMessageQueue<>(
+                1, policy, task -> task instanceof MessageTask messageTask ? messageTask.message() : null);
+            Runnable timer = () -> {
+            };
+            Runnable join = new MessageTask(join(), () -> {
+            });
+            assertTrue(queue.offer(timer), policy.name());
+            assertTrue(queue.offer(join), policy.name());
+            assertTrue(queue.offer(timer), policy.name());
+            queue.offer(new MessageTask(join(), () -> {
+            }));
+
+            List<Runnable> drained = drain(queue);
+            assertEquals(3, drained.size(), policy.name());
+            assertEquals(List.of(timer, timer), drained.subList(0, 2), policy.name());
+            assertInstanceOf(MessageTask.class, drained.get(2), policy.name());
+        }
+    }
+
+    @Test
+    void timedPollWaitsForAnElement() throws InterruptedException {
+        PriorityMessageQueue<Message> queue = queue(2, ShedPolicy.OLDEST);
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        Message join = join();
+        Thread producer = new Thread(() -> queue.offer(join));
+        producer.start();
+        assertSame(join, queue.poll(5, TimeUnit.SECONDS));
+        producer.join();
+    }
+
+    private static PriorityMessageQueue<Message> queue(int capacity, ShedPolicy policy) {
+        return new PriorityMessageQueue<>(capacity, policy, message -> message);
+    }
+
+    private static <E> List<E> drain(PriorityMessageQueue<E> queue) {
+        List<E> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        return drained;
+    }
+
+    private static Message search(int hops) {
+        return new SearchMessage(PEER, "Kung Fu Panda", hops, 1);
+    }
+
+    private static Message response() {
+        return new SearchResponse(1, PEER, 1, new String[]{"Kung Fu Panda"});
+    }
+
+    private static Message join() {
+        return new JoinMessage(PEER);
+    }
+}